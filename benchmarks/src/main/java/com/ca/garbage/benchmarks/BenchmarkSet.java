@@ -0,0 +1,42 @@
+package com.ca.garbage.benchmarks;
+
+/**
+ * The operations the suites measure, implemented by each set under comparison. Navigation methods return MISSING
+ * when there is no such element.
+ */
+interface BenchmarkSet {
+	int MISSING = Integer.MIN_VALUE;
+
+	boolean add(int key);
+
+	boolean remove(int key);
+
+	boolean addAll(int[] keys);
+
+	boolean removeAll(int[] keys);
+
+	boolean contains(int key);
+
+	int lower(int key);
+
+	int higher(int key);
+
+	int floor(int key);
+
+	int ceiling(int key);
+
+	/**
+	 * Iterates over every element.
+	 */
+	long sum();
+
+	/**
+	 * Iterates over a [from, to) view.
+	 */
+	long sumRange(int from, int to);
+
+	/**
+	 * Size of a (-inf, to) view.
+	 */
+	int headSetSize(int to);
+}
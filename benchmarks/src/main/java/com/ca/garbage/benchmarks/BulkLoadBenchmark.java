@@ -0,0 +1,60 @@
+package com.ca.garbage.benchmarks;
+
+import com.ca.garbage.FastNavIntSet;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * addAll(int[]) of batch unsorted keys into a set already holding size others. Batches past
+ * FastNavIntSet.PARALLEL_ADD_THRESHOLD go through the parallel sort and merge when the common ForkJoinPool has more
+ * than one thread; -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=1 gives the sequential
+ * numbers to compare against on the same machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+	@Param({"0", "1000000"})
+	public int size;
+	@Param({"1000000", "10000000"})
+	public int batch;
+	@Param({"UNIFORM"})
+	public KeyDistribution distribution;
+
+	private FastNavIntSet base;
+	private int[] keys;
+	private FastNavIntSet set;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		int[] all = distribution.keys(size + batch, SetState.SEED);
+		base = FastNavIntSet.create(Arrays.copyOf(all, size));
+		keys = Arrays.copyOfRange(all, size, all.length);
+	}
+
+	@Setup(Level.Invocation)
+	public void copy() {
+		set = FastNavIntSet.fromCollection(base);
+	}
+
+	@Benchmark
+	public FastNavIntSet addAll() {
+		set.addAll(keys);
+		return set;
+	}
+}
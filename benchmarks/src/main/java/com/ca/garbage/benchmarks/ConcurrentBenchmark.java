@@ -0,0 +1,162 @@
+package com.ca.garbage.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The thread safe sets under several threads at once: readers probing contains and ceiling, alone or next to a writer
+ * that keeps adding and removing keys, one at a time or in bursts of BURST, and writers only, all churning keys spread
+ * over the whole range. Thread counts per group can be changed with -tg, e.g. -tg 31,1 for the readWrite group on 32
+ * cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBenchmark {
+	private static final int PROBES = 1 << 16;
+	private static final int BURST = 256;
+
+	/**
+	 * One set shared by all threads of a group.
+	 */
+	@State(Scope.Group)
+	public static class SharedSet {
+		@Param({"100000", "10000000"})
+		public int size;
+		@Param({"UNIFORM"})
+		public KeyDistribution distribution;
+		@Param({"STAMPED_FAST_NAV_INT_SET", "CONCURRENT_FAST_NAV_INT_SET", "STRIPED_FAST_NAV_INT_SET",
+						"SYNCHRONIZED_FAST_NAV_INT_SET", "CONCURRENT_SKIP_LIST_SET"})
+		public SetImplementation implementation;
+
+		int[] keys;
+		int[] probes;
+		int[] absentKeys;
+		BenchmarkSet set;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			keys = distribution.keys(size, SetState.SEED);
+			Random random = new Random(SetState.SEED);
+			probes = new int[PROBES];
+			absentKeys = new int[PROBES];
+			for (int i = 0; i < PROBES; i++) {
+				int key = keys[random.nextInt(size)];
+				absentKeys[i] = absentNear(key, random);
+				probes[i] = random.nextBoolean() ? key : absentKeys[i];
+			}
+			set = implementation.create(keys);
+		}
+
+		private int absentNear(int key, Random random) {
+			int candidate = key == Integer.MAX_VALUE ? key - 1 : key + 1;
+			while (Arrays.binarySearch(keys, candidate) >= 0) {
+				candidate = random.nextInt();
+			}
+			return candidate;
+		}
+	}
+
+	/**
+	 * Each thread walks the shared probes from its own random offset.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int index;
+		private final int[] burst = new int[BURST];
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			index = new Random().nextInt(PROBES);
+		}
+
+		int next(int[] values) {
+			index = (index + 1) & (PROBES - 1);
+			return values[index];
+		}
+
+		int[] nextBurst(int[] values) {
+			for (int i = 0; i < BURST; i++) {
+				burst[i] = next(values);
+			}
+			return burst;
+		}
+	}
+
+	@Benchmark
+	@Group("read")
+	@GroupThreads(4)
+	public boolean readContains(SharedSet shared, Cursor cursor) {
+		return shared.set.contains(cursor.next(shared.probes));
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(3)
+	public boolean readWriteContains(SharedSet shared, Cursor cursor) {
+		return shared.set.contains(cursor.next(shared.probes));
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(1)
+	public boolean readWriteChurn(SharedSet shared, Cursor cursor) {
+		int key = cursor.next(shared.absentKeys);
+		return shared.set.add(key) & shared.set.remove(key);
+	}
+
+	@Benchmark
+	@Group("navigate")
+	@GroupThreads(3)
+	public int navigateCeiling(SharedSet shared, Cursor cursor) {
+		return shared.set.ceiling(cursor.next(shared.probes));
+	}
+
+	@Benchmark
+	@Group("navigate")
+	@GroupThreads(1)
+	public boolean navigateChurn(SharedSet shared, Cursor cursor) {
+		int key = cursor.next(shared.absentKeys);
+		return shared.set.add(key) & shared.set.remove(key);
+	}
+
+	@Benchmark
+	@Group("burst")
+	@GroupThreads(3)
+	public boolean burstContains(SharedSet shared, Cursor cursor) {
+		return shared.set.contains(cursor.next(shared.probes));
+	}
+
+	@Benchmark
+	@Group("burst")
+	@GroupThreads(1)
+	public boolean burstChurn(SharedSet shared, Cursor cursor) {
+		int[] keys = cursor.nextBurst(shared.absentKeys);
+		return shared.set.addAll(keys) & shared.set.removeAll(keys);
+	}
+
+	@Benchmark
+	@Group("write")
+	@GroupThreads(4)
+	public boolean writeChurn(SharedSet shared, Cursor cursor) {
+		int key = cursor.next(shared.absentKeys);
+		return shared.set.add(key) & shared.set.remove(key);
+	}
+}
@@ -0,0 +1,63 @@
+package com.ca.garbage.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full scans and views. The views cover up to VIEW_LENGTH elements starting at a random key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterationBenchmark {
+	private static final int VIEW_LENGTH = 1024;
+	private static final int RANGES = 1 << 10;
+
+	public static class ViewState extends SetState {
+		private int[] from;
+		private int[] to;
+		private int rangeIndex;
+
+		@Override
+		void prepare() {
+			Random random = new Random(SEED + 2);
+			from = new int[RANGES];
+			to = new int[RANGES];
+			for (int i = 0; i < RANGES; i++) {
+				int start = random.nextInt(size);
+				from[i] = keys[start];
+				to[i] = start + VIEW_LENGTH < size ? keys[start + VIEW_LENGTH] : Integer.MAX_VALUE;
+			}
+		}
+
+		int nextRange() {
+			rangeIndex = (rangeIndex + 1) & (RANGES - 1);
+			return rangeIndex;
+		}
+	}
+
+	@Benchmark
+	public long iterate(SetState state) {
+		return state.set.sum();
+	}
+
+	@Benchmark
+	public long subSetIterate(ViewState state) {
+		int range = state.nextRange();
+		return state.set.sumRange(state.from[range], state.to[range]);
+	}
+
+	@Benchmark
+	public int headSetSize(ViewState state) {
+		return state.set.headSetSize(state.to[state.nextRange()]);
+	}
+}
@@ -0,0 +1,81 @@
+package com.ca.garbage.benchmarks;
+
+import java.util.Random;
+
+/**
+ * How the keys of a benchmark set are spread over the int range. Keys are produced in ascending order from a stream
+ * of gaps, which are scaled down when they would not fit in 2^32 values.
+ */
+public enum KeyDistribution {
+	/**
+	 * 0 .. n - 1.
+	 */
+	DENSE {
+		@Override
+		long nextGap(Random random, long averageGap) {
+			return 1;
+		}
+	},
+	/**
+	 * Keys spread evenly over the whole int range.
+	 */
+	UNIFORM {
+		@Override
+		long nextGap(Random random, long averageGap) {
+			return 1 + (long) (random.nextDouble() * (2 * averageGap - 1));
+		}
+	},
+	/**
+	 * Runs of consecutive keys, averaging CLUSTER_LENGTH long, with wide gaps between them.
+	 */
+	CLUSTERED {
+		@Override
+		long nextGap(Random random, long averageGap) {
+			if (random.nextInt(CLUSTER_LENGTH) != 0) {
+				return 1;
+			}
+			return 1 + (long) (random.nextDouble() * (2 * averageGap * CLUSTER_LENGTH - 1));
+		}
+	},
+	/**
+	 * Power law (Zipf-like) gaps: mostly neighbours, with a long tail of huge jumps.
+	 */
+	ZIPF {
+		@Override
+		long nextGap(Random random, long averageGap) {
+			double gap = Math.pow(1 - random.nextDouble(), -1 / ZIPF_EXPONENT);
+			return gap >= SPAN ? SPAN : (long) gap;
+		}
+	};
+
+	private static final long SPAN = 1L << 32;
+	private static final int CLUSTER_LENGTH = 64;
+	private static final double ZIPF_EXPONENT = 1.1;
+
+	abstract long nextGap(Random random, long averageGap);
+
+	/**
+	 * @return size distinct keys in ascending order, the same for the same seed
+	 */
+	public int[] keys(int size, long seed) {
+		long averageGap = Math.max(1, (SPAN - 1) / Math.max(1, size));
+		Random random = new Random(seed);
+		long span = 0;
+		for (int i = 0; i < size; i++) {
+			span += nextGap(random, averageGap);
+		}
+		double scale = span < SPAN ? 1 : (double) (SPAN - size) / (span - size);
+		long start = span <= Integer.MAX_VALUE ? 0 : Integer.MIN_VALUE;
+
+		random = new Random(seed);
+		int[] keys = new int[size];
+		long position = start - 1;
+		for (int i = 0; i < size; i++) {
+			long gap = nextGap(random, averageGap);
+			position += scale == 1 ? gap : 1 + (long) ((gap - 1) * scale);
+			keys[i] = (int) Math.min(position, Integer.MAX_VALUE - (size - 1 - i));
+			position = keys[i];
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,45 @@
+package com.ca.garbage.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * contains and the navigation methods, probing keys of which half are present.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+	@Benchmark
+	public boolean contains(SetState state) {
+		return state.set.contains(state.nextProbe());
+	}
+
+	@Benchmark
+	public int lower(SetState state) {
+		return state.set.lower(state.nextProbe());
+	}
+
+	@Benchmark
+	public int higher(SetState state) {
+		return state.set.higher(state.nextProbe());
+	}
+
+	@Benchmark
+	public int floor(SetState state) {
+		return state.set.floor(state.nextProbe());
+	}
+
+	@Benchmark
+	public int ceiling(SetState state) {
+		return state.set.ceiling(state.nextProbe());
+	}
+}
@@ -0,0 +1,138 @@
+package com.ca.garbage.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * add, remove, addAll and removeAll. Every mutation is undone in an invocation level tear down so the set stays at
+ * the requested size; the undo isn't part of the measured time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+	private static final int POOL = 1 << 12;
+
+	public static class MutationState extends SetState {
+		@Param({"16", "1024"})
+		public int batchSize;
+
+		private int[] absentKeys;
+		private int[] presentKeys;
+		private int poolIndex;
+		int key;
+		int[] batch;
+
+		@Override
+		void prepare() {
+			Random random = new Random(SEED + 1);
+			absentKeys = new int[POOL];
+			presentKeys = new int[POOL];
+			for (int i = 0; i < POOL; i++) {
+				int present = keys[random.nextInt(size)];
+				presentKeys[i] = present;
+				absentKeys[i] = absentNear(present, random);
+			}
+			batch = new int[Math.min(batchSize, size)];
+		}
+
+		int nextAbsent() {
+			poolIndex = (poolIndex + 1) & (POOL - 1);
+			return absentKeys[poolIndex];
+		}
+
+		int nextPresent() {
+			poolIndex = (poolIndex + 1) & (POOL - 1);
+			return presentKeys[poolIndex];
+		}
+
+		void fillBatch(boolean present) {
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = present ? nextPresent() : nextAbsent();
+			}
+			Arrays.sort(batch);
+		}
+	}
+
+	public static class AddState extends MutationState {
+		@Setup(Level.Invocation)
+		public void pick() {
+			key = nextAbsent();
+		}
+
+		@TearDown(Level.Invocation)
+		public void undo() {
+			set.remove(key);
+		}
+	}
+
+	public static class RemoveState extends MutationState {
+		@Setup(Level.Invocation)
+		public void pick() {
+			key = nextPresent();
+		}
+
+		@TearDown(Level.Invocation)
+		public void undo() {
+			set.add(key);
+		}
+	}
+
+	public static class AddAllState extends MutationState {
+		@Setup(Level.Invocation)
+		public void pick() {
+			fillBatch(false);
+		}
+
+		@TearDown(Level.Invocation)
+		public void undo() {
+			set.removeAll(batch);
+		}
+	}
+
+	public static class RemoveAllState extends MutationState {
+		@Setup(Level.Invocation)
+		public void pick() {
+			fillBatch(true);
+		}
+
+		@TearDown(Level.Invocation)
+		public void undo() {
+			set.addAll(batch);
+		}
+	}
+
+	@Benchmark
+	public boolean add(AddState state) {
+		return state.set.add(state.key);
+	}
+
+	@Benchmark
+	public boolean remove(RemoveState state) {
+		return state.set.remove(state.key);
+	}
+
+	@Benchmark
+	public boolean addAll(AddAllState state) {
+		return state.set.addAll(state.batch);
+	}
+
+	@Benchmark
+	public boolean removeAll(RemoveAllState state) {
+		return state.set.removeAll(state.batch);
+	}
+}
@@ -0,0 +1,91 @@
+package com.ca.garbage.benchmarks;
+
+import com.ca.garbage.FastNavIntSet;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FastNavIntSet as a sorted work queue: draining a set of size keys with pollFirst, a steady queue that takes the
+ * first key and adds one past the last, and a sliding window of size consecutive keys that moves up by SLIDE keys at a
+ * time, expiring the old ones through headSet(watermark).clear().
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueueBenchmark {
+	private static final int SLIDE = 64;
+
+	@Param({"10000", "100000"})
+	public int size;
+	@Param({"UNIFORM"})
+	public KeyDistribution distribution;
+
+	private int[] sorted;
+	private FastNavIntSet queue;
+	private int next;
+	private FastNavIntSet window;
+	private int windowTop;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		sorted = distribution.keys(size, SetState.SEED);
+		Arrays.sort(sorted);
+		queue = FastNavIntSet.create(sorted);
+		next = sorted[sorted.length - 1];
+		window = FastNavIntSet.create();
+		for (windowTop = 0; windowTop < size; ++windowTop) {
+			window.addInt(windowTop);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class DrainState {
+		FastNavIntSet full;
+
+		@Setup(Level.Invocation)
+		public void fill(QueueBenchmark benchmark) {
+			full = FastNavIntSet.create(benchmark.sorted);
+		}
+	}
+
+	@Benchmark
+	public long drain(DrainState state) {
+		long sum = 0;
+		FastNavIntSet set = state.full;
+		while (!set.isEmpty()) {
+			sum += set.pollFirstIntOrElse(0);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int pollAndAdd() {
+		int first = queue.pollFirstIntOrElse(0);
+		queue.addInt(++next);
+		return first;
+	}
+
+	@Benchmark
+	public int slide() {
+		for (int i = 0; i < SLIDE; ++i) {
+			window.addInt(windowTop++);
+		}
+		window.headSet(windowTop - size).clear();
+		return window.size();
+	}
+}
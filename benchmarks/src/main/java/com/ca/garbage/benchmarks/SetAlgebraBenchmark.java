@@ -0,0 +1,69 @@
+package com.ca.garbage.benchmarks;
+
+import com.ca.garbage.FastNavIntSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FastNavIntSet's union, intersect and andNot between a set of size keys and one of every ratio-th of them, so a
+ * ratio of 1 runs the linear merge and large ratios the galloping one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetAlgebraBenchmark {
+	@Param({"1000000"})
+	public int size;
+	@Param({"UNIFORM"})
+	public KeyDistribution distribution;
+	@Param({"1", "16", "32", "64", "1024"})
+	public int ratio;
+
+	private FastNavIntSet large;
+	private FastNavIntSet small;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		int[] keys = distribution.keys(size, SetState.SEED);
+		int[] every = new int[size / ratio];
+		for (int i = 0; i < every.length; i++) {
+			every[i] = keys[i * ratio];
+		}
+		large = FastNavIntSet.create(keys);
+		small = FastNavIntSet.create(every);
+	}
+
+	@Benchmark
+	public FastNavIntSet intersect() {
+		return FastNavIntSet.intersect(large, small);
+	}
+
+	@Benchmark
+	public int intersectCardinality() {
+		return FastNavIntSet.intersectCardinality(large, small);
+	}
+
+	@Benchmark
+	public FastNavIntSet union() {
+		return FastNavIntSet.union(large, small);
+	}
+
+	@Benchmark
+	public FastNavIntSet andNot() {
+		return FastNavIntSet.andNot(large, small);
+	}
+}
@@ -0,0 +1,482 @@
+package com.ca.garbage.benchmarks;
+
+import com.ca.garbage.ConcurrentFastNavIntSet;
+import com.ca.garbage.EliasFanoIntSet;
+import com.ca.garbage.FastNavIntSet;
+import com.ca.garbage.FastNavIntTreeSet;
+import com.ca.garbage.IntNavigableSet;
+import com.ca.garbage.PackedMemoryIntSet;
+import com.ca.garbage.RoaringIntSet;
+import com.ca.garbage.SegmentedIntSet;
+import com.ca.garbage.StampedFastNavIntSet;
+import com.ca.garbage.StripedFastNavIntSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.PrimitiveIterator;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+public enum SetImplementation {
+	FAST_NAV_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new FastNavIntSetAdapter(FastNavIntSet.create(sortedKeys.clone()));
+		}
+	},
+	FAST_NAV_INT_SET_READ_OPTIMIZED {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			FastNavIntSet set = FastNavIntSet.create(sortedKeys.clone());
+			set.setReadOptimized(true);
+			return new FastNavIntSetAdapter(set);
+		}
+	},
+	FAST_NAV_INT_TREE_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new IntNavigableSetAdapter(FastNavIntTreeSet.create(sortedKeys));
+		}
+	},
+	PACKED_MEMORY_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new IntNavigableSetAdapter(PackedMemoryIntSet.create(sortedKeys));
+		}
+	},
+	ROARING_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new IntNavigableSetAdapter(RoaringIntSet.create(sortedKeys));
+		}
+	},
+	SEGMENTED_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new IntNavigableSetAdapter(SegmentedIntSet.create(sortedKeys));
+		}
+	},
+	ELIAS_FANO_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new IntNavigableSetAdapter(EliasFanoIntSet.of(sortedKeys));
+		}
+	},
+	TREE_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			TreeSet<Integer> set = new TreeSet<>();
+			for (int key : sortedKeys) {
+				set.add(key);
+			}
+			return new NavigableSetAdapter(set);
+		}
+	},
+	STAMPED_FAST_NAV_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			StampedFastNavIntSet set = StampedFastNavIntSet.create();
+			set.addAll(sortedKeys.clone());
+			return new IntNavigableSetAdapter(set) {
+				@Override
+				public boolean addAll(int[] keys) {
+					return set.addAll(keys);
+				}
+
+				@Override
+				public boolean removeAll(int[] keys) {
+					return set.removeAll(keys);
+				}
+			};
+		}
+	},
+	CONCURRENT_FAST_NAV_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			ConcurrentFastNavIntSet set = ConcurrentFastNavIntSet.create();
+			set.addAll(sortedKeys);
+			return new IntNavigableSetAdapter(set) {
+				@Override
+				public boolean addAll(int[] keys) {
+					return set.addAll(keys);
+				}
+
+				@Override
+				public boolean removeAll(int[] keys) {
+					return set.removeAll(keys);
+				}
+			};
+		}
+	},
+	STRIPED_FAST_NAV_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new IntNavigableSetAdapter(StripedFastNavIntSet.create(sortedKeys));
+		}
+	},
+	SYNCHRONIZED_FAST_NAV_INT_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new NavigableSetAdapter(Collections.synchronizedNavigableSet(FastNavIntSet.create(sortedKeys.clone())));
+		}
+	},
+	CONCURRENT_SKIP_LIST_SET {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			ConcurrentSkipListSet<Integer> set = new ConcurrentSkipListSet<>();
+			for (int key : sortedKeys) {
+				set.add(key);
+			}
+			return new NavigableSetAdapter(set);
+		}
+	},
+	SORTED_ARRAY {
+		@Override
+		BenchmarkSet create(int[] sortedKeys) {
+			return new SortedArrayAdapter(sortedKeys.clone());
+		}
+	};
+
+	abstract BenchmarkSet create(int[] sortedKeys);
+
+	private static final class FastNavIntSetAdapter extends IntNavigableSetAdapter {
+		private final FastNavIntSet set;
+
+		FastNavIntSetAdapter(FastNavIntSet set) {
+			super(set);
+			this.set = set;
+		}
+
+		@Override
+		public boolean addAll(int[] keys) {
+			return set.addAll(keys);
+		}
+
+		@Override
+		public boolean removeAll(int[] keys) {
+			return set.removeAll(keys);
+		}
+	}
+
+	private static class IntNavigableSetAdapter implements BenchmarkSet {
+		private final IntNavigableSet set;
+
+		IntNavigableSetAdapter(IntNavigableSet set) {
+			this.set = set;
+		}
+
+		@Override
+		public boolean add(int key) {
+			return set.addInt(key);
+		}
+
+		@Override
+		public boolean remove(int key) {
+			return set.removeInt(key);
+		}
+
+		@Override
+		public boolean addAll(int[] keys) {
+			boolean changed = false;
+			for (int key : keys) {
+				changed |= set.addInt(key);
+			}
+			return changed;
+		}
+
+		@Override
+		public boolean removeAll(int[] keys) {
+			boolean changed = false;
+			for (int key : keys) {
+				changed |= set.removeInt(key);
+			}
+			return changed;
+		}
+
+		@Override
+		public boolean contains(int key) {
+			return set.containsInt(key);
+		}
+
+		@Override
+		public int lower(int key) {
+			return set.lowerIntOrElse(key, MISSING);
+		}
+
+		@Override
+		public int higher(int key) {
+			return set.higherIntOrElse(key, MISSING);
+		}
+
+		@Override
+		public int floor(int key) {
+			return set.floorIntOrElse(key, MISSING);
+		}
+
+		@Override
+		public int ceiling(int key) {
+			return set.ceilingIntOrElse(key, MISSING);
+		}
+
+		@Override
+		public long sum() {
+			return sum(set.intIterator());
+		}
+
+		@Override
+		public long sumRange(int from, int to) {
+			return sum(set.subSet(from, true, to, false).intIterator());
+		}
+
+		private static long sum(PrimitiveIterator.OfInt iterator) {
+			long sum = 0;
+			while (iterator.hasNext()) {
+				sum += iterator.nextInt();
+			}
+			return sum;
+		}
+
+		@Override
+		public int headSetSize(int to) {
+			return set.headSet(to, false).size();
+		}
+	}
+
+	private static final class NavigableSetAdapter implements BenchmarkSet {
+		private final NavigableSet<Integer> set;
+
+		NavigableSetAdapter(NavigableSet<Integer> set) {
+			this.set = set;
+		}
+
+		@Override
+		public boolean add(int key) {
+			return set.add(key);
+		}
+
+		@Override
+		public boolean remove(int key) {
+			return set.remove(key);
+		}
+
+		@Override
+		public boolean addAll(int[] keys) {
+			boolean changed = false;
+			for (int key : keys) {
+				changed |= set.add(key);
+			}
+			return changed;
+		}
+
+		@Override
+		public boolean removeAll(int[] keys) {
+			boolean changed = false;
+			for (int key : keys) {
+				changed |= set.remove(key);
+			}
+			return changed;
+		}
+
+		@Override
+		public boolean contains(int key) {
+			return set.contains(key);
+		}
+
+		@Override
+		public int lower(int key) {
+			return orMissing(set.lower(key));
+		}
+
+		@Override
+		public int higher(int key) {
+			return orMissing(set.higher(key));
+		}
+
+		@Override
+		public int floor(int key) {
+			return orMissing(set.floor(key));
+		}
+
+		@Override
+		public int ceiling(int key) {
+			return orMissing(set.ceiling(key));
+		}
+
+		private static int orMissing(Integer value) {
+			return value == null ? MISSING : value;
+		}
+
+		@Override
+		public long sum() {
+			return sum(set);
+		}
+
+		@Override
+		public long sumRange(int from, int to) {
+			return sum(set.subSet(from, true, to, false));
+		}
+
+		private static long sum(NavigableSet<Integer> values) {
+			long sum = 0;
+			Iterator<Integer> iterator = values.iterator();
+			while (iterator.hasNext()) {
+				sum += iterator.next();
+			}
+			return sum;
+		}
+
+		@Override
+		public int headSetSize(int to) {
+			return set.headSet(to, false).size();
+		}
+	}
+
+	/**
+	 * The baseline: a sorted int[] searched with Arrays.binarySearch.
+	 */
+	private static final class SortedArrayAdapter implements BenchmarkSet {
+		private int[] values;
+		private int size;
+
+		SortedArrayAdapter(int[] sortedValues) {
+			this.values = sortedValues;
+			this.size = sortedValues.length;
+		}
+
+		private int search(int key) {
+			return Arrays.binarySearch(values, 0, size, key);
+		}
+
+		private int ceilingIndex(int key) {
+			int index = search(key);
+			return index >= 0 ? index : -index - 1;
+		}
+
+		private int valueAt(int index) {
+			return index >= 0 && index < size ? values[index] : MISSING;
+		}
+
+		@Override
+		public boolean add(int key) {
+			int index = search(key);
+			if (index >= 0) {
+				return false;
+			}
+			index = -index - 1;
+			if (size == values.length) {
+				values = Arrays.copyOf(values, Math.max(8, size + size / 2));
+			}
+			System.arraycopy(values, index, values, index + 1, size - index);
+			values[index] = key;
+			++size;
+			return true;
+		}
+
+		@Override
+		public boolean remove(int key) {
+			int index = search(key);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(values, index + 1, values, index, size - index - 1);
+			--size;
+			return true;
+		}
+
+		@Override
+		public boolean addAll(int[] keys) {
+			Arrays.sort(keys);
+			int[] merged = new int[size + keys.length];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < size || j < keys.length) {
+				int next;
+				if (j == keys.length || (i < size && values[i] <= keys[j])) {
+					next = values[i++];
+				}
+				else {
+					next = keys[j++];
+				}
+				if (k == 0 || merged[k - 1] != next) {
+					merged[k++] = next;
+				}
+			}
+			boolean changed = k != size;
+			values = merged;
+			size = k;
+			return changed;
+		}
+
+		@Override
+		public boolean removeAll(int[] keys) {
+			Arrays.sort(keys);
+			int j = 0;
+			int k = 0;
+			for (int i = 0; i < size; i++) {
+				int value = values[i];
+				while (j < keys.length && keys[j] < value) {
+					++j;
+				}
+				if (j == keys.length || keys[j] != value) {
+					values[k++] = value;
+				}
+			}
+			boolean changed = k != size;
+			size = k;
+			return changed;
+		}
+
+		@Override
+		public boolean contains(int key) {
+			return search(key) >= 0;
+		}
+
+		@Override
+		public int lower(int key) {
+			int index = search(key);
+			return valueAt(index >= 0 ? index - 1 : -index - 2);
+		}
+
+		@Override
+		public int higher(int key) {
+			int index = search(key);
+			return valueAt(index >= 0 ? index + 1 : -index - 1);
+		}
+
+		@Override
+		public int floor(int key) {
+			int index = search(key);
+			return valueAt(index >= 0 ? index : -index - 2);
+		}
+
+		@Override
+		public int ceiling(int key) {
+			return valueAt(ceilingIndex(key));
+		}
+
+		@Override
+		public long sum() {
+			return sum(0, size);
+		}
+
+		@Override
+		public long sumRange(int from, int to) {
+			return sum(ceilingIndex(from), ceilingIndex(to));
+		}
+
+		private long sum(int fromIndex, int toIndex) {
+			long sum = 0;
+			for (int i = fromIndex; i < toIndex; i++) {
+				sum += values[i];
+			}
+			return sum;
+		}
+
+		@Override
+		public int headSetSize(int to) {
+			return ceilingIndex(to);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.ca.garbage.benchmarks;
+
+import com.ca.garbage.FastNavIntSet;
+import java.util.Arrays;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The set under test plus a ring of pre-generated probe keys, half of which are in the set.
+ *
+ * chunkSize is applied through FastNavIntSet.CHUNK_SIZE_PROPERTY before the class is first touched. That relies on
+ * every parameter combination getting a fresh forked JVM, so don't run these with -f 0.
+ *
+ * The largest size needs a big heap for TREE_SET, e.g. -jvmArgsAppend -Xmx12g.
+ *
+ * ELIAS_FANO_INT_SET is read-only, so it is left out of the defaults and only makes sense for the lookup and
+ * iteration benchmarks: -p implementation=ELIAS_FANO_INT_SET,FAST_NAV_INT_SET.
+ */
+@State(Scope.Benchmark)
+public class SetState {
+	static final long SEED = 0x5eed;
+	private static final int PROBES = 1 << 16;
+
+	@Param({"10", "1000", "100000", "10000000", "100000000"})
+	public int size;
+	@Param({"DENSE", "UNIFORM", "CLUSTERED", "ZIPF"})
+	public KeyDistribution distribution;
+	@Param({"16", "64", "256"})
+	public int chunkSize;
+	@Param({"FAST_NAV_INT_SET", "FAST_NAV_INT_SET_READ_OPTIMIZED", "FAST_NAV_INT_TREE_SET", "PACKED_MEMORY_INT_SET",
+					"ROARING_INT_SET", "SEGMENTED_INT_SET", "TREE_SET", "SORTED_ARRAY"})
+	public SetImplementation implementation;
+
+	int[] keys;
+	int[] probes;
+	BenchmarkSet set;
+	private int probeIndex;
+
+	@Setup(Level.Trial)
+	public void setUpSet() {
+		System.setProperty(FastNavIntSet.CHUNK_SIZE_PROPERTY, Integer.toString(chunkSize));
+		keys = distribution.keys(size, SEED);
+		Random random = new Random(SEED);
+		probes = new int[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			int key = keys[random.nextInt(size)];
+			probes[i] = random.nextBoolean() ? key : absentNear(key, random);
+		}
+		set = implementation.create(keys);
+		prepare();
+	}
+
+	/**
+	 * Hook for subclasses to derive their own data from keys. JMH doesn't order @Setup methods of the same level
+	 * across a class hierarchy, so they can't add their own.
+	 */
+	void prepare() {
+	}
+
+	/**
+	 * @return a key that isn't in the set, next to key if there is room there
+	 */
+	int absentNear(int key, Random random) {
+		int candidate = key == Integer.MAX_VALUE ? key - 1 : key + 1;
+		while (Arrays.binarySearch(keys, candidate) >= 0) {
+			candidate = random.nextInt();
+		}
+		return candidate;
+	}
+
+	int nextProbe() {
+		int probe = probes[probeIndex];
+		probeIndex = (probeIndex + 1) & (PROBES - 1);
+		return probe;
+	}
+}
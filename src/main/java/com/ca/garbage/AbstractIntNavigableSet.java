@@ -0,0 +1,511 @@
+package com.ca.garbage;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Base for ascending IntNavigableSet implementations. Subclasses supply size, containsInt and the two navigation
+ * primitives ceilingValue and floorValue, and optionally addInt, removeInt and faster rangeIterator and countBetween
+ * overrides. Everything else, including the bounded and descending views, is built on those.
+ *
+ * The primitives return a long so that "no such element" (NONE) can be told apart from every int without boxing.
+ */
+public abstract class AbstractIntNavigableSet extends AbstractSet<Integer> implements IntNavigableSet {
+	protected static final long NONE = Long.MIN_VALUE;
+	static final int SPLITERATOR_CHARACTERISTICS = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED
+																								 | Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.NONNULL;
+
+	/**
+	 * @return the smallest element >= value (> value if not inclusive), NONE if there is none
+	 */
+	protected abstract long ceilingValue(int value, boolean inclusive);
+
+	/**
+	 * @return the largest element <= value (< value if not inclusive), NONE if there is none
+	 */
+	protected abstract long floorValue(int value, boolean inclusive);
+
+	@Override
+	public abstract int size();
+
+	@Override
+	public abstract boolean containsInt(int value);
+
+	@Override
+	public boolean addInt(int value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Iterates the elements in the closed range [low, high], which is empty if low > high. The default walks with
+	 * ceilingValue/floorValue, one lookup per element, and removes through removeInt.
+	 */
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new NavigatingIterator(low, high, descending);
+	}
+
+	/**
+	 * Spliterator over the closed range [low, high]. The default halves the values between the first and last element
+	 * left on each split, which keeps the halves about even for spread out elements, and sizes them with countBetween.
+	 * Sets that can reach their elements by index should split evenly by index instead.
+	 */
+	protected Spliterator.OfInt rangeSpliterator(long low, long high, boolean descending) {
+		return new RangeSpliterator(low, high, descending);
+	}
+
+	/**
+	 * @return the number of elements in the closed range [low, high]
+	 */
+	protected int countBetween(int low, int high) {
+		int count = 0;
+		PrimitiveIterator.OfInt iterator = rangeIterator(low, high, false);
+		while (iterator.hasNext()) {
+			iterator.nextInt();
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * The unbounded set views are taken from.
+	 */
+	AbstractIntNavigableSet root() {
+		return this;
+	}
+
+	long lowBound() {
+		return Integer.MIN_VALUE;
+	}
+
+	long highBound() {
+		return Integer.MAX_VALUE;
+	}
+
+	private static int existing(long value) throws NoSuchElementException {
+		if (value == NONE) {
+			throw new NoSuchElementException();
+		}
+		return (int) value;
+	}
+
+	private static int orElse(long value, int missing) {
+		return value == NONE ? missing : (int) value;
+	}
+
+	private static Integer boxed(long value) {
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Integer && containsInt((Integer) o);
+	}
+
+	@Override
+	public boolean add(Integer e) {
+		return addInt(e);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return o instanceof Integer && removeInt((Integer) o);
+	}
+
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return FastNavIntSet.FORWARD;
+	}
+
+	@Override
+	public Integer first() {
+		return firstInt();
+	}
+
+	@Override
+	public int firstInt() {
+		return existing(ceilingValue(Integer.MIN_VALUE, true));
+	}
+
+	@Override
+	public Integer last() {
+		return lastInt();
+	}
+
+	@Override
+	public int lastInt() {
+		return existing(floorValue(Integer.MAX_VALUE, true));
+	}
+
+	@Override
+	public Integer lower(Integer e) {
+		return boxed(floorValue(e, false));
+	}
+
+	@Override
+	public int lowerInt(int value) {
+		return existing(floorValue(value, false));
+	}
+
+	@Override
+	public int lowerIntOrElse(int value, int missing) {
+		return orElse(floorValue(value, false), missing);
+	}
+
+	@Override
+	public Integer floor(Integer e) {
+		return boxed(floorValue(e, true));
+	}
+
+	@Override
+	public int floorInt(int value) {
+		return existing(floorValue(value, true));
+	}
+
+	@Override
+	public int floorIntOrElse(int value, int missing) {
+		return orElse(floorValue(value, true), missing);
+	}
+
+	@Override
+	public Integer ceiling(Integer e) {
+		return boxed(ceilingValue(e, true));
+	}
+
+	@Override
+	public int ceilingInt(int value) {
+		return existing(ceilingValue(value, true));
+	}
+
+	@Override
+	public int ceilingIntOrElse(int value, int missing) {
+		return orElse(ceilingValue(value, true), missing);
+	}
+
+	@Override
+	public Integer higher(Integer e) {
+		return boxed(ceilingValue(e, false));
+	}
+
+	@Override
+	public int higherInt(int value) {
+		return existing(ceilingValue(value, false));
+	}
+
+	@Override
+	public int higherIntOrElse(int value, int missing) {
+		return orElse(ceilingValue(value, false), missing);
+	}
+
+	@Override
+	public Integer pollFirst() {
+		return boxed(poll(ceilingValue(Integer.MIN_VALUE, true)));
+	}
+
+	@Override
+	public Integer pollLast() {
+		return boxed(poll(floorValue(Integer.MAX_VALUE, true)));
+	}
+
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		return orElse(poll(ceilingValue(Integer.MIN_VALUE, true)), missing);
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		return orElse(poll(floorValue(Integer.MAX_VALUE, true)), missing);
+	}
+
+	private long poll(long value) {
+		if (value != NONE) {
+			removeInt((int) value);
+		}
+		return value;
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return intIterator();
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt intIterator() {
+		return root().rangeIterator(lowBound(), highBound(), false);
+	}
+
+	@Override
+	public Iterator<Integer> descendingIterator() {
+		return root().rangeIterator(lowBound(), highBound(), true);
+	}
+
+	@Override
+	public void forEachInt(IntConsumer action) {
+		PrimitiveIterator.OfInt iterator = intIterator();
+		while (iterator.hasNext()) {
+			action.accept(iterator.nextInt());
+		}
+	}
+
+	@Override
+	public Spliterator.OfInt intSpliterator() {
+		return root().rangeSpliterator(lowBound(), highBound(), false);
+	}
+
+	@Override
+	public Spliterator<Integer> spliterator() {
+		return intSpliterator();
+	}
+
+	@Override
+	public IntNavigableSet descendingSet() {
+		return new DescendingIntSet(this);
+	}
+
+	@Override
+	public IntNavigableSet subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
+		if (fromElement == null) {
+			throw new NullPointerException("fromElement can't be null");
+		}
+		if (toElement == null) {
+			throw new NullPointerException("toElement can't be null");
+		}
+		if (fromElement > toElement) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		return bounded(lowerBound(fromElement, fromInclusive), upperBound(toElement, toInclusive));
+	}
+
+	@Override
+	public IntNavigableSet subSet(Integer fromElement, Integer toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public IntNavigableSet headSet(Integer toElement, boolean inclusive) {
+		if (toElement == null) {
+			throw new NullPointerException("toElement can't be null!");
+		}
+		return bounded(lowBound(), upperBound(toElement, inclusive));
+	}
+
+	@Override
+	public IntNavigableSet headSet(Integer toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public IntNavigableSet tailSet(Integer fromElement, boolean inclusive) {
+		if (fromElement == null) {
+			throw new NullPointerException("from element can't be null");
+		}
+		return bounded(lowerBound(fromElement, inclusive), highBound());
+	}
+
+	@Override
+	public IntNavigableSet tailSet(Integer fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+	/**
+	 * @return from as a closed lower bound, checked against the current bounds
+	 */
+	private long lowerBound(int from, boolean inclusive) {
+		if (!inRange(from, inclusive)) {
+			throw new IllegalArgumentException("fromKey out of range");
+		}
+		return Math.max(inclusive ? from : (long) from + 1, lowBound());
+	}
+
+	/**
+	 * @return to as a closed upper bound, checked against the current bounds
+	 */
+	private long upperBound(int to, boolean inclusive) {
+		if (!inRange(to, inclusive)) {
+			throw new IllegalArgumentException("toKey out of range");
+		}
+		return Math.min(inclusive ? to : (long) to - 1, highBound());
+	}
+
+	/**
+	 * An inclusive bound has to lie within the current bounds, an exclusive one may also sit just outside them.
+	 */
+	private boolean inRange(int bound, boolean inclusive) {
+		int slack = inclusive ? 0 : 1;
+		return bound >= lowBound() - slack && bound <= highBound() + slack;
+	}
+
+	private IntNavigableSet bounded(long low, long high) {
+		return new BoundedIntSet(root(), low, high);
+	}
+
+	/**
+	 * The default rangeIterator: each step is a ceilingValue/floorValue lookup from the last element, so removing
+	 * elements while iterating never invalidates it.
+	 */
+	private final class NavigatingIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private long next;
+		private long lastReturned = NONE;
+
+		NavigatingIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			if (low > high) {
+				next = NONE;
+			}
+			else {
+				next = inRange(descending ? floorValue((int) high, true) : ceilingValue((int) low, true));
+			}
+		}
+
+		private long inRange(long value) {
+			return value != NONE && value >= low && value <= high ? value : NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != NONE;
+		}
+
+		@Override
+		public int nextInt() {
+			if (next == NONE) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = next;
+			int current = (int) next;
+			next = inRange(descending ? floorValue(current, false) : ceilingValue(current, false));
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == NONE) {
+				throw new IllegalStateException("next has not been called");
+			}
+			removeInt((int) lastReturned);
+			lastReturned = NONE;
+		}
+	}
+
+	/**
+	 * The default rangeSpliterator. Traversal goes through rangeIterator; low and high follow it, so what is left can
+	 * still be split or counted after some elements were taken.
+	 */
+	private final class RangeSpliterator implements Spliterator.OfInt {
+		private final boolean descending;
+		private long low;
+		private long high;
+		private long size = -1;
+		private PrimitiveIterator.OfInt iterator;
+
+		RangeSpliterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+		}
+
+		@Override
+		public OfInt trySplit() {
+			if (low > high) {
+				return null;
+			}
+			long first = ceilingValue((int) low, true);
+			long last = floorValue((int) high, true);
+			if (first == NONE || last == NONE || first >= last) {
+				return null;
+			}
+			long mid = (first + last) >> 1;
+			iterator = null;
+			size = -1;
+			if (descending) {
+				low = first;
+				high = mid;
+				return new RangeSpliterator(mid + 1, last, true);
+			}
+			else {
+				low = mid + 1;
+				high = last;
+				return new RangeSpliterator(first, mid, false);
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (low > high) {
+				return false;
+			}
+			if (iterator == null) {
+				iterator = rangeIterator(low, high, descending);
+			}
+			if (!iterator.hasNext()) {
+				high = low - 1;
+				size = 0;
+				return false;
+			}
+			int value = iterator.nextInt();
+			if (descending) {
+				high = value - 1L;
+			}
+			else {
+				low = value + 1L;
+			}
+			if (size > 0) {
+				--size;
+			}
+			action.accept(value);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (low > high) {
+				return;
+			}
+			PrimitiveIterator.OfInt rest = iterator != null ? iterator : rangeIterator(low, high, descending);
+			high = low - 1;
+			size = 0;
+			iterator = null;
+			while (rest.hasNext()) {
+				action.accept(rest.nextInt());
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			if (size < 0) {
+				size = low > high ? 0 : countBetween((int) low, (int) high);
+			}
+			return size;
+		}
+
+		@Override
+		public int characteristics() {
+			return SPLITERATOR_CHARACTERISTICS;
+		}
+
+		@Override
+		public Comparator<? super Integer> getComparator() {
+			return descending ? FastNavIntSet.REVERSE : null;
+		}
+	}
+}
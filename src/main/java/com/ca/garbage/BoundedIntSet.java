@@ -0,0 +1,104 @@
+package com.ca.garbage;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * An ascending view of the closed range [low, high] of an AbstractIntNavigableSet. Views of views are taken from the
+ * same root with narrowed bounds.
+ */
+final class BoundedIntSet extends AbstractIntNavigableSet {
+	private final AbstractIntNavigableSet root;
+	private final long low;
+	private final long high;
+
+	BoundedIntSet(AbstractIntNavigableSet root, long low, long high) {
+		this.root = root;
+		this.low = low;
+		this.high = high;
+	}
+
+	@Override
+	AbstractIntNavigableSet root() {
+		return root;
+	}
+
+	@Override
+	long lowBound() {
+		return low;
+	}
+
+	@Override
+	long highBound() {
+		return high;
+	}
+
+	private boolean inRange(int value) {
+		return value >= low && value <= high;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		if (low > high || value > high || (value == high && !inclusive)) {
+			return NONE;
+		}
+		if (value < low) {
+			value = (int) low;
+			inclusive = true;
+		}
+		long out = root.ceilingValue(value, inclusive);
+		return out != NONE && out <= high ? out : NONE;
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		if (low > high || value < low || (value == low && !inclusive)) {
+			return NONE;
+		}
+		if (value > high) {
+			value = (int) high;
+			inclusive = true;
+		}
+		long out = root.floorValue(value, inclusive);
+		return out != NONE && out >= low ? out : NONE;
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long from, long to, boolean descending) {
+		return root.rangeIterator(Math.max(from, low), Math.min(to, high), descending);
+	}
+
+	@Override
+	protected int countBetween(int from, int to) {
+		long closedLow = Math.max(from, low);
+		long closedHigh = Math.min(to, high);
+		return closedLow > closedHigh ? 0 : root.countBetween((int) closedLow, (int) closedHigh);
+	}
+
+	@Override
+	public int size() {
+		return low > high ? 0 : root.countBetween((int) low, (int) high);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return low > high || ceilingValue((int) low, true) == NONE;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return inRange(value) && root.containsInt(value);
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		if (!inRange(value)) {
+			throw new IllegalArgumentException("key out of range");
+		}
+		return root.addInt(value);
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		return inRange(value) && root.removeInt(value);
+	}
+}
@@ -0,0 +1,361 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread safe ascending IntNavigableSet for read-mostly data with bursty writes. Readers never block: they read an
+ * immutable FastNavIntSet published through a volatile reference. Writers queue their update and then take the
+ * publish lock; whoever holds it drains everything queued so far, merges all of it into one new copy of the current
+ * snapshot and publishes that, so writers arriving during a publish share the next one and the O(n) copy is paid once
+ * per batch instead of once per element.
+ *
+ * Each update still returns whether it changed the set, as if the updates of a batch had run one by one in the order
+ * they were queued. Iterators walk the snapshot they were created on.
+ */
+public class ConcurrentFastNavIntSet extends AbstractIntNavigableSet {
+	private volatile FastNavIntSet snapshot;
+	private final ConcurrentLinkedQueue<Update> pending = new ConcurrentLinkedQueue<>();
+	private final ReentrantLock publishLock = new ReentrantLock();
+	/**
+	 * Number of snapshots published, only changed under publishLock.
+	 */
+	int publishes;
+
+	/**
+	 * A queued add or remove of some values, or a clear when values is null.
+	 */
+	private static final class Update {
+		final int[] values;
+		final boolean add;
+		boolean changed;
+		volatile boolean done;
+
+		Update(int[] values, boolean add) {
+			this.values = values;
+			this.add = add;
+		}
+	}
+
+	private ConcurrentFastNavIntSet(FastNavIntSet snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public static ConcurrentFastNavIntSet create() {
+		return new ConcurrentFastNavIntSet(FastNavIntSet.create());
+	}
+
+	public static ConcurrentFastNavIntSet create(int... values) {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int value : values) {
+			set.addInt(value);
+		}
+		return new ConcurrentFastNavIntSet(set);
+	}
+
+	private boolean submit(Update update) {
+		pending.add(update);
+		publishLock.lock();
+		try {
+			if (!update.done) {
+				publishPending();
+			}
+		}
+		finally {
+			publishLock.unlock();
+		}
+		return update.changed;
+	}
+
+	/**
+	 * Applies every queued update to a copy of the snapshot and publishes it. A clear splits the batch, as the updates
+	 * after it start from an empty set.
+	 */
+	private void publishPending() {
+		List<Update> batch = new ArrayList<>();
+		for (Update update = pending.poll(); update != null; update = pending.poll()) {
+			batch.add(update);
+		}
+		FastNavIntSet base = snapshot;
+		int from = 0;
+		for (int i = 0; i < batch.size(); ++i) {
+			Update update = batch.get(i);
+			if (update.values == null) {
+				base = apply(base, batch.subList(from, i));
+				update.changed = base.size > 0;
+				base = FastNavIntSet.create();
+				from = i + 1;
+			}
+		}
+		base = apply(base, batch.subList(from, batch.size()));
+		if (base != snapshot) {
+			snapshot = base;
+			++publishes;
+		}
+		for (Update update : batch) {
+			update.done = true;
+		}
+	}
+
+	/**
+	 * @return base with the adds and removes of updates applied in order, base itself if they change nothing
+	 */
+	private static FastNavIntSet apply(FastNavIntSet base, List<Update> updates) {
+		int total = 0;
+		for (Update update : updates) {
+			total += update.values.length;
+		}
+		if (total == 0) {
+			return base;
+		}
+		// each entry is the value in the high half over its position in queue order, so they sort by value, then order
+		long[] entries = new long[total];
+		int[] owners = new int[total];
+		int position = 0;
+		for (int i = 0; i < updates.size(); ++i) {
+			for (int value : updates.get(i).values) {
+				entries[position] = (long) value << 32 | position;
+				owners[position++] = i;
+			}
+		}
+		Arrays.sort(entries);
+		int[] changes = new int[total];
+		boolean[] added = new boolean[total];
+		int changeCount = 0;
+		int newSize = base.size;
+		for (int i = 0; i < total; ) {
+			int value = (int) (entries[i] >> 32);
+			boolean initial = base.containsInt(value);
+			boolean present = initial;
+			for (; i < total && (int) (entries[i] >> 32) == value; ++i) {
+				Update update = updates.get(owners[(int) entries[i]]);
+				if (update.add != present) {
+					present = update.add;
+					update.changed = true;
+				}
+			}
+			if (present != initial) {
+				changes[changeCount] = value;
+				added[changeCount++] = present;
+				newSize += present ? 1 : -1;
+			}
+		}
+		if (changeCount == 0) {
+			return base;
+		}
+		return FastNavIntSet.wrapSorted(merge(base, changes, added, changeCount, newSize), newSize);
+	}
+
+	/**
+	 * @return a new array of base's values with the ascending changes applied, copying the runs between them whole
+	 */
+	private static int[] merge(FastNavIntSet base, int[] changes, boolean[] added, int changeCount, int newSize) {
+		int[] merged = new int[newSize];
+		int from = 0;
+		int to = 0;
+		for (int i = 0; i < changeCount; ++i) {
+			int position = base.ceilingIndex(changes[i], true);
+			System.arraycopy(base.values, base.head + from, merged, to, position - from);
+			to += position - from;
+			if (added[i]) {
+				merged[to++] = changes[i];
+				from = position;
+			}
+			else {
+				from = position + 1;
+			}
+		}
+		System.arraycopy(base.values, base.head + from, merged, to, base.size - from);
+		return merged;
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		return submit(new Update(new int[] {value}, true));
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		return submit(new Update(new int[] {value}, false));
+	}
+
+	/**
+	 * Adds all values in one update.
+	 */
+	public boolean addAll(int[] values) {
+		return submit(new Update(values.clone(), true));
+	}
+
+	/**
+	 * Removes all values in one update.
+	 */
+	public boolean removeAll(int[] values) {
+		return submit(new Update(values.clone(), false));
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Integer> c) {
+		int[] values = new int[c.size()];
+		int i = 0;
+		for (Integer value : c) {
+			values[i++] = value;
+		}
+		return submit(new Update(values, true));
+	}
+
+	@Override
+	public void clear() {
+		submit(new Update(null, false));
+	}
+
+	/**
+	 * Takes the first or last element of the current snapshot and retries if another writer removed it first, so
+	 * concurrent polls never return the same element.
+	 */
+	private long poll(boolean last) {
+		while (true) {
+			long value = last ? floorValue(Integer.MAX_VALUE, true) : ceilingValue(Integer.MIN_VALUE, true);
+			if (value == NONE || removeInt((int) value)) {
+				return value;
+			}
+		}
+	}
+
+	@Override
+	public Integer pollFirst() {
+		long value = poll(false);
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public Integer pollLast() {
+		long value = poll(true);
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		long value = poll(false);
+		return value == NONE ? missing : (int) value;
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		long value = poll(true);
+		return value == NONE ? missing : (int) value;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		FastNavIntSet set = snapshot;
+		int index = set.ceilingIndex(value, inclusive);
+		return index < set.size ? set.elementAt(index) : NONE;
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		FastNavIntSet set = snapshot;
+		int index = set.ceilingIndex(value, !inclusive) - 1;
+		return index >= 0 ? set.elementAt(index) : NONE;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return snapshot.containsInt(value);
+	}
+
+	@Override
+	public int size() {
+		return snapshot.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return snapshot.size == 0;
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		FastNavIntSet set = snapshot;
+		return set.ceilingIndex(high, false) - set.ceilingIndex(low, true);
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		FastNavIntSet set = snapshot;
+		if (low > high) {
+			return new SnapshotIterator(set.values, 0, 0, descending);
+		}
+		return new SnapshotIterator(set.values, set.head + set.ceilingIndex((int) low, true),
+				set.head + set.ceilingIndex((int) high, false), descending);
+	}
+
+	/**
+	 * Splits evenly by index over the snapshot current when it is called, which is never changed once published.
+	 */
+	@Override
+	protected Spliterator.OfInt rangeSpliterator(long low, long high, boolean descending) {
+		FastNavIntSet set = snapshot;
+		if (low > high) {
+			return new IntArraySpliterator(set.values, 0, 0, descending);
+		}
+		return new IntArraySpliterator(set.values, set.head + set.ceilingIndex((int) low, true),
+				set.head + set.ceilingIndex((int) high, false), descending);
+	}
+
+	/**
+	 * Iterates values[from, to) of a published snapshot; remove() takes the element out of the live set.
+	 */
+	private final class SnapshotIterator implements PrimitiveIterator.OfInt {
+		private final int[] values;
+		private final int from;
+		private final int to;
+		private final boolean descending;
+		private int next;
+		private int lastReturned;
+		private boolean canRemove;
+
+		SnapshotIterator(int[] values, int from, int to, boolean descending) {
+			this.values = values;
+			this.from = from;
+			this.to = Math.max(from, to);
+			this.descending = descending;
+			next = descending ? this.to - 1 : from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return descending ? next >= from : next < to;
+		}
+
+		@Override
+		public int nextInt() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = values[next];
+			next += descending ? -1 : 1;
+			canRemove = true;
+			return lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			removeInt(lastReturned);
+		}
+	}
+}
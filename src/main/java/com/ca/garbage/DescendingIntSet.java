@@ -0,0 +1,243 @@
+package com.ca.garbage;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * The reverse order view of an ascending AbstractIntNavigableSet.
+ */
+final class DescendingIntSet extends AbstractSet<Integer> implements IntNavigableSet {
+	private final AbstractIntNavigableSet ascending;
+
+	DescendingIntSet(AbstractIntNavigableSet ascending) {
+		this.ascending = ascending;
+	}
+
+	@Override
+	public int size() {
+		return ascending.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return ascending.isEmpty();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return ascending.contains(o);
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return ascending.containsInt(value);
+	}
+
+	@Override
+	public boolean add(Integer e) {
+		return ascending.add(e);
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		return ascending.addInt(value);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return ascending.remove(o);
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		return ascending.removeInt(value);
+	}
+
+	@Override
+	public void clear() {
+		ascending.clear();
+	}
+
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return FastNavIntSet.REVERSE;
+	}
+
+	@Override
+	public Integer first() {
+		return ascending.last();
+	}
+
+	@Override
+	public int firstInt() {
+		return ascending.lastInt();
+	}
+
+	@Override
+	public Integer last() {
+		return ascending.first();
+	}
+
+	@Override
+	public int lastInt() {
+		return ascending.firstInt();
+	}
+
+	@Override
+	public Integer lower(Integer e) {
+		return ascending.higher(e);
+	}
+
+	@Override
+	public int lowerInt(int value) {
+		return ascending.higherInt(value);
+	}
+
+	@Override
+	public int lowerIntOrElse(int value, int missing) {
+		return ascending.higherIntOrElse(value, missing);
+	}
+
+	@Override
+	public Integer floor(Integer e) {
+		return ascending.ceiling(e);
+	}
+
+	@Override
+	public int floorInt(int value) {
+		return ascending.ceilingInt(value);
+	}
+
+	@Override
+	public int floorIntOrElse(int value, int missing) {
+		return ascending.ceilingIntOrElse(value, missing);
+	}
+
+	@Override
+	public Integer ceiling(Integer e) {
+		return ascending.floor(e);
+	}
+
+	@Override
+	public int ceilingInt(int value) {
+		return ascending.floorInt(value);
+	}
+
+	@Override
+	public int ceilingIntOrElse(int value, int missing) {
+		return ascending.floorIntOrElse(value, missing);
+	}
+
+	@Override
+	public Integer higher(Integer e) {
+		return ascending.lower(e);
+	}
+
+	@Override
+	public int higherInt(int value) {
+		return ascending.lowerInt(value);
+	}
+
+	@Override
+	public int higherIntOrElse(int value, int missing) {
+		return ascending.lowerIntOrElse(value, missing);
+	}
+
+	@Override
+	public Integer pollFirst() {
+		return ascending.pollLast();
+	}
+
+	@Override
+	public Integer pollLast() {
+		return ascending.pollFirst();
+	}
+
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		return ascending.pollLastIntOrElse(missing);
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		return ascending.pollFirstIntOrElse(missing);
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return intIterator();
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt intIterator() {
+		return ascending.root().rangeIterator(ascending.lowBound(), ascending.highBound(), true);
+	}
+
+	@Override
+	public Iterator<Integer> descendingIterator() {
+		return ascending.iterator();
+	}
+
+	@Override
+	public void forEachInt(IntConsumer action) {
+		PrimitiveIterator.OfInt iterator = intIterator();
+		while (iterator.hasNext()) {
+			action.accept(iterator.nextInt());
+		}
+	}
+
+	@Override
+	public Spliterator.OfInt intSpliterator() {
+		return ascending.root().rangeSpliterator(ascending.lowBound(), ascending.highBound(), true);
+	}
+
+	@Override
+	public Spliterator<Integer> spliterator() {
+		return intSpliterator();
+	}
+
+	@Override
+	public IntNavigableSet descendingSet() {
+		return ascending;
+	}
+
+	@Override
+	public IntNavigableSet subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
+		if (fromElement == null) {
+			throw new NullPointerException("fromElement can't be null");
+		}
+		if (toElement == null) {
+			throw new NullPointerException("toElement can't be null");
+		}
+		return ascending.subSet(toElement, toInclusive, fromElement, fromInclusive).descendingSet();
+	}
+
+	@Override
+	public IntNavigableSet subSet(Integer fromElement, Integer toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public IntNavigableSet headSet(Integer toElement, boolean inclusive) {
+		return ascending.tailSet(toElement, inclusive).descendingSet();
+	}
+
+	@Override
+	public IntNavigableSet headSet(Integer toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public IntNavigableSet tailSet(Integer fromElement, boolean inclusive) {
+		return ascending.headSet(fromElement, inclusive).descendingSet();
+	}
+
+	@Override
+	public IntNavigableSet tailSet(Integer fromElement) {
+		return tailSet(fromElement, true);
+	}
+}
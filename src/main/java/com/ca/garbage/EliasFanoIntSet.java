@@ -0,0 +1,327 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable ascending IntNavigableSet stored Elias-Fano encoded, in about 2 + log(u/n) bits per element where u is
+ * the span between the first and last element. Each element, as an offset from the first, is split into lowBits plain
+ * low bits and a high part stored in unary: element i sets bit (high + i) of the high bit array, so a bucket of equal
+ * high parts is a run of ones ended by a zero.
+ *
+ * Sampled select tables (every SELECT_SAMPLE-th one and zero) give O(1) select. Successor and predecessor go straight
+ * to the bucket of the searched value with one select and scan the few elements in it.
+ */
+public class EliasFanoIntSet extends AbstractIntNavigableSet {
+	private static final int SELECT_SHIFT = 6;
+	private static final int SELECT_SAMPLE = 1 << SELECT_SHIFT;
+
+	private final int size;
+	private final long first;
+	private final long maxOffset;
+	private final int lowBits;
+	private final long lowMask;
+	private final long[] lows;
+	private final long[] highs;
+	private final int[] selectOnes;
+	private final int[] selectZeros;
+
+	/**
+	 * @param sorted strictly ascending values, of which the size from index from are used
+	 */
+	private EliasFanoIntSet(int[] sorted, int from, int size) {
+		this.size = size;
+		first = size == 0 ? 0 : sorted[from];
+		maxOffset = size == 0 ? 0 : (long) sorted[from + size - 1] - first;
+		long perElement = size == 0 ? 0 : (maxOffset + 1) / size;
+		lowBits = perElement == 0 ? 0 : 63 - Long.numberOfLeadingZeros(perElement);
+		lowMask = (1L << lowBits) - 1;
+		lows = new long[(int) (((long) size * lowBits + 63) >>> 6)];
+		int highLength = (int) (size + (maxOffset >>> lowBits) + 1);
+		highs = new long[(highLength + 63) >>> 6];
+		for (int i = 0; i < size; ++i) {
+			long offset = (long) sorted[from + i] - first;
+			setLow(i, offset & lowMask);
+			long position = (offset >>> lowBits) + i;
+			highs[(int) (position >>> 6)] |= 1L << position;
+		}
+		int zeros = highLength - size;
+		selectOnes = new int[(size >>> SELECT_SHIFT) + 1];
+		selectZeros = new int[(zeros >>> SELECT_SHIFT) + 1];
+		int ones = 0;
+		int seenZeros = 0;
+		for (int position = 0; position < highLength; ++position) {
+			if ((highs[position >>> 6] & 1L << position) != 0) {
+				if ((ones & (SELECT_SAMPLE - 1)) == 0) {
+					selectOnes[ones >>> SELECT_SHIFT] = position;
+				}
+				++ones;
+			}
+			else {
+				if ((seenZeros & (SELECT_SAMPLE - 1)) == 0) {
+					selectZeros[seenZeros >>> SELECT_SHIFT] = position;
+				}
+				++seenZeros;
+			}
+		}
+	}
+
+	/**
+	 * Encodes the current contents of set.
+	 */
+	public static EliasFanoIntSet copyOf(FastNavIntSet set) {
+		return new EliasFanoIntSet(set.values, set.head, set.size);
+	}
+
+	public static EliasFanoIntSet of(int... values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		return new EliasFanoIntSet(sorted, 0, distinct);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the approximate heap footprint of the encoded data in bytes
+	 */
+	long sizeInBytes() {
+		return 8L * (lows.length + highs.length) + 4L * (selectOnes.length + selectZeros.length);
+	}
+
+	private void setLow(int index, long value) {
+		if (lowBits == 0) {
+			return;
+		}
+		long bit = (long) index * lowBits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		lows[word] |= value << shift;
+		if (shift + lowBits > 64) {
+			lows[word + 1] |= value >>> (64 - shift);
+		}
+	}
+
+	private long low(int index) {
+		if (lowBits == 0) {
+			return 0;
+		}
+		long bit = (long) index * lowBits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		long value = lows[word] >>> shift;
+		if (shift + lowBits > 64) {
+			value |= lows[word + 1] << (64 - shift);
+		}
+		return value & lowMask;
+	}
+
+	private boolean highBit(long position) {
+		return (highs[(int) (position >>> 6)] & 1L << position) != 0;
+	}
+
+	/**
+	 * @return the position of the rank-th (from 0) one in the high bits
+	 */
+	private int selectOne(int rank) {
+		int position = selectOnes[rank >>> SELECT_SHIFT];
+		return select(position, rank & (SELECT_SAMPLE - 1), false);
+	}
+
+	/**
+	 * @return the position of the rank-th (from 0) zero in the high bits
+	 */
+	private int selectZero(int rank) {
+		int position = selectZeros[rank >>> SELECT_SHIFT];
+		return select(position, rank & (SELECT_SAMPLE - 1), true);
+	}
+
+	/**
+	 * @return the position of the remaining-th set bit at or after position, counting zeros instead if inverted
+	 */
+	private int select(int position, int remaining, boolean inverted) {
+		int word = position >>> 6;
+		long bits = (inverted ? ~highs[word] : highs[word]) & -1L << position;
+		int count = Long.bitCount(bits);
+		while (remaining >= count) {
+			remaining -= count;
+			bits = inverted ? ~highs[++word] : highs[++word];
+			count = Long.bitCount(bits);
+		}
+		for (int i = 0; i < remaining; ++i) {
+			bits &= bits - 1;
+		}
+		return word << 6 | Long.numberOfTrailingZeros(bits);
+	}
+
+	private int nextOne(int position) {
+		int word = position >>> 6;
+		long bits = highs[word] & -1L << position;
+		while (bits == 0) {
+			bits = highs[++word];
+		}
+		return word << 6 | Long.numberOfTrailingZeros(bits);
+	}
+
+	private int previousOne(int position) {
+		int word = position >>> 6;
+		long bits = highs[word] & -1L >>> (63 - (position & 63));
+		while (bits == 0) {
+			bits = highs[--word];
+		}
+		return word << 6 | 63 - Long.numberOfLeadingZeros(bits);
+	}
+
+	/**
+	 * @return the element whose unary high bit is at position, index being its rank
+	 */
+	private int valueAt(int position, int index) {
+		return (int) (first + ((long) (position - index) << lowBits | low(index)));
+	}
+
+	/**
+	 * @return the index of the first element with offset >= target, or size if there is none
+	 */
+	private int ceilingIndex(long target) {
+		if (target <= 0) {
+			return 0;
+		}
+		if (target > maxOffset) {
+			return size;
+		}
+		long high = target >>> lowBits;
+		int position = high == 0 ? 0 : selectZero((int) high - 1) + 1;
+		int index = (int) (position - high);
+		long targetLow = target & lowMask;
+		while (highBit(position) && low(index) < targetLow) {
+			++position;
+			++index;
+		}
+		return index;
+	}
+
+	/**
+	 * @return the index of the last element with offset <= target, or -1 if there is none
+	 */
+	private int floorIndex(long target) {
+		if (target < 0) {
+			return -1;
+		}
+		if (target >= maxOffset) {
+			return size - 1;
+		}
+		long high = target >>> lowBits;
+		int position = selectZero((int) high) - 1;
+		int index = (int) (position - high);
+		long targetLow = target & lowMask;
+		while (position >= 0 && highBit(position) && low(index) > targetLow) {
+			--position;
+			--index;
+		}
+		return index;
+	}
+
+	private int get(int index) {
+		return valueAt(selectOne(index), index);
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		if (size == 0 || (!inclusive && value == Integer.MAX_VALUE)) {
+			return NONE;
+		}
+		int index = ceilingIndex((long) value + (inclusive ? 0 : 1) - first);
+		return index < size ? get(index) : NONE;
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		if (size == 0 || (!inclusive && value == Integer.MIN_VALUE)) {
+			return NONE;
+		}
+		int index = floorIndex((long) value - (inclusive ? 0 : 1) - first);
+		return index >= 0 ? get(index) : NONE;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return ceilingValue(value, true) == value;
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (size == 0 || low > high) {
+			return 0;
+		}
+		return Math.max(0, floorIndex((long) high - first) - ceilingIndex((long) low - first) + 1);
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		if (size == 0 || low > high) {
+			return new DecodingIterator(0, -1, descending);
+		}
+		int from = ceilingIndex(low - first);
+		int to = floorIndex(high - first);
+		return new DecodingIterator(from, to, descending);
+	}
+
+	/**
+	 * Decodes the elements with index in [from, to] in order, walking the high bits instead of selecting each one.
+	 */
+	private final class DecodingIterator implements PrimitiveIterator.OfInt {
+		private final boolean descending;
+		private final int end;
+		private int index;
+		private int position;
+
+		DecodingIterator(int from, int to, boolean descending) {
+			this.descending = descending;
+			if (from > to) {
+				index = 0;
+				end = 0;
+			}
+			else {
+				index = descending ? to : from;
+				end = descending ? from - 1 : to + 1;
+				position = selectOne(index);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index != end;
+		}
+
+		@Override
+		public int nextInt() {
+			if (index == end) {
+				throw new NoSuchElementException();
+			}
+			int value = valueAt(position, index);
+			if (descending) {
+				if (--index != end) {
+					position = previousOne(position - 1);
+				}
+			}
+			else if (++index != end) {
+				position = nextOne(position + 1);
+			}
+			return value;
+		}
+	}
+}
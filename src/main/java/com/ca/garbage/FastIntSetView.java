@@ -0,0 +1,619 @@
+package com.ca.garbage;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import javax.annotation.Nonnull;
+
+/**
+ * A live range view over a FastNavIntSet. The bounds are resolved to a [fromIndex, toIndex) window of the backing
+ * set's indexes, which is only recomputed when the backing set has been modified. Views of views share the same
+ * backing set and just narrow the window.
+ */
+public final class FastIntSetView extends AbstractSet<Integer> implements IntNavigableSet {
+	@Nonnull
+	private final FastNavIntSet set;
+	private final boolean descending;
+	private final boolean hasLow;
+	private final int low;
+	private final boolean lowInclusive;
+	private final boolean hasHigh;
+	private final int high;
+	private final boolean highInclusive;
+	private int fromIndex;
+	private int toIndex;
+	private int expectedModCount;
+
+	private FastIntSetView(FastNavIntSet set, boolean descending,
+												 boolean hasLow, int low, boolean lowInclusive,
+												 boolean hasHigh, int high, boolean highInclusive) {
+		this.set = set;
+		this.descending = descending;
+		this.hasLow = hasLow;
+		this.low = low;
+		this.lowInclusive = lowInclusive;
+		this.hasHigh = hasHigh;
+		this.high = high;
+		this.highInclusive = highInclusive;
+		updateWindow();
+	}
+
+	public static Builder make(FastNavIntSet set) {
+		return new Builder(set);
+	}
+
+	/**
+	 * Bounds given to the builder are in the order of the backing set, so for a reversed set the lower bound is the
+	 * numerically larger one.
+	 */
+	public static final class Builder {
+		private final FastNavIntSet set;
+		private boolean reversed;
+		private Integer lowerBound;
+		private boolean lowerBoundInclusive = true;
+		private Integer upperBound;
+		private boolean upperBoundInclusive = true;
+
+		private Builder(FastNavIntSet set) {
+			if (set == null) {
+				throw new NullPointerException("set can't be null");
+			}
+			this.set = set;
+		}
+
+		public Builder setReversed(boolean reversed) {
+			this.reversed = reversed;
+			return this;
+		}
+
+		public Builder setLowerBound(int lowerBound) {
+			this.lowerBound = lowerBound;
+			return this;
+		}
+
+		public Builder setLowerBoundInclusive(boolean lowerBoundInclusive) {
+			this.lowerBoundInclusive = lowerBoundInclusive;
+			return this;
+		}
+
+		public Builder setUpperBound(int upperBound) {
+			this.upperBound = upperBound;
+			return this;
+		}
+
+		public Builder setUpperBoundInclusive(boolean upperBoundInclusive) {
+			this.upperBoundInclusive = upperBoundInclusive;
+			return this;
+		}
+
+		public FastIntSetView build() {
+			if (lowerBound != null && upperBound != null
+					&& set.comparator().compare(lowerBound, upperBound) > 0) {
+				throw new IllegalArgumentException("fromKey > toKey");
+			}
+			if (set.forward) {
+				return new FastIntSetView(set, reversed,
+																	lowerBound != null, lowerBound == null ? 0 : lowerBound, lowerBoundInclusive,
+																	upperBound != null, upperBound == null ? 0 : upperBound, upperBoundInclusive);
+			}
+			else {
+				return new FastIntSetView(set, !reversed,
+																	upperBound != null, upperBound == null ? 0 : upperBound, upperBoundInclusive,
+																	lowerBound != null, lowerBound == null ? 0 : lowerBound, lowerBoundInclusive);
+			}
+		}
+	}
+
+	private void updateWindow() {
+		FastNavIntSet s = set;
+		int from = hasLow ? s.ceilingIndex(low, lowInclusive) : 0;
+		int to = hasHigh ? s.ceilingIndex(high, !highInclusive) : s.size;
+		fromIndex = from;
+		toIndex = to < from ? from : to;
+		expectedModCount = s.modCount;
+	}
+
+	private void window() {
+		if (expectedModCount != set.modCount) {
+			updateWindow();
+		}
+	}
+
+	private boolean tooLow(int value) {
+		return hasLow && (value < low || (value == low && !lowInclusive));
+	}
+
+	private boolean tooHigh(int value) {
+		return hasHigh && (value > high || (value == high && !highInclusive));
+	}
+
+	private boolean inRange(int value) {
+		return !tooLow(value) && !tooHigh(value);
+	}
+
+	private boolean inClosedRange(int value) {
+		return (!hasLow || value >= low) && (!hasHigh || value <= high);
+	}
+
+	private boolean inRange(int value, boolean inclusive) {
+		return inclusive ? inRange(value) : inClosedRange(value);
+	}
+
+	/**
+	 * @return index of the smallest element in the view >= value (> value if not inclusive), -1 if there is none
+	 */
+	private int ceilingIndex(int value, boolean inclusive) {
+		window();
+		if (tooLow(value)) {
+			return fromIndex < toIndex ? fromIndex : -1;
+		}
+		if (tooHigh(value)) {
+			return -1;
+		}
+		int index = set.ceilingIndex(value, inclusive);
+		return index < toIndex ? index : -1;
+	}
+
+	/**
+	 * @return index of the largest element in the view <= value (< value if not inclusive), -1 if there is none
+	 */
+	private int floorIndex(int value, boolean inclusive) {
+		window();
+		if (tooHigh(value)) {
+			return fromIndex < toIndex ? toIndex - 1 : -1;
+		}
+		if (tooLow(value)) {
+			return -1;
+		}
+		int index = set.ceilingIndex(value, !inclusive) - 1;
+		return index >= fromIndex ? index : -1;
+	}
+
+	private Integer valueAt(int index) {
+		return index < 0 ? null : set.elementAt(index);
+	}
+
+	private int valueAt(int index, int missing) {
+		return index < 0 ? missing : set.elementAt(index);
+	}
+
+	private int existingValueAt(int index) throws NoSuchElementException {
+		if (index < 0) {
+			throw new NoSuchElementException();
+		}
+		return set.elementAt(index);
+	}
+
+	private int firstIndex() {
+		window();
+		if (fromIndex == toIndex) {
+			throw new NoSuchElementException("Set is empty");
+		}
+		return descending ? toIndex - 1 : fromIndex;
+	}
+
+	private int lastIndex() {
+		window();
+		if (fromIndex == toIndex) {
+			throw new NoSuchElementException("Set is empty");
+		}
+		return descending ? fromIndex : toIndex - 1;
+	}
+
+	@Override
+	public int size() {
+		window();
+		return toIndex - fromIndex;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Integer && containsInt((Integer) o);
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return inRange(value) && set.containsInt(value);
+	}
+
+	@Override
+	public boolean add(Integer e) {
+		return addInt(e);
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		if (!inRange(value)) {
+			throw new IllegalArgumentException("key out of range");
+		}
+		return set.addInt(value);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return o instanceof Integer && removeInt((Integer) o);
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		return inRange(value) && set.removeInt(value);
+	}
+
+	/**
+	 * Removes the whole range with one removeRange on the backing set rather than element by element.
+	 */
+	@Override
+	public void clear() {
+		int from = hasLow ? low : Integer.MIN_VALUE;
+		boolean fromInclusive = !hasLow || lowInclusive;
+		int to = hasHigh ? high : Integer.MAX_VALUE;
+		boolean toInclusive = !hasHigh || highInclusive;
+		if (set.forward) {
+			set.removeRange(from, fromInclusive, to, toInclusive);
+		}
+		else {
+			set.removeRange(to, toInclusive, from, fromInclusive);
+		}
+	}
+
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return descending ? FastNavIntSet.REVERSE : FastNavIntSet.FORWARD;
+	}
+
+	@Override
+	public Integer first() {
+		return set.elementAt(firstIndex());
+	}
+
+	@Override
+	public int firstInt() {
+		return set.elementAt(firstIndex());
+	}
+
+	@Override
+	public Integer last() {
+		return set.elementAt(lastIndex());
+	}
+
+	@Override
+	public int lastInt() {
+		return set.elementAt(lastIndex());
+	}
+
+	private int lowerIndex(int value) {
+		return descending ? ceilingIndex(value, false) : floorIndex(value, false);
+	}
+
+	private int floorIndex(int value) {
+		return descending ? ceilingIndex(value, true) : floorIndex(value, true);
+	}
+
+	private int ceilingIndex(int value) {
+		return descending ? floorIndex(value, true) : ceilingIndex(value, true);
+	}
+
+	private int higherIndex(int value) {
+		return descending ? floorIndex(value, false) : ceilingIndex(value, false);
+	}
+
+	@Override
+	public Integer lower(Integer e) {
+		return valueAt(lowerIndex(e));
+	}
+
+	@Override
+	public int lowerInt(int value) {
+		return existingValueAt(lowerIndex(value));
+	}
+
+	@Override
+	public int lowerIntOrElse(int value, int missing) {
+		return valueAt(lowerIndex(value), missing);
+	}
+
+	@Override
+	public Integer floor(Integer e) {
+		return valueAt(floorIndex(e));
+	}
+
+	@Override
+	public int floorInt(int value) {
+		return existingValueAt(floorIndex(value));
+	}
+
+	@Override
+	public int floorIntOrElse(int value, int missing) {
+		return valueAt(floorIndex(value), missing);
+	}
+
+	@Override
+	public Integer ceiling(Integer e) {
+		return valueAt(ceilingIndex(e));
+	}
+
+	@Override
+	public int ceilingInt(int value) {
+		return existingValueAt(ceilingIndex(value));
+	}
+
+	@Override
+	public int ceilingIntOrElse(int value, int missing) {
+		return valueAt(ceilingIndex(value), missing);
+	}
+
+	@Override
+	public Integer higher(Integer e) {
+		return valueAt(higherIndex(e));
+	}
+
+	@Override
+	public int higherInt(int value) {
+		return existingValueAt(higherIndex(value));
+	}
+
+	@Override
+	public int higherIntOrElse(int value, int missing) {
+		return valueAt(higherIndex(value), missing);
+	}
+
+	@Override
+	public Integer pollFirst() {
+		if (isEmpty()) {
+			return null;
+		}
+		return pollIndex(firstIndex());
+	}
+
+	@Override
+	public Integer pollLast() {
+		if (isEmpty()) {
+			return null;
+		}
+		return pollIndex(lastIndex());
+	}
+
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		if (isEmpty()) {
+			return missing;
+		}
+		return pollIndex(firstIndex());
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		if (isEmpty()) {
+			return missing;
+		}
+		return pollIndex(lastIndex());
+	}
+
+	private int pollIndex(int index) {
+		int out = set.elementAt(index);
+		set.removeAtIndex(index);
+		return out;
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return intIterator();
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt intIterator() {
+		if (descending) {
+			return new ViewDescendingIterator();
+		}
+		else {
+			return new ViewAscendingIterator();
+		}
+	}
+
+	@Override
+	public Iterator<Integer> descendingIterator() {
+		if (descending) {
+			return new ViewAscendingIterator();
+		}
+		else {
+			return new ViewDescendingIterator();
+		}
+	}
+
+	@Override
+	public void forEachInt(IntConsumer action) {
+		window();
+		int[] vals = set.values;
+		int from = set.head + fromIndex;
+		int to = set.head + toIndex;
+		if (descending) {
+			for (int i = to - 1; i >= from; i--) {
+				action.accept(vals[i]);
+			}
+		}
+		else {
+			for (int i = from; i < to; i++) {
+				action.accept(vals[i]);
+			}
+		}
+	}
+
+	@Override
+	public Spliterator.OfInt intSpliterator() {
+		window();
+		return new IntArraySpliterator(set.values, set.head + fromIndex, set.head + toIndex, descending);
+	}
+
+	@Override
+	public Spliterator<Integer> spliterator() {
+		return intSpliterator();
+	}
+
+	private class ViewAscendingIterator implements PrimitiveIterator.OfInt {
+		private int index;
+		private int end;
+		private int lastReturned = -1;
+
+		ViewAscendingIterator() {
+			window();
+			index = fromIndex;
+			end = toIndex;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < end;
+		}
+
+		@Override
+		public int nextInt() {
+			if (index >= end) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = index;
+			++index;
+			return set.elementAt(lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException("next has not been called");
+			}
+			set.removeAtIndex(lastReturned);
+			index = lastReturned;
+			--end;
+			lastReturned = -1;
+		}
+	}
+
+	private class ViewDescendingIterator implements PrimitiveIterator.OfInt {
+		private int index;
+		private final int end;
+		private int lastReturned = -1;
+
+		ViewDescendingIterator() {
+			window();
+			index = toIndex - 1;
+			end = fromIndex;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index >= end;
+		}
+
+		@Override
+		public int nextInt() {
+			if (index < end) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = index;
+			--index;
+			return set.elementAt(lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException("next has not been called");
+			}
+			set.removeAtIndex(lastReturned);
+			lastReturned = -1;
+		}
+	}
+
+	@Override
+	public IntNavigableSet descendingSet() {
+		return new FastIntSetView(set, !descending,
+															hasLow, low, lowInclusive,
+															hasHigh, high, highInclusive);
+	}
+
+	@Override
+	public IntNavigableSet subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
+		if (fromElement == null) {
+			throw new NullPointerException("fromElement can't be null");
+		}
+		if (toElement == null) {
+			throw new NullPointerException("toElement can't be null");
+		}
+		if (descending) {
+			return narrow(true, toElement, toInclusive, true, fromElement, fromInclusive);
+		}
+		else {
+			return narrow(true, fromElement, fromInclusive, true, toElement, toInclusive);
+		}
+	}
+
+	@Override
+	public SortedSet<Integer> subSet(Integer fromElement, Integer toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	@Override
+	public IntNavigableSet headSet(Integer toElement, boolean inclusive) {
+		if (toElement == null) {
+			throw new NullPointerException("toElement can't be null!");
+		}
+		if (descending) {
+			return narrow(true, toElement, inclusive, false, 0, false);
+		}
+		else {
+			return narrow(false, 0, false, true, toElement, inclusive);
+		}
+	}
+
+	@Override
+	public SortedSet<Integer> headSet(Integer toElement) {
+		return headSet(toElement, false);
+	}
+
+	@Override
+	public IntNavigableSet tailSet(Integer fromElement, boolean inclusive) {
+		if (fromElement == null) {
+			throw new NullPointerException("from element can't be null");
+		}
+		if (descending) {
+			return narrow(false, 0, false, true, fromElement, inclusive);
+		}
+		else {
+			return narrow(true, fromElement, inclusive, false, 0, false);
+		}
+	}
+
+	@Override
+	public SortedSet<Integer> tailSet(Integer fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+	/**
+	 * Builds a view on the same backing set with the given numeric bounds replacing the current ones. Bounds not
+	 * given are carried over, so nested views never stack.
+	 */
+	private FastIntSetView narrow(boolean newLow, int lowValue, boolean lowValueInclusive,
+																boolean newHigh, int highValue, boolean highValueInclusive) {
+		if (newLow && !inRange(lowValue, lowValueInclusive)) {
+			throw new IllegalArgumentException("fromKey out of range");
+		}
+		if (newHigh && !inRange(highValue, highValueInclusive)) {
+			throw new IllegalArgumentException("toKey out of range");
+		}
+		if (newLow && newHigh && lowValue > highValue) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		return new FastIntSetView(set, descending,
+															newLow || hasLow, newLow ? lowValue : low, newLow ? lowValueInclusive : lowInclusive,
+															newHigh || hasHigh, newHigh ? highValue : high, newHigh ? highValueInclusive : highInclusive);
+	}
+}
@@ -1,5 +1,9 @@
 package com.ca.garbage;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.AbstractSet;
 import java.util.Arrays;
@@ -8,17 +12,74 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 import javax.annotation.Nonnull;
 
-public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<Integer>, Serializable {
-	private static final int CHUNK_SIZE = 64;
+public class FastNavIntSet extends AbstractSet<Integer> implements IntNavigableSet, Serializable {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Format of the data writeObject puts after the default fields, so readObject can tell layouts apart.
+	 */
+	private static final int SERIAL_FORMAT = 1;
+	/**
+	 * Gaps per length prefixed block of the serialized form, so neither side needs more than 5 times this in scratch
+	 * space whatever the size of the set.
+	 */
+	private static final int SERIAL_BLOCK_GAPS = 4096;
+	/**
+	 * System property overriding the number of elements findIndex treats as one chunk. It is read once when the class
+	 * is loaded, so it has to be set before the first FastNavIntSet is used.
+	 */
+	public static final String CHUNK_SIZE_PROPERTY = "com.ca.garbage.FastNavIntSet.chunkSize";
+	static final int CHUNK_SIZE = Math.max(1, Integer.getInteger(CHUNK_SIZE_PROPERTY, 64));
+	/**
+	 * System property overriding PARALLEL_ADD_THRESHOLD, read once when the class is loaded like CHUNK_SIZE_PROPERTY.
+	 */
+	public static final String PARALLEL_ADD_THRESHOLD_PROPERTY = "com.ca.garbage.FastNavIntSet.parallelAddThreshold";
+	/**
+	 * Batches of at least this many elements are sorted with Arrays.parallelSort and merged in by tasks on the common
+	 * ForkJoinPool, as long as it has more than one thread. Smaller ones don't make up for the forking and the extra
+	 * counting pass.
+	 */
+	static final int PARALLEL_ADD_THRESHOLD = Math.max(1, Integer.getInteger(PARALLEL_ADD_THRESHOLD_PROPERTY, 1 << 16));
+	static final double TREE_WRITE_THRESHOLD = 500;
+	static final double DEFAULT_SHRINK_THRESHOLD = 0.25;
+	private static final int MIN_CAPACITY = 8;
 	public static Comparator<Integer> FORWARD = Integer::compareTo;
 	public static Comparator<Integer> REVERSE = (o1, o2) -> o2.compareTo(o1);
-	private int size;
-	private final boolean forward;
+	transient int size;
+	final boolean forward;
 	@Nonnull
-	private int[] values;
+	transient int[] values;
+	/**
+	 * Where the elements start: they are values[head, head + size), and indexes everywhere else count from head.
+	 * Removing the first elements just moves head up, and inserts in the lower half move the elements below them down
+	 * into the room that leaves.
+	 */
+	transient int head;
+	/**
+	 * Bumped on every structural change so views know when their cached index window is stale.
+	 */
+	transient int modCount;
+	private boolean readOptimized;
+	private double shrinkThreshold = DEFAULT_SHRINK_THRESHOLD;
+	/**
+	 * When read optimized, a copy of values in Eytzinger (BFS) order, 1 based, with node k at 2k and its index in values
+	 * right after it at 2k + 1 so both come in on the same cache line. Built by the first lookup after a change, dropped
+	 * by every change. Volatile and only ever set to a filled array, so concurrent readers of an unchanging set can
+	 * race to build it without seeing a half written one.
+	 */
+	private transient volatile int[] eytzinger;
+	/**
+	 * Scratch space addAll copies and sorts unordered input in, kept between calls so repeated batches don't allocate.
+	 * Never longer than values, so one outsized batch doesn't leave the set holding its size in scratch forever.
+	 */
+	transient int[] buffer;
 
 	private FastNavIntSet(int[] values, boolean forward) {
 		this.forward = forward;
@@ -48,7 +109,8 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	}
 
 	private FastNavIntSet(FastNavIntSet fastNavIntSet, boolean forward) {
-		this.values = Arrays.copyOf(fastNavIntSet.values, fastNavIntSet.size);
+		this.values = Arrays.copyOfRange(fastNavIntSet.values, fastNavIntSet.head,
+			fastNavIntSet.head + fastNavIntSet.size);
 		this.size = fastNavIntSet.size;
 		this.forward = forward;
 	}
@@ -69,6 +131,23 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return create(null, forward);
 	}
 
+	/**
+	 * Picks the implementation for a workload: an add or remove here shifts half the array on average, so once
+	 * expectedSize times the share of writes among all operations passes TREE_WRITE_THRESHOLD a FastNavIntTreeSet,
+	 * with its slower lookups but O(log n) writes, is cheaper overall.
+	 *
+	 * @param writeRatio the fraction, from 0 to 1, of operations that add or remove
+	 */
+	public static IntNavigableSet forWorkload(int expectedSize, double writeRatio) {
+		if (writeRatio < 0 || writeRatio > 1) {
+			throw new IllegalArgumentException("writeRatio must be between 0 and 1");
+		}
+		if (expectedSize * writeRatio >= TREE_WRITE_THRESHOLD) {
+			return FastNavIntTreeSet.create();
+		}
+		return create();
+	}
+
 	public static FastNavIntSet fromIntegerArray(Integer[] values, boolean forward) {
 		int[] newValues = new int[values.length];
 		for (int i = 0; i < values.length; i++) {
@@ -115,9 +194,104 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return fromCollection(values, true);
 	}
 
+	/**
+	 * Takes over sorted, which must hold size strictly ascending values, without copying it.
+	 */
+	static FastNavIntSet wrapSorted(int[] sorted, int size) {
+		return wrapSorted(sorted, size, true);
+	}
+
+	static FastNavIntSet wrapSorted(int[] sorted, int size, boolean forward) {
+		FastNavIntSet set = create(forward);
+		set.values = sorted;
+		set.size = size;
+		return set;
+	}
+
+	/**
+	 * Read optimized sets answer lookups from an Eytzinger ordered copy of the values, trading 2 extra ints per element
+	 * and a rebuild on the first lookup after a run of changes for a single branch free descent instead of the two
+	 * binary searches of findIndex. Changes themselves still search the plain array, so a batch of adds costs one
+	 * rebuild at most. Only worth it for sets that are queried much more than they are modified.
+	 */
+	public void setReadOptimized(boolean readOptimized) {
+		this.readOptimized = readOptimized;
+		if (!readOptimized) {
+			eytzinger = null;
+		}
+	}
+
+	public boolean isReadOptimized() {
+		return readOptimized;
+	}
+
+	/**
+	 * Once removals leave fewer than shrinkThreshold times the capacity of values in use, values is copied into an
+	 * array twice the size of the set, so a set that peaked gives the memory back. 0 never shrinks.
+	 *
+	 * @param shrinkThreshold the fraction of the capacity, from 0 to 0.5, below which values shrinks; the default is
+	 * 0.25, so a set has to lose half of what it had after a shrink before it shrinks again
+	 */
+	public void setShrinkThreshold(double shrinkThreshold) {
+		if (shrinkThreshold < 0 || shrinkThreshold > 0.5) {
+			throw new IllegalArgumentException("shrinkThreshold must be between 0 and 0.5");
+		}
+		this.shrinkThreshold = shrinkThreshold;
+		shrinkIfSparse();
+	}
+
+	public double getShrinkThreshold() {
+		return shrinkThreshold;
+	}
+
+	/**
+	 * Cuts the capacity of values down to the size of the set and drops the addAll buffer.
+	 */
+	public void trimToSize() {
+		buffer = null;
+		if (values.length > size) {
+			values = Arrays.copyOfRange(values, head, head + size);
+			head = 0;
+		}
+	}
+
+	/**
+	 * Also what eventually reclaims the room pollFirst leaves at the front of a set that is only ever drained. The addAll
+	 * buffer goes with it unless it still fits in the smaller values.
+	 */
+	private void shrinkIfSparse() {
+		if (values.length > MIN_CAPACITY && size < values.length * shrinkThreshold) {
+			values = Arrays.copyOfRange(values, head, head + Math.max(MIN_CAPACITY, 2 * size));
+			head = 0;
+			if (buffer != null && buffer.length > values.length) {
+				buffer = null;
+			}
+		}
+	}
+
+	/**
+	 * Moves the elements down to values[0], for the bulk operations that work on values[0, size).
+	 */
+	private void moveToFront() {
+		if (head != 0) {
+			System.arraycopy(values, head, values, 0, size);
+			head = 0;
+		}
+	}
+
+	private void modified() {
+		++modCount;
+		eytzinger = null;
+	}
+
 	@Override
 	public boolean add(Integer e) {
-		int insertionIndex = findIndex(e);
+		return addInt(e);
+	}
+
+	@Override
+	public boolean addInt(int e) {
+		int insertionIndex = searchIndex(e);
 		if (insertionIndex >= 0 && insertionIndex != Integer.MAX_VALUE) {
 			return false;
 		}
@@ -131,13 +305,31 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 			insertionIndex = (insertionIndex * -1) - 1;
 		}
 
+		modified();
+		if (head > 0 && insertionIndex <= size / 2) {
+			System.arraycopy(values, head, values, head - 1, insertionIndex);
+			--head;
+		}
+		else {
+			if (head + size == values.length) {
+				makeRoomAtBack();
+			}
+			System.arraycopy(values, head + insertionIndex, values, head + insertionIndex + 1, size - insertionIndex);
+		}
+		values[head + insertionIndex] = e;
 		++size;
+		return true;
+	}
+
+	/**
+	 * For an insert when the elements reach the end of values: room of a quarter of the capacity or more left at the
+	 * front is reclaimed by moving the elements down, anything less by growing values. Either way a queue that is
+	 * polled at the front and added to at the back only pays for a move after as many polls.
+	 */
+	private void makeRoomAtBack() {
 		int len = values.length;
-		if (len >= size) {
-			for (int i = size - 1; i > insertionIndex; --i) {
-				values[i] = values[i - 1];
-			}
-			values[insertionIndex] = e;
+		if (head > 0 && head >= len / 4) {
+			System.arraycopy(values, head, values, 0, size);
 		}
 		else {
 			int newLen = 8;
@@ -145,71 +337,259 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 				newLen = len + len / 2;
 			}
 			int[] newValues = new int[newLen];
-			for (int i = 0, j = 0; i < size; i++, j++) {
-				if (i != insertionIndex) {
-					newValues[i] = values[j];
-				}
-				else {
-					newValues[i] = e;
-					--j;
-				}
-			}
+			System.arraycopy(values, head, newValues, 0, size);
 			values = newValues;
 		}
-		return true;
+		head = 0;
 	}
 
+	/**
+	 * Copies c into the reusable buffer, so steady batches don't allocate, and merges it in.
+	 */
 	@Override
 	public boolean addAll(Collection<? extends Integer> c) {
-		int[] collectionValues = new int[c.size()];
+		if (c instanceof FastNavIntSet) {
+			FastNavIntSet other = (FastNavIntSet) c;
+			return other != this && addAllSorted(other.values, other.head, other.head + other.size);
+		}
+		int[] batch = buffer(c.size());
 		int i = 0;
 		for (Integer value : c) {
-			collectionValues[i] = value;
+			batch[i] = value;
 			++i;
 		}
-		return addAll(collectionValues);
+		return addAllBuffered(batch, i);
 	}
 
+	/**
+	 * Adds toArray, which is left as it is: input already in ascending order is merged straight in, anything else is
+	 * sorted in the reusable buffer first.
+	 */
 	public final boolean addAll(int[] toArray) {
-		Arrays.sort(toArray);
-		int[] newValues = new int[size + toArray.length];
-		int newSize = 0;
-		for (int i = 0, j = 0, k = 0; j < size || k < toArray.length; ++i) {
-			if (j == size) {
-				newValues[i] = toArray[k];
-				++k;
-				++newSize;
-			}
-			else if (k == toArray.length) {
-				newValues[i] = values[j];
-				++j;
-				++newSize;
+		if (isAscending(toArray, 0, toArray.length)) {
+			return addAllSorted(toArray, 0, toArray.length);
+		}
+		int[] batch = buffer(toArray.length);
+		System.arraycopy(toArray, 0, batch, 0, toArray.length);
+		return addAllBuffered(batch, toArray.length);
+	}
+
+	private boolean addAllBuffered(int[] batch, int count) {
+		if (!isAscending(batch, 0, count)) {
+			if (addsInParallel(count)) {
+				Arrays.parallelSort(batch, 0, count);
 			}
 			else {
-				newValues[i] = Math.min(toArray[k], values[j]);
-				++newSize;
-				while (k < toArray.length && toArray[k] == newValues[i]) {
-					++k;
+				Arrays.sort(batch, 0, count);
+			}
+		}
+		return addAllSorted(batch, 0, count);
+	}
+
+	private static boolean addsInParallel(int count) {
+		return count >= PARALLEL_ADD_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * @return buffer, grown to hold at least length ints, or a throwaway array when length is more than values holds
+	 */
+	private int[] buffer(int length) {
+		if (buffer != null && buffer.length >= length) {
+			return buffer;
+		}
+		if (length > values.length) {
+			return new int[length];
+		}
+		buffer = new int[Math.min(values.length, Math.max(length, buffer == null ? 0 : buffer.length + buffer.length / 2))];
+		return buffer;
+	}
+
+	private static boolean isAscending(int[] a, int from, int to) {
+		for (int i = from + 1; i < to; ++i) {
+			if (a[i] < a[i - 1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of distinct values in the ascending sorted[from, to) that aren't in this set yet
+	 */
+	private int countNew(int[] sorted, int from, int to, boolean skewed) {
+		int count = 0;
+		int i = 0;
+		for (int j = from; j < to; ++j) {
+			int value = sorted[j];
+			if (j > from && sorted[j - 1] == value) {
+				continue;
+			}
+			if (skewed) {
+				if (Arrays.binarySearch(values, 0, size, value) < 0) {
+					++count;
 				}
-				while (j < size && values[j] == newValues[i]) {
-					++j;
+				continue;
+			}
+			while (i < size && values[i] < value) {
+				++i;
+			}
+			if (i == size || values[i] != value) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds sorted[from, to), which must be in ascending order but may repeat values, without sorting or copying it.
+	 * The merge runs backwards from the end of values when it has room for both, so nothing is allocated; elements
+	 * below the smallest new one are not moved at all, once any room pollFirst left in front of them is given back.
+	 *
+	 * @throws IllegalArgumentException if the range isn't in ascending order
+	 */
+	public boolean addAllSorted(int[] sorted, int from, int to) {
+		if (from < 0 || to > sorted.length || from > to) {
+			throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + sorted.length);
+		}
+		if (!isAscending(sorted, from, to)) {
+			throw new IllegalArgumentException("sorted isn't in ascending order");
+		}
+		int count = to - from;
+		if (count == 0) {
+			return false;
+		}
+		boolean skewed = (long) count * SortedIntArrays.GALLOP_RATIO < size;
+		if (!skewed && addsInParallel(count)) {
+			return addAllParallel(sorted, from, to, 4 * ForkJoinPool.getCommonPoolParallelism());
+		}
+		moveToFront();
+		int total = size + count;
+		int[] out = values;
+		if (values.length < total) {
+			// repeated and already present values may leave enough room after all
+			total = size + countNew(sorted, from, to, skewed);
+			if (total == size) {
+				return false;
+			}
+			if (values.length < total) {
+				out = new int[Math.max(total, values.length + values.length / 2)];
+			}
+		}
+		// i walks the old elements and j the new ones down from the top; write stays above i as only the new elements
+		// added so far open the gap between them
+		int i = size - 1;
+		int write = total - 1;
+		for (int j = to - 1; j >= from; --j) {
+			int value = sorted[j];
+			if (j + 1 < to && sorted[j + 1] == value) {
+				continue;
+			}
+			boolean present;
+			if (skewed) {
+				// few new elements: find each one's place and move the run of old elements above it in one go
+				int index = Arrays.binarySearch(values, 0, i + 1, value);
+				present = index >= 0;
+				int runStart = present ? index + 1 : -(index + 1);
+				int run = i + 1 - runStart;
+				write -= run;
+				System.arraycopy(values, runStart, out, write + 1, run);
+				i -= run;
+			}
+			else {
+				while (i >= 0 && values[i] > value) {
+					out[write--] = values[i--];
 				}
+				present = i >= 0 && values[i] == value;
+			}
+			if (!present) {
+				out[write--] = value;
 			}
 		}
-		boolean changes = size != newSize;
-		values = newValues;
+		if (out != values) {
+			System.arraycopy(values, 0, out, 0, i + 1);
+		}
+		int newSize = total - (write - i);
+		if (write != i) {
+			// values that were already present left a gap between the untouched prefix and the merged part
+			System.arraycopy(out, write + 1, out, i + 1, total - write - 1);
+		}
+		boolean changed = newSize != size;
+		values = out;
 		size = newSize;
-		return changes;
+		if (changed) {
+			modified();
+		}
+		return changed;
+	}
+
+	/**
+	 * Merges the ascending sorted[from, to) in as parts tasks, each taking the elements of this set and of sorted that
+	 * fall in one value range. The ranges are cut at pivots splitting both arrays together evenly, and equal values
+	 * always land in the same range, so every task drops repeats on its own. A first pass counts what each range adds
+	 * up to, the second writes it straight into its place in the new values array.
+	 */
+	boolean addAllParallel(int[] sorted, int from, int to, int parts) {
+		int[] vals = values;
+		int end = head + size;
+		long total = (long) size + to - from;
+		int[] valueStarts = new int[parts + 1];
+		int[] sortedStarts = new int[parts + 1];
+		valueStarts[0] = head;
+		sortedStarts[0] = from;
+		valueStarts[parts] = end;
+		sortedStarts[parts] = to;
+		for (int part = 1; part < parts; ++part) {
+			long pivot = SortedIntArrays.pivot(vals, head, end, sorted, from, to, total * part / parts);
+			if (pivot > Integer.MAX_VALUE) {
+				valueStarts[part] = end;
+				sortedStarts[part] = to;
+			}
+			else {
+				valueStarts[part] = SortedIntArrays.gallop(vals, valueStarts[part - 1], end, (int) pivot);
+				sortedStarts[part] = SortedIntArrays.gallop(sorted, sortedStarts[part - 1], to, (int) pivot);
+			}
+		}
+		int[] offsets = new int[parts + 1];
+		IntStream.range(0, parts).parallel().forEach(part -> offsets[part + 1] = SortedIntArrays.unionWithRepeats(vals,
+			valueStarts[part], valueStarts[part + 1], sorted, sortedStarts[part], sortedStarts[part + 1], null, 0));
+		for (int part = 0; part < parts; ++part) {
+			offsets[part + 1] += offsets[part];
+		}
+		int newSize = offsets[parts];
+		if (newSize == size) {
+			return false;
+		}
+		int[] out = new int[Math.max(newSize, vals.length + vals.length / 2)];
+		IntStream.range(0, parts).parallel().forEach(part -> SortedIntArrays.unionWithRepeats(vals, valueStarts[part],
+			valueStarts[part + 1], sorted, sortedStarts[part], sortedStarts[part + 1], out, offsets[part]));
+		values = out;
+		head = 0;
+		size = newSize;
+		modified();
+		return true;
 	}
 
 	@Override
 	public Integer ceiling(Integer e) {
-		return ceilingOrFloor(e, !forward);
+		return valueAt(ceilingOrFloor(e, !forward));
+	}
+
+	@Override
+	public int ceilingInt(int e) {
+		return existingValueAt(ceilingOrFloor(e, !forward));
+	}
+
+	@Override
+	public int ceilingIntOrElse(int e, int missing) {
+		return valueAt(ceilingOrFloor(e, !forward), missing);
 	}
 
 	@Override
 	public void clear() {
 		size = 0;
+		head = 0;
+		modified();
+		shrinkIfSparse();
 	}
 
 	@Override
@@ -225,21 +605,29 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	@Override
 	public boolean contains(Object o) {
 		if (o instanceof Integer) {
-			int index = findIndex((Integer) o);
-			if (index < 0) {
-				return false;
-			}
-			else {
-				return index != Integer.MAX_VALUE;
-			}
+			return containsInt((Integer) o);
 		}
 		else {
 			return false;
 		}
 	}
 
+	@Override
+	public boolean containsInt(int value) {
+		int index = findIndex(value);
+		if (index < 0) {
+			return false;
+		}
+		else {
+			return index != Integer.MAX_VALUE;
+		}
+	}
+
 	@Override
 	public boolean containsAll(Collection<?> c) {
+		if (c instanceof FastNavIntSet) {
+			return containsAllSorted((FastNavIntSet) c);
+		}
 		SortedSet sortedSet;
 		if (c instanceof SortedSet) {
 			sortedSet = (SortedSet) c;
@@ -272,6 +660,33 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return true;
 	}
 
+	/**
+	 * Matches runs of other against values with one findIndex per run and a bulk comparison along it, so a contiguous
+	 * range of this set is checked in a single pass.
+	 */
+	private boolean containsAllSorted(FastNavIntSet other) {
+		int[] theirs = other.values;
+		int theirHead = other.head;
+		int theirSize = other.size;
+		if (theirSize > size) {
+			return false;
+		}
+		int j = 0;
+		while (j < theirSize) {
+			int i = findIndex(theirs[theirHead + j]);
+			if (i < 0 || i == Integer.MAX_VALUE) {
+				return false;
+			}
+			int run = Math.min(theirSize - j, size - i);
+			int mismatch = IntArrayOps.INSTANCE.mismatch(values, head + i, theirs, theirHead + j, run);
+			if (mismatch < 0) {
+				return run == theirSize - j;
+			}
+			j += mismatch;
+		}
+		return true;
+	}
+
 	@Override
 	public Iterator<Integer> descendingIterator() {
 		if (!forward) {
@@ -283,7 +698,7 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	}
 
 	@Override
-	public NavigableSet<Integer> descendingSet() {
+	public IntNavigableSet descendingSet() {
 		return FastIntSetView.make(this)
 			.setReversed(true)
 			.build();
@@ -304,12 +719,10 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		if (other.forward != this.forward) {
 			return false;
 		}
-		for (int i = 0; i < size; i++) {
-			if (other.values[i] != this.values[i]) {
-				return false;
-			}
+		if (other.size != this.size) {
+			return false;
 		}
-		return true;
+		return IntArrayOps.INSTANCE.mismatch(values, head, other.values, other.head, size) < 0;
 	}
 
 	@Override
@@ -317,38 +730,78 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return lastOrFirst(!forward);
 	}
 
+	@Override
+	public int firstInt() {
+		return lastOrFirst(!forward);
+	}
+
 	@Override
 	public Integer floor(Integer e) {
-		return ceilingOrFloor(e, forward);
+		return valueAt(ceilingOrFloor(e, forward));
 	}
 
-	private Integer ceilingOrFloor(Integer e, boolean isFloor) {
+	@Override
+	public int floorInt(int e) {
+		return existingValueAt(ceilingOrFloor(e, forward));
+	}
+
+	@Override
+	public int floorIntOrElse(int e, int missing) {
+		return valueAt(ceilingOrFloor(e, forward), missing);
+	}
+
+	/**
+	 * @return the index of the ceiling or floor of e, -1 if there is none
+	 */
+	private int ceilingOrFloor(int e, boolean isFloor) {
 		if (size == 0) {
-			return null;
+			return -1;
 		}
 		int index = findIndex(e);
 		if (index == Integer.MIN_VALUE) {
-			return isFloor ? null : values[0];
+			return isFloor ? -1 : 0;
 		}
 		if (index == Integer.MAX_VALUE) {
-			return isFloor ? values[size - 1] : null;
+			return isFloor ? size - 1 : -1;
 		}
 		if (index >= 0) {
-			return e;
+			return index;
 		}
 		else {
 			index = (index * -1) - 1;
 			if (isFloor) {
 				index = index - 1;
 			}
-			return ((index >= 0) && (index < size)) ? values[index] : null;
+			return ((index >= 0) && (index < size)) ? index : -1;
+		}
+	}
+
+	private Integer valueAt(int index) {
+		return index < 0 ? null : values[head + index];
+	}
+
+	private int valueAt(int index, int missing) {
+		return index < 0 ? missing : values[head + index];
+	}
+
+	private int existingValueAt(int index) throws NoSuchElementException {
+		if (index < 0) {
+			throw new NoSuchElementException();
 		}
+		return values[head + index];
+	}
+
+	/**
+	 * @return the element at index, counting from the first (smallest) one
+	 */
+	int elementAt(int index) {
+		return values[head + index];
 	}
 
 	@Override
 	public int hashCode() {
 		int hash = 7;
-		for (int i = 0; i < size; i++) {
+		for (int i = head; i < head + size; i++) {
 			hash = 31 * hash + values[i];
 		}
 		if (forward) {
@@ -357,8 +810,100 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return hash;
 	}
 
+	/**
+	 * Writes the format, the element count and, if there are any elements, the values delta encoded: the first value as
+	 * is, then each gap to the next value minus one as an unsigned varint, in blocks of up to SERIAL_BLOCK_GAPS gaps,
+	 * each prefixed with its byte length. Dense sets come out at about one byte per element.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeByte(SERIAL_FORMAT);
+		out.writeInt(size);
+		if (size == 0) {
+			return;
+		}
+		out.writeInt(values[head]);
+		byte[] block = new byte[5 * SERIAL_BLOCK_GAPS];
+		int length = 0;
+		int gaps = 0;
+		for (int i = head + 1; i < head + size; ++i) {
+			int gap = values[i] - values[i - 1] - 1;
+			while ((gap & ~0x7F) != 0) {
+				block[length++] = (byte) (gap | 0x80);
+				gap >>>= 7;
+			}
+			block[length++] = (byte) gap;
+			if (++gaps == SERIAL_BLOCK_GAPS || i == head + size - 1) {
+				out.writeInt(length);
+				out.write(block, 0, length);
+				length = 0;
+				gaps = 0;
+			}
+		}
+	}
+
+	/**
+	 * Grows values as the gaps come in rather than trusting the count up front, so a stream can't make it allocate much
+	 * more than it actually holds.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int format = in.readUnsignedByte();
+		if (format != SERIAL_FORMAT) {
+			throw new InvalidObjectException("Unknown FastNavIntSet format " + format);
+		}
+		int count = in.readInt();
+		if (count < 0) {
+			throw new InvalidObjectException("Negative size " + count);
+		}
+		int[] read = new int[Math.min(count, SERIAL_BLOCK_GAPS + 1)];
+		int filled = 0;
+		if (count > 0) {
+			read[filled++] = in.readInt();
+		}
+		byte[] block = new byte[5 * SERIAL_BLOCK_GAPS];
+		while (filled < count) {
+			int length = in.readInt();
+			if (length <= 0 || length > block.length) {
+				throw new InvalidObjectException("Bad block length " + length);
+			}
+			in.readFully(block, 0, length);
+			int pos = 0;
+			while (pos < length) {
+				if (filled == count) {
+					throw new InvalidObjectException("More values than the size");
+				}
+				int gap = 0;
+				int shift = 0;
+				byte b;
+				do {
+					if (pos == length) {
+						throw new InvalidObjectException("Malformed gap");
+					}
+					b = block[pos++];
+					// the fifth byte carries bits 28 to 31, so anything above them or another byte after it is corrupt
+					if (shift == 28 && (b & 0xF0) != 0) {
+						throw new InvalidObjectException("Malformed gap");
+					}
+					gap |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				if (filled == read.length) {
+					read = Arrays.copyOf(read, (int) Math.min(count, 2L * filled));
+				}
+				read[filled] = read[filled - 1] + gap + 1;
+				if (read[filled] <= read[filled - 1]) {
+					throw new InvalidObjectException("Values out of order");
+				}
+				++filled;
+			}
+		}
+		values = read;
+		size = count;
+	}
+
 	@Override
-	public NavigableSet<Integer> headSet(Integer toElement, boolean inclusive) {
+	public IntNavigableSet headSet(Integer toElement, boolean inclusive) {
 		if (toElement == null) {
 			throw new NullPointerException("toElement can't be null!");
 		}
@@ -370,12 +915,22 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 
 	@Override
 	public SortedSet<Integer> headSet(Integer toElement) {
-		return headSet(toElement, true);
+		return headSet(toElement, false);
 	}
 
 	@Override
 	public Integer higher(Integer e) {
-		return getLowerOrHigher(e, !forward);
+		return valueAt(getLowerOrHigher(e, !forward));
+	}
+
+	@Override
+	public int higherInt(int e) {
+		return existingValueAt(getLowerOrHigher(e, !forward));
+	}
+
+	@Override
+	public int higherIntOrElse(int e, int missing) {
+		return valueAt(getLowerOrHigher(e, !forward), missing);
 	}
 
 	@Override
@@ -385,6 +940,11 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 
 	@Override
 	public Iterator<Integer> iterator() {
+		return intIterator();
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt intIterator() {
 		if (forward) {
 			return new FastNavSetAscendingIterator();
 		}
@@ -394,7 +954,34 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		}
 	}
 
-	private class FastNavSetAscendingIterator implements Iterator<Integer> {
+	@Override
+	public void forEachInt(IntConsumer action) {
+		int[] vals = values;
+		int from = head;
+		int to = head + size;
+		if (forward) {
+			for (int i = from; i < to; i++) {
+				action.accept(vals[i]);
+			}
+		}
+		else {
+			for (int i = to - 1; i >= from; i--) {
+				action.accept(vals[i]);
+			}
+		}
+	}
+
+	@Override
+	public Spliterator.OfInt intSpliterator() {
+		return new IntArraySpliterator(values, head, head + size, !forward);
+	}
+
+	@Override
+	public Spliterator<Integer> spliterator() {
+		return intSpliterator();
+	}
+
+	private class FastNavSetAscendingIterator implements PrimitiveIterator.OfInt {
 		private int index = 0;
 
 		@Override
@@ -403,10 +990,10 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		}
 
 		@Override
-		public Integer next() {
+		public int nextInt() {
 			int currIndex = index;
 			++index;
-			return values[currIndex];
+			return values[head + currIndex];
 		}
 
 		@Override
@@ -421,7 +1008,7 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		}
 	}
 
-	private class FastNavSetDecendingIterator implements Iterator<Integer> {
+	private class FastNavSetDecendingIterator implements PrimitiveIterator.OfInt {
 		private int index = size - 1;
 
 		@Override
@@ -430,10 +1017,10 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		}
 
 		@Override
-		public Integer next() {
+		public int nextInt() {
 			int currIndex = index;
 			--index;
-			return values[currIndex];
+			return values[head + currIndex];
 		}
 
 		@Override
@@ -452,30 +1039,48 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return lastOrFirst(forward);
 	}
 
-	private Integer lastOrFirst(boolean getLast) throws NoSuchElementException {
+	@Override
+	public int lastInt() {
+		return lastOrFirst(forward);
+	}
+
+	private int lastOrFirst(boolean getLast) throws NoSuchElementException {
 		if (isEmpty()) {
 			throw new NoSuchElementException("Set is empty");
 		}
 		if (getLast) {
-			return values[size - 1];
+			return values[head + size - 1];
 		}
 		else {
-			return values[0];
+			return values[head];
 		}
 	}
 
 	@Override
 	public Integer lower(Integer e) {
-		return getLowerOrHigher(e, forward);
+		return valueAt(getLowerOrHigher(e, forward));
 	}
 
-	private Integer getLowerOrHigher(Integer e, boolean lower) {
+	@Override
+	public int lowerInt(int e) {
+		return existingValueAt(getLowerOrHigher(e, forward));
+	}
+
+	@Override
+	public int lowerIntOrElse(int e, int missing) {
+		return valueAt(getLowerOrHigher(e, forward), missing);
+	}
+
+	/**
+	 * @return the index of the element below or above e, -1 if there is none
+	 */
+	private int getLowerOrHigher(int e, boolean lower) {
 		int index = findIndex(e);
 		if (index == Integer.MAX_VALUE) {
-			return lower ? values[size - 1] : null;
+			return lower ? size - 1 : -1;
 		}
 		else if (index == Integer.MIN_VALUE) {
-			return lower ? null : values[0];
+			return lower ? -1 : 0;
 		}
 		if (index < 0) {
 			index = (index * -1) - 1;
@@ -491,7 +1096,7 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 				index++;
 			}
 		}
-		return ((index >= 0) && (index < size)) ? values[index] : null;
+		return ((index >= 0) && (index < size)) ? index : -1;
 	}
 
 	@Override
@@ -510,42 +1115,102 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 		return poll(forward);
 	}
 
-	private int poll(boolean fromBack) {
-		int out;
-		if (fromBack) {
-			out = values[size - 1];
-			--size;
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		if (isEmpty()) {
+			return missing;
 		}
-		else {
-			out = values[0];
-			removeAtIndex(0);
+		return poll(!forward);
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		if (isEmpty()) {
+			return missing;
 		}
+		return poll(forward);
+	}
+
+	/**
+	 * O(1) from either end: from the front it only moves head up.
+	 */
+	private int poll(boolean fromBack) {
+		int index = fromBack ? size - 1 : 0;
+		int out = values[head + index];
+		removeAtIndex(index);
 		return out;
 	}
 
-	private void removeAtIndex(int index) {
-		if (index == size - 1) {
-			--size;
+	void removeAtIndex(int index) {
+		removeIndexRange(index, index + 1);
+	}
+
+	/**
+	 * Removes every element between from and to, which are in the order of the set like the bounds of subSet. Both ends
+	 * are found with one search each and the gap is closed with a single System.arraycopy, or none at all when the
+	 * range starts at the first element.
+	 *
+	 * @return the number of elements removed
+	 * @throws IllegalArgumentException if from comes after to in the order of the set
+	 */
+	public int removeRange(int from, boolean fromInclusive, int to, boolean toInclusive) {
+		if (forward ? from > to : from < to) {
+			throw new IllegalArgumentException("from > to");
+		}
+		if (!forward) {
+			int swap = from;
+			from = to;
+			to = swap;
+			boolean swapInclusive = fromInclusive;
+			fromInclusive = toInclusive;
+			toInclusive = swapInclusive;
+		}
+		int fromIndex = ceilingIndexOf(searchIndex(from), fromInclusive);
+		int toIndex = ceilingIndexOf(searchIndex(to), !toInclusive);
+		if (fromIndex >= toIndex) {
+			return 0;
+		}
+		removeIndexRange(fromIndex, toIndex);
+		return toIndex - fromIndex;
+	}
+
+	/**
+	 * Removes the elements at [from, to) by moving whichever side of them is shorter over the gap, so clearing a prefix
+	 * of the set only moves head up.
+	 */
+	void removeIndexRange(int from, int to) {
+		if (from >= to) {
+			return;
+		}
+		int removed = to - from;
+		if (from < size - to) {
+			System.arraycopy(values, head, values, head + removed, from);
+			head += removed;
 		}
 		else {
-			for (int i = index; i < size - 1; i++) {
-				values[i] = values[i + 1];
-			}
-			--size;
+			System.arraycopy(values, head + to, values, head + from, size - to);
 		}
+		size -= removed;
+		modified();
+		shrinkIfSparse();
 	}
 
 	@Override
 	public boolean remove(Object o) {
 		if (o instanceof Integer) {
-			int index = findIndex((Integer) o);
-			if (index >= 0 && index != Integer.MAX_VALUE) {
-				removeAtIndex(index);
-				return true;
-			}
-			else {
-				return false;
-			}
+			return removeInt((Integer) o);
+		}
+		else {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		int index = searchIndex(value);
+		if (index >= 0 && index != Integer.MAX_VALUE) {
+			removeAtIndex(index);
+			return true;
 		}
 		else {
 			return false;
@@ -554,42 +1219,267 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 
 	@Override
 	public boolean removeAll(Collection<?> c) {
-		int[] collectionValues = new int[c.size()];
+		if (c instanceof FastNavIntSet) {
+			return andNotWith((FastNavIntSet) c);
+		}
+		int[] batch = buffer(c.size());
 		int i = 0;
 		for (Object value : c) {
-			collectionValues[i] = (Integer) value;
+			batch[i] = (Integer) value;
 			++i;
 		}
-		return removeAll(collectionValues);
+		if (!isAscending(batch, 0, i)) {
+			Arrays.sort(batch, 0, i);
+		}
+		return removeAllSorted(batch, 0, i);
 	}
 
+	/**
+	 * Removes valuesToRemove, which is left as it is: input already in ascending order is used straight away, anything
+	 * else is sorted in the reusable buffer first.
+	 */
 	public boolean removeAll(int[] valuesToRemove) {
-		Arrays.sort(valuesToRemove);
-		int newSize = size;
-		int[] newValues = new int[values.length];
-		int valuesIndex = 0;
-		int valuesToRemoveIndex = 0;
+		int count = valuesToRemove.length;
+		if (isAscending(valuesToRemove, 0, count)) {
+			return removeAllSorted(valuesToRemove, 0, count);
+		}
+		int[] batch = buffer(count);
+		System.arraycopy(valuesToRemove, 0, batch, 0, count);
+		Arrays.sort(batch, 0, count);
+		return removeAllSorted(batch, 0, count);
+	}
+
+	/**
+	 * Compacts values in place around the ascending sorted[from, to): elements before the first match stay where they
+	 * are, and when the batch is much smaller than the set each value gallops to its match and the runs between matches
+	 * move with one System.arraycopy each.
+	 */
+	private boolean removeAllSorted(int[] sorted, int from, int to) {
+		if (from == to || size == 0) {
+			return false;
+		}
+		int first = ceilingIndexOf(searchIndex(sorted[from]), true);
+		int kept = SortedIntArrays.andNot(values, head + first, head + size, sorted, from, to, values, head + first);
+		return compacted(first + kept);
+	}
+
+	/**
+	 * Keeps the elements also in c, intersecting in one merge pass instead of removing through the iterator, which
+	 * shifts the array once per removed element.
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		if (c instanceof FastNavIntSet) {
+			return intersectWith((FastNavIntSet) c);
+		}
+		int[] retained = buffer(c.size());
 		int i = 0;
-		while (valuesIndex < size) {
-			while (valuesToRemoveIndex < valuesToRemove.length
-						 && valuesIndex < size
-						 && valuesToRemove[valuesToRemoveIndex] <= values[valuesIndex]) {
-				if (valuesToRemove[valuesToRemoveIndex] == values[valuesIndex]) {
-					++valuesIndex;
-					--newSize;
-				}
-				++valuesToRemoveIndex;
+		for (Object value : c) {
+			if (value instanceof Integer) {
+				retained[i++] = (Integer) value;
 			}
-			if (valuesIndex < size) {
-				newValues[i] = values[valuesIndex];
+		}
+		return intersectWith(retained, 0, SortedIntArrays.sortDistinct(retained, i));
+	}
+
+	/**
+	 * @return a new set of the elements in a or b, ordered like a
+	 */
+	public static FastNavIntSet union(FastNavIntSet a, FastNavIntSet b) {
+		int[] out = new int[a.size + b.size];
+		return wrapSorted(out, SortedIntArrays.union(a.values, a.head, a.head + a.size, b.values, b.head, b.head + b.size,
+			out), a.forward);
+	}
+
+	/**
+	 * @return a new set of the elements in both a and b, ordered like a
+	 */
+	public static FastNavIntSet intersect(FastNavIntSet a, FastNavIntSet b) {
+		int[] out = new int[Math.min(a.size, b.size)];
+		return wrapSorted(out, SortedIntArrays.intersect(a.values, a.head, a.head + a.size, b.values, b.head,
+			b.head + b.size, out), a.forward);
+	}
+
+	/**
+	 * @return a new set of the elements in a but not in b, ordered like a
+	 */
+	public static FastNavIntSet andNot(FastNavIntSet a, FastNavIntSet b) {
+		int[] out = new int[a.size];
+		return wrapSorted(out, SortedIntArrays.andNot(a.values, a.head, a.head + a.size, b.values, b.head,
+			b.head + b.size, out, 0), a.forward);
+	}
+
+	/**
+	 * @return a new set of the elements in exactly one of a and b, ordered like a
+	 */
+	public static FastNavIntSet xor(FastNavIntSet a, FastNavIntSet b) {
+		int[] out = new int[a.size + b.size];
+		return wrapSorted(out, SortedIntArrays.xor(a.values, a.head, a.head + a.size, b.values, b.head, b.head + b.size,
+			out), a.forward);
+	}
+
+	/**
+	 * The size of union(a, b), without building it.
+	 */
+	public static int unionCardinality(FastNavIntSet a, FastNavIntSet b) {
+		return a.size + b.size - intersectCardinality(a, b);
+	}
+
+	/**
+	 * The size of intersect(a, b), without building it.
+	 */
+	public static int intersectCardinality(FastNavIntSet a, FastNavIntSet b) {
+		return SortedIntArrays.intersectCount(a.values, a.head, a.head + a.size, b.values, b.head, b.head + b.size);
+	}
+
+	/**
+	 * The size of andNot(a, b), without building it.
+	 */
+	public static int andNotCardinality(FastNavIntSet a, FastNavIntSet b) {
+		return a.size - intersectCardinality(a, b);
+	}
+
+	/**
+	 * The size of xor(a, b), without building it.
+	 */
+	public static int xorCardinality(FastNavIntSet a, FastNavIntSet b) {
+		return a.size + b.size - 2 * intersectCardinality(a, b);
+	}
+
+	/**
+	 * Adds the elements of other. The merge runs inside values when it has room for both sets.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean unionWith(FastNavIntSet other) {
+		return other != this && mergeWith(other.values, other.head, other.head + other.size, true);
+	}
+
+	/**
+	 * Adds elements, which may be unsorted and hold duplicates; the array itself is left alone.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean unionWith(int[] elements) {
+		return addAll(elements);
+	}
+
+	/**
+	 * Keeps only the elements also in other, compacting values in place.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean intersectWith(FastNavIntSet other) {
+		return other != this && intersectWith(other.values, other.head, other.head + other.size);
+	}
+
+	/**
+	 * Keeps only the elements also in elements, which may be unsorted and hold duplicates.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean intersectWith(int[] elements) {
+		int[] sorted = buffer(elements.length);
+		System.arraycopy(elements, 0, sorted, 0, elements.length);
+		return intersectWith(sorted, 0, SortedIntArrays.sortDistinct(sorted, elements.length));
+	}
+
+	private boolean intersectWith(int[] other, int otherFrom, int otherTo) {
+		int newSize = SortedIntArrays.intersect(values, head, head + size, other, otherFrom, otherTo, values);
+		head = 0;
+		return compacted(newSize);
+	}
+
+	/**
+	 * Removes the elements of other, compacting values in place.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean andNotWith(FastNavIntSet other) {
+		if (other == this) {
+			return compacted(0);
+		}
+		return compacted(SortedIntArrays.andNot(values, head, head + size, other.values, other.head,
+			other.head + other.size, values, head));
+	}
+
+	/**
+	 * Removes elements, which may be unsorted and hold duplicates.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean andNotWith(int[] elements) {
+		return removeAll(elements);
+	}
+
+	/**
+	 * Keeps the elements in exactly one of this set and other.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean xorWith(FastNavIntSet other) {
+		if (other == this) {
+			return compacted(0);
+		}
+		return mergeWith(other.values, other.head, other.head + other.size, false);
+	}
+
+	/**
+	 * Keeps the elements in exactly one of this set and elements, which may be unsorted and hold duplicates.
+	 *
+	 * @return whether this set changed
+	 */
+	public boolean xorWith(int[] elements) {
+		int[] sorted = buffer(elements.length);
+		System.arraycopy(elements, 0, sorted, 0, elements.length);
+		return mergeWith(sorted, 0, SortedIntArrays.sortDistinct(sorted, elements.length), false);
+	}
+
+	/**
+	 * Union or xor with the distinct ascending other[otherFrom, otherTo). When values can hold both sets, the elements
+	 * are first moved up past otherTo - otherFrom, unless head already is, so the merge can write over them from the
+	 * front.
+	 */
+	private boolean mergeWith(int[] other, int otherFrom, int otherTo, boolean union) {
+		int otherSize = otherTo - otherFrom;
+		if (otherSize == 0) {
+			return false;
+		}
+		int total = size + otherSize;
+		int[] out;
+		int from = head;
+		if (values.length >= total) {
+			if (head < otherSize) {
+				System.arraycopy(values, head, values, otherSize, size);
+				from = otherSize;
 			}
-			++valuesIndex;
-			++i;
+			out = values;
 		}
-		boolean changed = newSize != size;
+		else {
+			out = new int[total];
+		}
+		int newSize = union
+			? SortedIntArrays.union(values, from, from + size, other, otherFrom, otherTo, out)
+			: SortedIntArrays.xor(values, from, from + size, other, otherFrom, otherTo, out);
+		values = out;
+		head = 0;
+		if (union) {
+			return compacted(newSize);
+		}
+		// every element of a non-empty other goes in or out, even when the size ends up the same
 		size = newSize;
-		values = newValues;
-		return changed;
+		modified();
+		return true;
+	}
+
+	private boolean compacted(int newSize) {
+		if (newSize == size) {
+			return false;
+		}
+		size = newSize;
+		modified();
+		shrinkIfSparse();
+		return true;
 	}
 
 	@Override
@@ -598,7 +1488,7 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	}
 
 	@Override
-	public NavigableSet<Integer> subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
+	public IntNavigableSet subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
 		if (fromElement == null) {
 			throw new NullPointerException("fromElement can't be null");
 		}
@@ -619,7 +1509,7 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	}
 
 	@Override
-	public NavigableSet<Integer> tailSet(Integer fromElement, boolean inclusive) {
+	public IntNavigableSet tailSet(Integer fromElement, boolean inclusive) {
 		if (fromElement == null) {
 			throw new NullPointerException("from element can't be null");
 		}
@@ -639,18 +1529,52 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	public Object[] toArray() {
 		Integer[] out = new Integer[size];
 		for (int i = 0; i < size; i++) {
-			out[i] = values[i];
+			out[i] = values[head + i];
 		}
 		return out;
 	}
 
+	/**
+	 * Resolves findIndex to a plain position in values.
+	 *
+	 * @param value
+	 * @param inclusive whether an exact match counts
+	 * @return the index of the first element >= value (> value if not inclusive), size if there is none
+	 */
+	int ceilingIndex(int value, boolean inclusive) {
+		return ceilingIndexOf(findIndex(value), inclusive);
+	}
+
+	private int ceilingIndexOf(int index, boolean inclusive) {
+		if (index == Integer.MIN_VALUE) {
+			return 0;
+		}
+		if (index == Integer.MAX_VALUE) {
+			return size;
+		}
+		if (index >= 0) {
+			return inclusive ? index : index + 1;
+		}
+		return (index * -1) - 1;
+	}
+
 	/**
 	 *
 	 * @param value
 	 * @return Integer.MIN_VALUE if value less that lowest, Integer.MAX_VALUE if value is larger than largest, lower index
 	 * on no match, negative index -1 on match
 	 */
-	private int findIndex(int value) {
+	int findIndex(int value) {
+		if (readOptimized && size != 0 && size < EYTZINGER_MAX_SIZE) {
+			return findIndexEytzinger(value);
+		}
+		return searchIndex(value);
+	}
+
+	/**
+	 * findIndex on the array itself, for the changes, which would only throw away an Eytzinger layout built for them.
+	 */
+	private int searchIndex(int value) {
 		if (size == 0) {
 			return -1;
 		}
@@ -684,41 +1608,89 @@ public class FastNavIntSet extends AbstractSet<Integer> implements NavigableSet<
 	 */
 	private int searchChunk(int value, int chunkStart) {
 		int[] vals = values;
-		if (value == vals[chunkStart]) {
+		int start = head + chunkStart;
+		if (value == vals[start]) {
 			return chunkStart;
 		}
-		if (value < vals[chunkStart]) {
+		if (value < vals[start]) {
 			return Integer.MIN_VALUE;
 		}
 		int chunkEnd = CHUNK_SIZE + chunkStart > size - 1 ? size - 1 : CHUNK_SIZE + chunkStart;
-		if (vals[chunkEnd] == value) {
+		int end = head + chunkEnd;
+		if (vals[end] == value) {
 			return chunkEnd;
 		}
-		if (value > vals[chunkEnd]) {
+		if (value > vals[end]) {
 			return Integer.MAX_VALUE;
 		}
-		return binarySearch(vals, chunkStart, chunkEnd, value);
+		// back from positions in values to indexes from head; a miss's -(insertion point + 1) shifts the other way
+		int index = IntArrayOps.INSTANCE.search(vals, start, end, value);
+		return index >= 0 ? index - head : index + head;
 	}
 
-	private static int binarySearch(final int[] a, int fromIndex, int toIndex,
-																	int key) {
-		int low = fromIndex;
-		int high = toIndex - 1;
+	/**
+	 * Past this the 1 based descent index could overflow.
+	 */
+	private static final int EYTZINGER_MAX_SIZE = 1 << 29;
 
-		while (low <= high) {
-			int mid = (low + high) >>> 1;
-			int midVal = a[mid];
+	/**
+	 * Same contract as findIndex, answered from the Eytzinger layout.
+	 */
+	private int findIndexEytzinger(int value) {
+		int[] layout = eytzinger;
+		if (layout == null) {
+			layout = buildEytzinger();
+		}
+		int n = size;
+		int k = 1;
+		int touched = 0;
+		while (k <= n) {
+			// Java has no prefetch, so load the line holding the 8 descendants 3 levels down instead. Nothing waits on it,
+			// so it overlaps with the descent like a prefetch would.
+			touched += layout[prefetchIndex(k, n)];
+			k = (k << 1) + (layout[2 * k] < value ? 1 : 0);
+		}
+		// Drop the trailing right turns and the last left turn to land on the smallest element >= value.
+		k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+		if (k == 0) {
+			return Integer.MAX_VALUE;
+		}
+		// size is never negative, so this adds 0, but the JIT can't prove it and has to keep the prefetch loads.
+		int index = layout[2 * k + 1] + (touched & (n >>> 31));
+		if (layout[2 * k] == value) {
+			return index;
+		}
+		return index == 0 ? Integer.MIN_VALUE : -(index + 1);
+	}
 
-			if (midVal < key) {
-				low = mid + 1;
-			}
-			else if (midVal > key) {
-				high = mid - 1;
-			}
-			else {
-				return mid; // key found
-			}
+	/**
+	 * Where node k's descendants 3 levels down start in the layout, capped at the last node. In long since k << 4
+	 * overflows once k reaches 2^27, well within EYTZINGER_MAX_SIZE.
+	 */
+	static int prefetchIndex(int k, int n) {
+		return (int) Math.min((long) k << 4, 2L * n);
+	}
+
+	private int[] buildEytzinger() {
+		int[] layout = new int[2 * size + 2];
+		fillEytzinger(layout, 0, 1);
+		eytzinger = layout;
+		return layout;
+	}
+
+	/**
+	 * In order walk of the implicit tree rooted at k, handing out values from index i onwards.
+	 *
+	 * @return the next index of values to place
+	 */
+	private int fillEytzinger(int[] layout, int i, int k) {
+		if (k <= size) {
+			i = fillEytzinger(layout, i, 2 * k);
+			layout[2 * k] = values[head + i];
+			layout[2 * k + 1] = i;
+			++i;
+			i = fillEytzinger(layout, i, 2 * k + 1);
 		}
-		return -(low + 1);  // key not found.
+		return i;
 	}
 }
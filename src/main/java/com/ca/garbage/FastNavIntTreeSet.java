@@ -0,0 +1,523 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An ascending IntNavigableSet stored as a B+-tree: the elements sit in sorted int[] leaves of up to CHUNK_SIZE ints
+ * that are linked for iteration, under inner nodes that hold a separator and an element count per child. Adds and
+ * removes cost O(log n) plus a shift within one leaf, so it overtakes FastNavIntSet once sets are large and written
+ * to often; counting a range is O(log n) through the child counts.
+ */
+public class FastNavIntTreeSet extends AbstractIntNavigableSet {
+	private static final int DEFAULT_INNER_CAPACITY = 64;
+
+	private final int leafCapacity;
+	private final int innerCapacity;
+	Node root;
+	int size;
+	transient int modCount;
+
+	/**
+	 * Set by insert and delete, which return the new right sibling of a split node instead.
+	 */
+	private boolean changed;
+	private int splitKey;
+
+	abstract static class Node {
+		int count;
+	}
+
+	static final class Leaf extends Node {
+		final int[] keys;
+		Leaf previous;
+		Leaf next;
+
+		Leaf(int capacity) {
+			keys = new int[capacity + 1];
+		}
+	}
+
+	/**
+	 * keys[i] separates children[i] from children[i + 1]: every element of children[i + 1] is >= keys[i] and every
+	 * element of children[i] is below it. sizes[i] is the number of elements under children[i].
+	 */
+	static final class Inner extends Node {
+		final int[] keys;
+		final Node[] children;
+		final int[] sizes;
+
+		Inner(int capacity) {
+			keys = new int[capacity];
+			children = new Node[capacity + 1];
+			sizes = new int[capacity + 1];
+		}
+
+		int total() {
+			int total = 0;
+			for (int i = 0; i < count; ++i) {
+				total += sizes[i];
+			}
+			return total;
+		}
+	}
+
+	FastNavIntTreeSet(int leafCapacity, int innerCapacity) {
+		if (leafCapacity < 4 || innerCapacity < 4) {
+			throw new IllegalArgumentException("capacities must be at least 4");
+		}
+		this.leafCapacity = leafCapacity;
+		this.innerCapacity = innerCapacity;
+		root = new Leaf(leafCapacity);
+	}
+
+	public static FastNavIntTreeSet create() {
+		return new FastNavIntTreeSet(Math.max(4, FastNavIntSet.CHUNK_SIZE), DEFAULT_INNER_CAPACITY);
+	}
+
+	public static FastNavIntTreeSet create(int... values) {
+		FastNavIntTreeSet set = create();
+		for (int value : values) {
+			set.addInt(value);
+		}
+		return set;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		root = new Leaf(leafCapacity);
+		size = 0;
+		++modCount;
+	}
+
+	private static int size(Node node) {
+		return node instanceof Leaf ? node.count : ((Inner) node).total();
+	}
+
+	/**
+	 * @return the child of inner that value belongs under
+	 */
+	private static int childFor(Inner inner, int value) {
+		int low = 0;
+		int high = inner.count - 2;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (inner.keys[mid] <= value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private static int search(Leaf leaf, int value) {
+		return IntArrayOps.INSTANCE.searchRange(leaf.keys, 0, leaf.count, value);
+	}
+
+	private Leaf leafFor(int value) {
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[childFor(inner, value)];
+		}
+		return (Leaf) node;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return search(leafFor(value), value) >= 0;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		Leaf leaf = leafFor(value);
+		int idx = search(leaf, value);
+		int index = idx >= 0 ? (inclusive ? idx : idx + 1) : -(idx + 1);
+		if (index < leaf.count) {
+			return leaf.keys[index];
+		}
+		return leaf.next == null ? NONE : leaf.next.keys[0];
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		Leaf leaf = leafFor(value);
+		int idx = search(leaf, value);
+		int index = idx >= 0 ? (inclusive ? idx : idx - 1) : -(idx + 1) - 1;
+		if (index >= 0) {
+			return leaf.keys[index];
+		}
+		return leaf.previous == null ? NONE : leaf.previous.keys[leaf.previous.count - 1];
+	}
+
+	/**
+	 * @return the number of elements below value
+	 */
+	private int rank(int value) {
+		int rank = 0;
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int child = childFor(inner, value);
+			for (int i = 0; i < child; ++i) {
+				rank += inner.sizes[i];
+			}
+			node = inner.children[child];
+		}
+		int idx = search((Leaf) node, value);
+		return rank + (idx >= 0 ? idx : -(idx + 1));
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		int upper = high == Integer.MAX_VALUE ? size : rank(high + 1);
+		return upper - rank(low);
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		changed = false;
+		Node split = insert(root, value);
+		if (split != null) {
+			Inner newRoot = new Inner(innerCapacity);
+			newRoot.children[0] = root;
+			newRoot.children[1] = split;
+			newRoot.sizes[0] = size(root);
+			newRoot.sizes[1] = size(split);
+			newRoot.keys[0] = splitKey;
+			newRoot.count = 2;
+			root = newRoot;
+		}
+		if (changed) {
+			++size;
+			++modCount;
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the new right sibling if node had to split, with its separator in splitKey, otherwise null
+	 */
+	private Node insert(Node node, int value) {
+		if (node instanceof Leaf) {
+			return insert((Leaf) node, value);
+		}
+		Inner inner = (Inner) node;
+		int child = childFor(inner, value);
+		Node split = insert(inner.children[child], value);
+		if (changed) {
+			++inner.sizes[child];
+		}
+		if (split == null) {
+			return null;
+		}
+		int count = inner.count;
+		System.arraycopy(inner.keys, child, inner.keys, child + 1, count - 1 - child);
+		System.arraycopy(inner.children, child + 1, inner.children, child + 2, count - 1 - child);
+		System.arraycopy(inner.sizes, child + 1, inner.sizes, child + 2, count - 1 - child);
+		inner.keys[child] = splitKey;
+		inner.children[child + 1] = split;
+		int splitSize = size(split);
+		inner.sizes[child + 1] = splitSize;
+		inner.sizes[child] -= splitSize;
+		inner.count = count + 1;
+		return inner.count > innerCapacity ? split(inner) : null;
+	}
+
+	private Node insert(Leaf leaf, int value) {
+		int idx = search(leaf, value);
+		if (idx >= 0) {
+			return null;
+		}
+		int index = -(idx + 1);
+		System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.count - index);
+		leaf.keys[index] = value;
+		++leaf.count;
+		changed = true;
+		return leaf.count > leafCapacity ? split(leaf) : null;
+	}
+
+	private Leaf split(Leaf leaf) {
+		Leaf right = new Leaf(leafCapacity);
+		int keep = leaf.count >>> 1;
+		right.count = leaf.count - keep;
+		System.arraycopy(leaf.keys, keep, right.keys, 0, right.count);
+		leaf.count = keep;
+		right.next = leaf.next;
+		right.previous = leaf;
+		if (leaf.next != null) {
+			leaf.next.previous = right;
+		}
+		leaf.next = right;
+		splitKey = right.keys[0];
+		return right;
+	}
+
+	private Inner split(Inner inner) {
+		Inner right = new Inner(innerCapacity);
+		int keep = inner.count >>> 1;
+		right.count = inner.count - keep;
+		System.arraycopy(inner.children, keep, right.children, 0, right.count);
+		System.arraycopy(inner.sizes, keep, right.sizes, 0, right.count);
+		System.arraycopy(inner.keys, keep, right.keys, 0, right.count - 1);
+		splitKey = inner.keys[keep - 1];
+		Arrays.fill(inner.children, keep, inner.count, null);
+		inner.count = keep;
+		return right;
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		changed = false;
+		delete(root, value);
+		if (!changed) {
+			return false;
+		}
+		if (root instanceof Inner && root.count == 1) {
+			root = ((Inner) root).children[0];
+		}
+		--size;
+		++modCount;
+		return true;
+	}
+
+	private void delete(Node node, int value) {
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			int index = search(leaf, value);
+			if (index >= 0) {
+				System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+				--leaf.count;
+				changed = true;
+			}
+			return;
+		}
+		Inner inner = (Inner) node;
+		int child = childFor(inner, value);
+		delete(inner.children[child], value);
+		if (changed) {
+			--inner.sizes[child];
+			Node target = inner.children[child];
+			int capacity = target instanceof Leaf ? leafCapacity : innerCapacity;
+			if (target.count <= capacity / 4) {
+				rebalance(inner, child);
+			}
+		}
+	}
+
+	/**
+	 * Merges an underfull child with a neighbour, or evens the two out if together they would overfill one node.
+	 */
+	private void rebalance(Inner parent, int child) {
+		if (parent.count < 2) {
+			return;
+		}
+		int left = child + 1 < parent.count ? child : child - 1;
+		Node leftNode = parent.children[left];
+		Node rightNode = parent.children[left + 1];
+		if (leftNode instanceof Leaf) {
+			rebalance(parent, left, (Leaf) leftNode, (Leaf) rightNode);
+		}
+		else {
+			rebalance(parent, left, (Inner) leftNode, (Inner) rightNode);
+		}
+	}
+
+	private void rebalance(Inner parent, int left, Leaf leftLeaf, Leaf rightLeaf) {
+		int total = leftLeaf.count + rightLeaf.count;
+		if (total <= leafCapacity) {
+			System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.count, rightLeaf.count);
+			leftLeaf.count = total;
+			leftLeaf.next = rightLeaf.next;
+			if (rightLeaf.next != null) {
+				rightLeaf.next.previous = leftLeaf;
+			}
+			parent.sizes[left] = total;
+			removeChild(parent, left);
+			return;
+		}
+		int keep = total >>> 1;
+		if (leftLeaf.count > keep) {
+			int moved = leftLeaf.count - keep;
+			System.arraycopy(rightLeaf.keys, 0, rightLeaf.keys, moved, rightLeaf.count);
+			System.arraycopy(leftLeaf.keys, keep, rightLeaf.keys, 0, moved);
+		}
+		else {
+			int moved = keep - leftLeaf.count;
+			System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.count, moved);
+			System.arraycopy(rightLeaf.keys, moved, rightLeaf.keys, 0, rightLeaf.count - moved);
+		}
+		leftLeaf.count = keep;
+		rightLeaf.count = total - keep;
+		parent.keys[left] = rightLeaf.keys[0];
+		parent.sizes[left] = keep;
+		parent.sizes[left + 1] = total - keep;
+	}
+
+	private void rebalance(Inner parent, int left, Inner leftInner, Inner rightInner) {
+		int total = leftInner.count + rightInner.count;
+		int[] keys = new int[total - 1];
+		Node[] children = new Node[total];
+		int[] sizes = new int[total];
+		System.arraycopy(leftInner.keys, 0, keys, 0, leftInner.count - 1);
+		keys[leftInner.count - 1] = parent.keys[left];
+		System.arraycopy(rightInner.keys, 0, keys, leftInner.count, rightInner.count - 1);
+		System.arraycopy(leftInner.children, 0, children, 0, leftInner.count);
+		System.arraycopy(rightInner.children, 0, children, leftInner.count, rightInner.count);
+		System.arraycopy(leftInner.sizes, 0, sizes, 0, leftInner.count);
+		System.arraycopy(rightInner.sizes, 0, sizes, leftInner.count, rightInner.count);
+		if (total <= innerCapacity) {
+			System.arraycopy(keys, 0, leftInner.keys, 0, total - 1);
+			System.arraycopy(children, 0, leftInner.children, 0, total);
+			System.arraycopy(sizes, 0, leftInner.sizes, 0, total);
+			leftInner.count = total;
+			parent.sizes[left] += parent.sizes[left + 1];
+			removeChild(parent, left);
+			return;
+		}
+		int keep = total >>> 1;
+		Arrays.fill(leftInner.children, null);
+		Arrays.fill(rightInner.children, null);
+		System.arraycopy(keys, 0, leftInner.keys, 0, keep - 1);
+		System.arraycopy(children, 0, leftInner.children, 0, keep);
+		System.arraycopy(sizes, 0, leftInner.sizes, 0, keep);
+		leftInner.count = keep;
+		parent.keys[left] = keys[keep - 1];
+		System.arraycopy(keys, keep, rightInner.keys, 0, total - keep - 1);
+		System.arraycopy(children, keep, rightInner.children, 0, total - keep);
+		System.arraycopy(sizes, keep, rightInner.sizes, 0, total - keep);
+		rightInner.count = total - keep;
+		parent.sizes[left] = leftInner.total();
+		parent.sizes[left + 1] = rightInner.total();
+	}
+
+	/**
+	 * Drops children[left + 1] of parent after it was merged into children[left].
+	 */
+	private static void removeChild(Inner parent, int left) {
+		int count = parent.count;
+		System.arraycopy(parent.keys, left + 1, parent.keys, left, count - 2 - left);
+		System.arraycopy(parent.children, left + 2, parent.children, left + 1, count - 2 - left);
+		System.arraycopy(parent.sizes, left + 2, parent.sizes, left + 1, count - 2 - left);
+		parent.children[count - 1] = null;
+		parent.count = count - 1;
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new LeafIterator(low, high, descending);
+	}
+
+	/**
+	 * Walks the linked leaves; whenever the set changed underneath it, it finds its leaf again from the last value it
+	 * returned.
+	 */
+	private final class LeafIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private Leaf leaf;
+		private int index;
+		private long lastReturned = NONE;
+		private boolean canRemove;
+		private int expectedModCount = modCount;
+
+		LeafIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			locate(descending ? high : low, true);
+		}
+
+		/**
+		 * Positions on the first element at or past from in iteration order, leaf being null when there is none.
+		 */
+		private void locate(long from, boolean inclusive) {
+			leaf = null;
+			if (low > high) {
+				return;
+			}
+			long value = descending ? floorValue((int) from, inclusive) : ceilingValue((int) from, inclusive);
+			if (value == NONE || value < low || value > high) {
+				return;
+			}
+			leaf = leafFor((int) value);
+			index = search(leaf, (int) value);
+		}
+
+		private void sync() {
+			if (expectedModCount != modCount) {
+				expectedModCount = modCount;
+				if (lastReturned != NONE) {
+					locate(lastReturned, false);
+				}
+				else {
+					locate(descending ? high : low, true);
+				}
+			}
+		}
+
+		private void step() {
+			if (descending) {
+				if (--index < 0) {
+					leaf = leaf.previous;
+					index = leaf == null ? 0 : leaf.count - 1;
+				}
+			}
+			else if (++index == leaf.count) {
+				leaf = leaf.next;
+				index = 0;
+			}
+			if (leaf != null) {
+				int value = leaf.keys[index];
+				if (value < low || value > high) {
+					leaf = null;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			sync();
+			return leaf != null;
+		}
+
+		@Override
+		public int nextInt() {
+			sync();
+			if (leaf == null) {
+				throw new NoSuchElementException();
+			}
+			int value = leaf.keys[index];
+			lastReturned = value;
+			canRemove = true;
+			step();
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			removeInt((int) lastReturned);
+		}
+	}
+}
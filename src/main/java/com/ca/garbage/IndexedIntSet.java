@@ -0,0 +1,270 @@
+package com.ca.garbage;
+
+import java.util.NoSuchElementException;
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Base for ascending sets kept as sorted ints outside an int[], reached through get(index). Lookups use the same
+ * chunked search as FastNavIntSet.findIndex, navigation and counting work on indexes.
+ */
+abstract class IndexedIntSet extends AbstractIntNavigableSet {
+	/**
+	 * @return the element at index, in [0, size)
+	 */
+	abstract int get(int index);
+
+	/**
+	 * Removes the element at index. Read-only sets keep the default.
+	 */
+	void removeAt(int index) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Same contract as FastNavIntSet.findIndex.
+	 */
+	int findIndex(int value) {
+		int size = size();
+		if (size == 0) {
+			return -1;
+		}
+		int low = 0;
+		int high = (size - 1) / FastNavIntSet.CHUNK_SIZE;
+		int chunkCheck = Integer.MIN_VALUE;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			chunkCheck = searchChunk(value, mid * FastNavIntSet.CHUNK_SIZE, size);
+			if (chunkCheck == Integer.MAX_VALUE) {
+				low = mid + 1;
+			}
+			else if (chunkCheck == Integer.MIN_VALUE) {
+				high = mid - 1;
+			}
+			else {
+				return chunkCheck;
+			}
+		}
+		return chunkCheck;
+	}
+
+	private int searchChunk(int value, int chunkStart, int size) {
+		int start = get(chunkStart);
+		if (value == start) {
+			return chunkStart;
+		}
+		if (value < start) {
+			return Integer.MIN_VALUE;
+		}
+		int chunkEnd = Math.min(size - 1, chunkStart + FastNavIntSet.CHUNK_SIZE);
+		int end = get(chunkEnd);
+		if (value == end) {
+			return chunkEnd;
+		}
+		if (value > end) {
+			return Integer.MAX_VALUE;
+		}
+		int low = chunkStart + 1;
+		int high = chunkEnd - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midValue = get(mid);
+			if (midValue < value) {
+				low = mid + 1;
+			}
+			else if (midValue > value) {
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * @return the index of the first element >= value (> value if not inclusive), in [0, size]
+	 */
+	int ceilingIndex(int value, boolean inclusive) {
+		return ceilingIndexOf(findIndex(value), inclusive);
+	}
+
+	/**
+	 * ceilingIndex from a findIndex result already at hand.
+	 */
+	int ceilingIndexOf(int idx, boolean inclusive) {
+		if (idx == Integer.MIN_VALUE) {
+			return 0;
+		}
+		if (idx == Integer.MAX_VALUE) {
+			return size();
+		}
+		if (idx >= 0) {
+			return inclusive ? idx : idx + 1;
+		}
+		return -(idx + 1);
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		int idx = findIndex(value);
+		return idx >= 0 && idx != Integer.MAX_VALUE;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		int idx = ceilingIndex(value, inclusive);
+		return idx < size() ? get(idx) : NONE;
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		int idx = ceilingIndex(value, !inclusive) - 1;
+		return idx >= 0 ? get(idx) : NONE;
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		return Math.max(0, ceilingIndex(high, false) - ceilingIndex(low, true));
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		if (low > high) {
+			return new IndexIterator(0, 0, descending);
+		}
+		return new IndexIterator(ceilingIndex((int) low, true), ceilingIndex((int) high, false), descending);
+	}
+
+	@Override
+	protected Spliterator.OfInt rangeSpliterator(long low, long high, boolean descending) {
+		if (low > high) {
+			return new IndexSpliterator(0, 0, descending);
+		}
+		return new IndexSpliterator(ceilingIndex((int) low, true), ceilingIndex((int) high, false), descending);
+	}
+
+	/**
+	 * Walks the indexes [from, to), removing through removeAt.
+	 */
+	private final class IndexIterator implements PrimitiveIterator.OfInt {
+		private final boolean descending;
+		private int end;
+		private int index;
+		private int lastReturned = -1;
+
+		IndexIterator(int from, int to, boolean descending) {
+			this.descending = descending;
+			if (from >= to) {
+				index = end = 0;
+			}
+			else {
+				index = descending ? to - 1 : from;
+				end = descending ? from - 1 : to;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index != end;
+		}
+
+		@Override
+		public int nextInt() {
+			if (index == end) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = index;
+			int value = get(index);
+			index += descending ? -1 : 1;
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned < 0) {
+				throw new IllegalStateException("next has not been called");
+			}
+			removeAt(lastReturned);
+			if (!descending) {
+				--index;
+				--end;
+			}
+			lastReturned = -1;
+		}
+	}
+
+	/**
+	 * IntArraySpliterator over the indexes [index, fence), through get.
+	 */
+	private final class IndexSpliterator implements Spliterator.OfInt {
+		private final boolean descending;
+		private int index;
+		private int fence;
+
+		IndexSpliterator(int index, int fence, boolean descending) {
+			this.index = index;
+			this.fence = Math.max(index, fence);
+			this.descending = descending;
+		}
+
+		@Override
+		public OfInt trySplit() {
+			int lo = index;
+			int mid = (lo + fence) >>> 1;
+			if (lo >= mid) {
+				return null;
+			}
+			if (descending) {
+				IndexSpliterator prefix = new IndexSpliterator(mid, fence, true);
+				fence = mid;
+				return prefix;
+			}
+			else {
+				index = mid;
+				return new IndexSpliterator(lo, mid, false);
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (index >= fence) {
+				return false;
+			}
+			if (descending) {
+				--fence;
+				action.accept(get(fence));
+			}
+			else {
+				action.accept(get(index));
+				++index;
+			}
+			return true;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return SPLITERATOR_CHARACTERISTICS;
+		}
+
+		@Override
+		public Comparator<? super Integer> getComparator() {
+			return descending ? FastNavIntSet.REVERSE : null;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.ca.garbage;
+
+/**
+ * The int[] scanning primitives behind searchChunk, containsAll and equals. There is a scalar implementation for every
+ * JVM and, in the multi-release jar, a Vector API one for JDK 21+ that is picked at class load when the
+ * jdk.incubator.vector module is available.
+ */
+abstract class IntArrayOps {
+	static final IntArrayOps INSTANCE = IntArrayOpsProvider.create();
+
+	/**
+	 * Same contract as Arrays.binarySearch over a sorted a[fromIndex, toIndex), but only meant for chunk sized ranges:
+	 * the Vector implementation scans the range linearly, a vector at a time. Use searchRange for anything longer.
+	 */
+	abstract int search(int[] a, int fromIndex, int toIndex, int key);
+
+	/**
+	 * search over a range of any length: bisects it down to at most FastNavIntSet.CHUNK_SIZE ints, then hands that
+	 * window to search.
+	 */
+	final int searchRange(int[] a, int fromIndex, int toIndex, int key) {
+		int low = fromIndex;
+		int high = toIndex;
+		while (high - low > FastNavIntSet.CHUNK_SIZE) {
+			int mid = (low + high) >>> 1;
+			int midVal = a[mid];
+			if (midVal < key) {
+				low = mid + 1;
+			}
+			else if (midVal > key) {
+				high = mid;
+			}
+			else {
+				return mid;
+			}
+		}
+		return search(a, low, high, key);
+	}
+
+	/**
+	 * @return the first offset i < length where a[aFromIndex + i] != b[bFromIndex + i], -1 if there is none
+	 */
+	abstract int mismatch(int[] a, int aFromIndex, int[] b, int bFromIndex, int length);
+}
@@ -0,0 +1,13 @@
+package com.ca.garbage;
+
+/**
+ * Picks the IntArrayOps implementation. This is the Java 8 version, the multi-release jar carries a JDK 21 one.
+ */
+final class IntArrayOpsProvider {
+	private IntArrayOpsProvider() {
+	}
+
+	static IntArrayOps create() {
+		return new ScalarIntArrayOps();
+	}
+}
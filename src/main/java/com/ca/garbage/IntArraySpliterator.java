@@ -0,0 +1,98 @@
+package com.ca.garbage;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Spliterator over a sorted [index, fence) range of an int array, split evenly by index. When descending the range is
+ * traversed from fence - 1 down to index.
+ */
+final class IntArraySpliterator implements Spliterator.OfInt {
+	private static final int CHARACTERISTICS = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED
+																						 | Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.NONNULL;
+	private final int[] values;
+	private final boolean descending;
+	private int index;
+	private int fence;
+
+	IntArraySpliterator(int[] values, int index, int fence, boolean descending) {
+		this.values = values;
+		this.index = index;
+		this.fence = fence;
+		this.descending = descending;
+	}
+
+	@Override
+	public OfInt trySplit() {
+		int lo = index;
+		int mid = (lo + fence) >>> 1;
+		if (lo >= mid) {
+			return null;
+		}
+		if (descending) {
+			IntArraySpliterator prefix = new IntArraySpliterator(values, mid, fence, true);
+			fence = mid;
+			return prefix;
+		}
+		else {
+			index = mid;
+			return new IntArraySpliterator(values, lo, mid, false);
+		}
+	}
+
+	@Override
+	public boolean tryAdvance(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		if (index >= fence) {
+			return false;
+		}
+		if (descending) {
+			--fence;
+			action.accept(values[fence]);
+		}
+		else {
+			action.accept(values[index]);
+			++index;
+		}
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(IntConsumer action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int[] vals = values;
+		int lo = index;
+		int hi = fence;
+		index = hi;
+		if (descending) {
+			for (int i = hi - 1; i >= lo; --i) {
+				action.accept(vals[i]);
+			}
+		}
+		else {
+			for (int i = lo; i < hi; ++i) {
+				action.accept(vals[i]);
+			}
+		}
+	}
+
+	@Override
+	public long estimateSize() {
+		return fence - index;
+	}
+
+	@Override
+	public int characteristics() {
+		return CHARACTERISTICS;
+	}
+
+	@Override
+	public Comparator<? super Integer> getComparator() {
+		return descending ? FastNavIntSet.REVERSE : null;
+	}
+}
@@ -0,0 +1,74 @@
+package com.ca.garbage;
+
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A NavigableSet of Integer with unboxed counterparts for the lookup and navigation methods. All methods follow the
+ * order of the set, so lowerInt on a reversed set returns the numerically larger neighbour, just like lower does.
+ *
+ * The plain forms throw NoSuchElementException when there is no such element, the OrElse forms return the given
+ * missing value instead.
+ */
+public interface IntNavigableSet extends NavigableSet<Integer> {
+	boolean containsInt(int value);
+
+	boolean addInt(int value);
+
+	boolean removeInt(int value);
+
+	int firstInt() throws NoSuchElementException;
+
+	int lastInt() throws NoSuchElementException;
+
+	int lowerInt(int value) throws NoSuchElementException;
+
+	int floorInt(int value) throws NoSuchElementException;
+
+	int ceilingInt(int value) throws NoSuchElementException;
+
+	int higherInt(int value) throws NoSuchElementException;
+
+	int lowerIntOrElse(int value, int missing);
+
+	int floorIntOrElse(int value, int missing);
+
+	int ceilingIntOrElse(int value, int missing);
+
+	int higherIntOrElse(int value, int missing);
+
+	int pollFirstIntOrElse(int missing);
+
+	int pollLastIntOrElse(int missing);
+
+	PrimitiveIterator.OfInt intIterator();
+
+	void forEachInt(IntConsumer action);
+
+	/**
+	 * @return a SIZED, SORTED, DISTINCT and ORDERED spliterator, reporting the set's order through getComparator.
+	 * Sets that reach their elements by index split it evenly by index, the others halve the range of values left
+	 */
+	Spliterator.OfInt intSpliterator();
+
+	default IntStream intStream() {
+		return StreamSupport.intStream(intSpliterator(), false);
+	}
+
+	@Override
+	IntNavigableSet descendingSet();
+
+	@Override
+	IntNavigableSet subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive);
+
+	@Override
+	IntNavigableSet headSet(Integer toElement, boolean inclusive);
+
+	@Override
+	IntNavigableSet tailSet(Integer fromElement, boolean inclusive);
+}
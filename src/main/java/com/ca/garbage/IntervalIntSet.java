@@ -0,0 +1,420 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An ascending IntNavigableSet stored as sorted, disjoint and non-adjacent runs [start, end], both ends inclusive.
+ * Memory and the cost of every operation depend on the number of runs, not elements: lookups, navigation and the range
+ * operations take O(log runs), plus the shifting of the run arrays when runs are created or merged away.
+ *
+ * The set can hold up to 2^32 elements, more than size() can report; longSize() gives the exact count.
+ */
+public class IntervalIntSet extends AbstractIntNavigableSet {
+	int[] starts;
+	int[] ends;
+	int runCount;
+	long size;
+	transient int modCount;
+
+	/**
+	 * Receives a closed range of ints.
+	 */
+	@FunctionalInterface
+	public interface RangeConsumer {
+		void accept(int from, int to);
+	}
+
+	public IntervalIntSet() {
+		starts = new int[4];
+		ends = new int[4];
+	}
+
+	public static IntervalIntSet create() {
+		return new IntervalIntSet();
+	}
+
+	public static IntervalIntSet create(int... values) {
+		IntervalIntSet set = new IntervalIntSet();
+		for (int value : values) {
+			set.addInt(value);
+		}
+		return set;
+	}
+
+	/**
+	 * @return a set holding every int in [from, to]
+	 */
+	public static IntervalIntSet ofRange(int from, int to) {
+		IntervalIntSet set = new IntervalIntSet();
+		set.addRange(from, to);
+		return set;
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	public long longSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of disjoint runs the set is made of
+	 */
+	public int runCount() {
+		return runCount;
+	}
+
+	@Override
+	public void clear() {
+		runCount = 0;
+		size = 0;
+		++modCount;
+	}
+
+	private static long length(int start, int end) {
+		return (long) end - start + 1;
+	}
+
+	/**
+	 * @return the last run starting at or before value, -1 if there is none
+	 */
+	private int runFor(long value) {
+		int low = 0;
+		int high = runCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (starts[mid] <= value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return high;
+	}
+
+	/**
+	 * @return the first run ending at or after value, runCount if there is none
+	 */
+	private int firstRunEndingFrom(long value) {
+		int low = 0;
+		int high = runCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (ends[mid] < value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Replaces the runs [from, to) with count new runs, leaving their contents to the caller.
+	 */
+	private void replaceRuns(int from, int to, int count) {
+		int newCount = runCount - (to - from) + count;
+		if (newCount > starts.length) {
+			int capacity = Math.max(newCount, runCount + (runCount >> 1) + 1);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		System.arraycopy(starts, to, starts, from + count, runCount - to);
+		System.arraycopy(ends, to, ends, from + count, runCount - to);
+		runCount = newCount;
+	}
+
+	private long lengthOfRuns(int from, int to) {
+		long total = 0;
+		for (int i = from; i < to; ++i) {
+			total += length(starts[i], ends[i]);
+		}
+		return total;
+	}
+
+	/**
+	 * Adds every int in [from, to], merging with the runs it overlaps or touches.
+	 *
+	 * @return true if the set changed
+	 */
+	public boolean addRange(int from, int to) {
+		if (from > to) {
+			throw new IllegalArgumentException("from > to");
+		}
+		int first = firstRunEndingFrom((long) from - 1);
+		int last = runFor((long) to + 1);
+		if (first <= last && starts[first] <= from && ends[first] >= to) {
+			return false;
+		}
+		int start = first <= last ? Math.min(from, starts[first]) : from;
+		int end = first <= last ? Math.max(to, ends[last]) : to;
+		long removed = lengthOfRuns(first, last + 1);
+		replaceRuns(first, Math.max(first, last + 1), 1);
+		starts[first] = start;
+		ends[first] = end;
+		size += length(start, end) - removed;
+		++modCount;
+		return true;
+	}
+
+	/**
+	 * Removes every int in [from, to], splitting the run it falls within if needed.
+	 *
+	 * @return true if the set changed
+	 */
+	public boolean removeRange(int from, int to) {
+		if (from > to) {
+			throw new IllegalArgumentException("from > to");
+		}
+		int first = firstRunEndingFrom(from);
+		int last = runFor(to);
+		if (first > last) {
+			return false;
+		}
+		int leftStart = starts[first];
+		int rightEnd = ends[last];
+		long removed = lengthOfRuns(first, last + 1);
+		int kept = (leftStart < from ? 1 : 0) + (rightEnd > to ? 1 : 0);
+		replaceRuns(first, last + 1, kept);
+		int idx = first;
+		if (leftStart < from) {
+			starts[idx] = leftStart;
+			ends[idx] = from - 1;
+			removed -= length(leftStart, from - 1);
+			++idx;
+		}
+		if (rightEnd > to) {
+			starts[idx] = to + 1;
+			ends[idx] = rightEnd;
+			removed -= length(to + 1, rightEnd);
+		}
+		size -= removed;
+		++modCount;
+		return true;
+	}
+
+	/**
+	 * @return true if every int in [from, to] is in the set
+	 */
+	public boolean containsRange(int from, int to) {
+		if (from > to) {
+			throw new IllegalArgumentException("from > to");
+		}
+		int run = runFor(from);
+		return run >= 0 && ends[run] >= to;
+	}
+
+	/**
+	 * @return the smallest int >= value that is not in the set, missing if every int from value up is in the set
+	 */
+	public int nextAbsentOrElse(int value, int missing) {
+		int run = runFor(value);
+		if (run < 0 || ends[run] < value) {
+			return value;
+		}
+		return ends[run] == Integer.MAX_VALUE ? missing : ends[run] + 1;
+	}
+
+	public int nextAbsent(int value) throws NoSuchElementException {
+		int run = runFor(value);
+		if (run < 0 || ends[run] < value) {
+			return value;
+		}
+		if (ends[run] == Integer.MAX_VALUE) {
+			throw new NoSuchElementException();
+		}
+		return ends[run] + 1;
+	}
+
+	/**
+	 * Passes the runs overlapping [from, to], clipped to it, in ascending order.
+	 */
+	public void forEachRun(int from, int to, RangeConsumer action) {
+		for (int run = firstRunEndingFrom(from); run < runCount && starts[run] <= to; ++run) {
+			action.accept(Math.max(from, starts[run]), Math.min(to, ends[run]));
+		}
+	}
+
+	/**
+	 * Passes the maximal ranges within [from, to] that hold no element, in ascending order.
+	 */
+	public void forEachGap(int from, int to, RangeConsumer action) {
+		long next = from;
+		for (int run = firstRunEndingFrom(from); run < runCount && starts[run] <= to; ++run) {
+			if (starts[run] > next) {
+				action.accept((int) next, starts[run] - 1);
+			}
+			next = (long) ends[run] + 1;
+		}
+		if (next <= to) {
+			action.accept((int) next, to);
+		}
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		int run = runFor(value);
+		return run >= 0 && ends[run] >= value;
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		return addRange(value, value);
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		return removeRange(value, value);
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		long target = inclusive ? value : (long) value + 1;
+		int run = firstRunEndingFrom(target);
+		if (run == runCount) {
+			return NONE;
+		}
+		return Math.max(target, starts[run]);
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		long target = inclusive ? value : (long) value - 1;
+		int run = runFor(target);
+		if (run < 0) {
+			return NONE;
+		}
+		return Math.min(target, ends[run]);
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		long count = 0;
+		for (int run = firstRunEndingFrom(low); run < runCount && starts[run] <= high; ++run) {
+			count += length(Math.max(low, starts[run]), Math.min(high, ends[run]));
+		}
+		return (int) Math.min(count, Integer.MAX_VALUE);
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new RunIterator(low, high, descending);
+	}
+
+	/**
+	 * Counts through the runs one value at a time; whenever the set changed underneath it, it finds its run again from
+	 * the last value it returned.
+	 */
+	private final class RunIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private int run;
+		private long next;
+		private long lastReturned = NONE;
+		private boolean canRemove;
+		private int expectedModCount = modCount;
+
+		RunIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			locate(descending ? high : low);
+		}
+
+		/**
+		 * Positions on the first value at or past from in iteration order.
+		 */
+		private void locate(long from) {
+			next = NONE;
+			if (from < low || from > high) {
+				return;
+			}
+			if (descending) {
+				run = runFor(from);
+				if (run >= 0) {
+					next = Math.min(from, ends[run]);
+				}
+			}
+			else {
+				run = firstRunEndingFrom(from);
+				if (run < runCount) {
+					next = Math.max(from, starts[run]);
+				}
+			}
+			if (next != NONE && (next < low || next > high)) {
+				next = NONE;
+			}
+		}
+
+		private void sync() {
+			if (expectedModCount != modCount) {
+				expectedModCount = modCount;
+				if (lastReturned != NONE) {
+					locate(descending ? lastReturned - 1 : lastReturned + 1);
+				}
+				else {
+					locate(descending ? high : low);
+				}
+			}
+		}
+
+		private long step(long value) {
+			if (descending) {
+				if (value > starts[run]) {
+					return value - 1 >= low ? value - 1 : NONE;
+				}
+				if (--run < 0) {
+					return NONE;
+				}
+				return ends[run] >= low ? ends[run] : NONE;
+			}
+			if (value < ends[run]) {
+				return value + 1 <= high ? value + 1 : NONE;
+			}
+			if (++run == runCount) {
+				return NONE;
+			}
+			return starts[run] <= high ? starts[run] : NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			sync();
+			return next != NONE;
+		}
+
+		@Override
+		public int nextInt() {
+			sync();
+			if (next == NONE) {
+				throw new NoSuchElementException();
+			}
+			long value = next;
+			lastReturned = value;
+			canRemove = true;
+			next = step(value);
+			return (int) value;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			removeInt((int) lastReturned);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.ca.garbage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A read-only ascending IntNavigableSet answered straight from a memory-mapped file, so opening one is O(1) no matter
+ * its size and the pages are shared through the page cache by every process that maps the same file. Lookups use the
+ * same chunked search as FastNavIntSet.findIndex (see IndexedIntSet), on the mapped ints.
+ *
+ * The file is a 16 byte header (MAGIC, FORMAT, element count, reserved) followed by the elements as ascending little
+ * endian ints; write produces it. Files over 2GB are mapped in several segments.
+ */
+public class MappedIntSet extends IndexedIntSet {
+	static final int MAGIC = 0x464E4953;
+	static final int FORMAT = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int DEFAULT_SEGMENT_SHIFT = 28;
+	private static final int WRITE_BUFFER_INTS = 1 << 14;
+
+	private final IntBuffer[] segments;
+	private final int segmentShift;
+	private final int segmentMask;
+	private final int size;
+
+	private MappedIntSet(IntBuffer[] segments, int segmentShift, int size) {
+		this.segments = segments;
+		this.segmentShift = segmentShift;
+		this.segmentMask = (1 << segmentShift) - 1;
+		this.size = size;
+	}
+
+	public static MappedIntSet open(Path path) throws IOException {
+		return open(path, DEFAULT_SEGMENT_SHIFT);
+	}
+
+	/**
+	 * @param segmentShift log2 of the number of ints mapped per segment
+	 */
+	static MappedIntSet open(Path path, int segmentShift) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0) {
+					throw new IOException("Truncated header in " + path);
+				}
+			}
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a MappedIntSet file: " + path);
+			}
+			int format = header.getInt();
+			if (format != FORMAT) {
+				throw new IOException("Unknown MappedIntSet format " + format + " in " + path);
+			}
+			int size = header.getInt();
+			if (size < 0 || channel.size() < HEADER_BYTES + 4L * size) {
+				throw new IOException("Truncated MappedIntSet file: " + path);
+			}
+			int segmentCount = size == 0 ? 0 : ((size - 1) >>> segmentShift) + 1;
+			IntBuffer[] segments = new IntBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; ++i) {
+				long first = (long) i << segmentShift;
+				long ints = Math.min(1L << segmentShift, size - first);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 4 * first, 4 * ints)
+					.order(ByteOrder.LITTLE_ENDIAN)
+					.asIntBuffer();
+			}
+			return new MappedIntSet(segments, segmentShift, size);
+		}
+	}
+
+	/**
+	 * Streams the elements of set, in ascending order whatever the order of the set, to a temporary file next to path
+	 * and then renames it over path, so processes that still map an older file at path keep reading it whole instead of
+	 * faulting on a truncated mapping. The new file gets the permissions of the one it replaces, or the umask's for a new
+	 * path, so a set file shared between users stays readable by them.
+	 */
+	public static void write(FastNavIntSet set, Path path) throws IOException {
+		Path absolute = path.toAbsolutePath();
+		Path temp = createSibling(absolute);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(4 * WRITE_BUFFER_INTS).order(ByteOrder.LITTLE_ENDIAN);
+				buffer.putInt(MAGIC).putInt(FORMAT).putInt(set.size).putInt(0);
+				for (int i = 0; i < set.size; ++i) {
+					if (!buffer.hasRemaining()) {
+						drain(buffer, channel);
+					}
+					buffer.putInt(set.elementAt(i));
+				}
+				drain(buffer, channel);
+				channel.force(false);
+			}
+			copyPermissions(absolute, temp);
+			Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Creates an empty file next to path with Files.createFile rather than createTempFile, which would make it owner
+	 * only.
+	 */
+	private static Path createSibling(Path path) throws IOException {
+		while (true) {
+			String name = path.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+			try {
+				return Files.createFile(path.resolveSibling(name));
+			}
+			catch (FileAlreadyExistsException taken) {
+				// try another name
+			}
+		}
+	}
+
+	private static void copyPermissions(Path from, Path to) throws IOException {
+		if (Files.exists(from) && Files.getFileStore(to).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+		}
+	}
+
+	private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	int get(int index) {
+		return segments[index >>> segmentShift].get(index & segmentMask);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
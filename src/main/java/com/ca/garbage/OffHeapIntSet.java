@@ -0,0 +1,291 @@
+package com.ca.garbage;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * An ascending IntNavigableSet kept off heap in fixed size direct memory segments, so hundreds of millions of ints
+ * don't become humongous heap arrays. The heap only holds the segment table. Growing adds a segment instead of copying
+ * everything, and inserts and removes shift the elements after them like FastNavIntSet does, segment by segment.
+ *
+ * The memory is released by close(), after which the set must not be used; without it the segments are freed when
+ * they are garbage collected.
+ */
+public class OffHeapIntSet extends IndexedIntSet implements Closeable {
+	private static final int DEFAULT_SEGMENT_SHIFT = 20;
+	private static final int MOVE_BLOCK = 1 << 12;
+
+	private final int segmentShift;
+	private final int segmentSize;
+	private final int segmentMask;
+	private ByteBuffer[] memory;
+	private IntBuffer[] segments;
+	private int segmentCount;
+	private int size;
+	private boolean closed;
+	/**
+	 * Scratch space shifts copy through, see move.
+	 */
+	private final int[] moveBuffer = new int[MOVE_BLOCK];
+
+	OffHeapIntSet(int segmentShift) {
+		this.segmentShift = segmentShift;
+		this.segmentSize = 1 << segmentShift;
+		this.segmentMask = segmentSize - 1;
+		memory = new ByteBuffer[4];
+		segments = new IntBuffer[4];
+	}
+
+	public static OffHeapIntSet create() {
+		return new OffHeapIntSet(DEFAULT_SEGMENT_SHIFT);
+	}
+
+	public static OffHeapIntSet create(int... values) {
+		return create(DEFAULT_SEGMENT_SHIFT, values);
+	}
+
+	static OffHeapIntSet create(int segmentShift, int[] values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		OffHeapIntSet set = new OffHeapIntSet(segmentShift);
+		for (int value : sorted) {
+			if (set.size == 0 || set.get(set.size - 1) != value) {
+				set.ensureCapacity(set.size + 1);
+				set.set(set.size++, value);
+			}
+		}
+		return set;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("OffHeapIntSet is closed");
+		}
+	}
+
+	/**
+	 * Checks closed too, since iterators and views reach the segments through here without going through size().
+	 */
+	@Override
+	int get(int index) {
+		checkOpen();
+		return segments[index >>> segmentShift].get(index & segmentMask);
+	}
+
+	private void set(int index, int value) {
+		segments[index >>> segmentShift].put(index & segmentMask, value);
+	}
+
+	private long capacity() {
+		return (long) segmentCount << segmentShift;
+	}
+
+	private void ensureCapacity(int required) {
+		while (capacity() < required) {
+			if (segmentCount == segments.length) {
+				memory = Arrays.copyOf(memory, segmentCount * 2);
+				segments = Arrays.copyOf(segments, segmentCount * 2);
+			}
+			ByteBuffer block = ByteBuffer.allocateDirect(segmentSize * 4).order(ByteOrder.nativeOrder());
+			memory[segmentCount] = block;
+			segments[segmentCount] = block.asIntBuffer();
+			++segmentCount;
+		}
+	}
+
+	/**
+	 * Frees segments past the one holding the last element, keeping one spare so add/remove at a boundary doesn't
+	 * allocate and free over and over.
+	 */
+	private void releaseTail() {
+		int needed = size == 0 ? 1 : ((size - 1) >>> segmentShift) + 2;
+		while (segmentCount > needed) {
+			--segmentCount;
+			DirectMemory.free(memory[segmentCount]);
+			memory[segmentCount] = null;
+			segments[segmentCount] = null;
+		}
+	}
+
+	@Override
+	public int size() {
+		checkOpen();
+		return size;
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		checkOpen();
+		int idx = findIndex(value);
+		if (idx >= 0 && idx != Integer.MAX_VALUE) {
+			return false;
+		}
+		int insertAt = ceilingIndexOf(idx, true);
+		ensureCapacity(size + 1);
+		shiftRight(insertAt);
+		set(insertAt, value);
+		++size;
+		return true;
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		checkOpen();
+		int idx = findIndex(value);
+		if (idx < 0 || idx == Integer.MAX_VALUE) {
+			return false;
+		}
+		removeAt(idx);
+		return true;
+	}
+
+	@Override
+	void removeAt(int index) {
+		shiftLeft(index);
+		--size;
+		releaseTail();
+	}
+
+	/**
+	 * Moves [from, size) up one slot, from the last segment down, carrying each segment's last element into the next.
+	 */
+	private void shiftRight(int from) {
+		if (from == size) {
+			return;
+		}
+		int lastSegment = size >>> segmentShift;
+		int fromSegment = from >>> segmentShift;
+		for (int segment = lastSegment; segment >= fromSegment; --segment) {
+			IntBuffer buffer = segments[segment];
+			int low = segment == fromSegment ? from & segmentMask : 0;
+			int high = segment == lastSegment ? size & segmentMask : segmentMask;
+			if (segment != lastSegment) {
+				segments[segment + 1].put(0, buffer.get(segmentMask));
+			}
+			move(buffer, low, high, 1);
+		}
+	}
+
+	/**
+	 * Moves [from + 1, size) down one slot, pulling each segment's first element into the previous one.
+	 */
+	private void shiftLeft(int from) {
+		int lastSegment = (size - 1) >>> segmentShift;
+		int fromSegment = from >>> segmentShift;
+		for (int segment = fromSegment; segment <= lastSegment; ++segment) {
+			IntBuffer buffer = segments[segment];
+			int low = segment == fromSegment ? from & segmentMask : 0;
+			int high = segment == lastSegment ? (size - 1) & segmentMask : segmentMask;
+			move(buffer, low + 1, high + 1, -1);
+			if (segment != lastSegment) {
+				buffer.put(segmentMask, segments[segment + 1].get(0));
+			}
+		}
+	}
+
+	/**
+	 * Moves buffer[from, to) by distance within the segment with bulk copies, a block of MOVE_BLOCK ints at a time,
+	 * starting from the end the elements move towards. The blocks go through moveBuffer because IntBuffer's bulk put
+	 * makes no promise for overlapping views of the same memory.
+	 */
+	private void move(IntBuffer buffer, int from, int to, int distance) {
+		IntBuffer source = buffer.duplicate();
+		IntBuffer target = buffer.duplicate();
+		int remaining = to - from;
+		while (remaining > 0) {
+			int length = Math.min(remaining, MOVE_BLOCK);
+			int start = distance > 0 ? from + remaining - length : to - remaining;
+			source.position(start);
+			source.get(moveBuffer, 0, length);
+			target.position(start + distance);
+			target.put(moveBuffer, 0, length);
+			remaining -= length;
+		}
+	}
+
+	@Override
+	public void clear() {
+		checkOpen();
+		size = 0;
+		releaseTail();
+	}
+
+	/**
+	 * Frees the off-heap memory. Calling it again does nothing.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		for (int i = 0; i < segmentCount; ++i) {
+			DirectMemory.free(memory[i]);
+		}
+		memory = null;
+		segments = null;
+		segmentCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * Frees direct buffers ahead of garbage collection: through Unsafe.invokeCleaner on Java 9+ and the buffer's
+	 * cleaner on Java 8. If neither is reachable the buffer is left to the collector.
+	 */
+	private static final class DirectMemory {
+		private static final Object UNSAFE;
+		private static final Method INVOKE_CLEANER;
+		private static final Method CLEANER;
+		private static final Method CLEAN;
+
+		static {
+			Object unsafe = null;
+			Method invokeCleaner = null;
+			Method cleaner = null;
+			Method clean = null;
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				unsafe = theUnsafe.get(null);
+			}
+			catch (ReflectiveOperationException | RuntimeException e) {
+				invokeCleaner = null;
+				try {
+					cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+					clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+				}
+				catch (ReflectiveOperationException | RuntimeException ignored) {
+					cleaner = null;
+				}
+			}
+			UNSAFE = unsafe;
+			INVOKE_CLEANER = invokeCleaner;
+			CLEANER = cleaner;
+			CLEAN = clean;
+		}
+
+		static void free(ByteBuffer buffer) {
+			try {
+				if (INVOKE_CLEANER != null) {
+					INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				}
+				else if (CLEANER != null) {
+					Object cleaner = CLEANER.invoke(buffer);
+					if (cleaner != null) {
+						CLEAN.invoke(cleaner);
+					}
+				}
+			}
+			catch (ReflectiveOperationException ignored) {
+				// left to the garbage collector
+			}
+		}
+	}
+}
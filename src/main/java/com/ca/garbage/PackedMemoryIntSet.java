@@ -0,0 +1,417 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An ascending IntNavigableSet kept in a packed memory array. The values array is cut into fixed size segments, each
+ * holding its elements packed at the segment start and leaving the rest as a gap. An insert only shifts within one
+ * segment. When that segment is full the smallest enclosing window of segments (aligned, doubling in size) whose
+ * density is still below its upper threshold is spread out evenly, giving amortized O(log^2 n) inserts and removes
+ * while lookups and scans stay on a mostly contiguous array.
+ *
+ * Thresholds are interpolated per window level, from the leaf (one segment) to the root (the whole array). Past the
+ * root thresholds the array doubles or halves.
+ */
+public class PackedMemoryIntSet extends AbstractIntNavigableSet {
+	private static final int SEGMENT_SHIFT = 6;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	private static final int MAX_SEGMENTS = 1 << (30 - SEGMENT_SHIFT);
+
+	private static final double LEAF_UPPER = 1.0;
+	private static final double ROOT_UPPER = 0.75;
+	private static final double LEAF_LOWER = 0.125;
+	private static final double ROOT_LOWER = 0.25;
+
+	/**
+	 * Below this a segment's window gets rebalanced. While there is more than one segment every segment holds at
+	 * least one element, which lets segmentFor look at segment heads only.
+	 */
+	private static final int MIN_SEGMENT_COUNT = (int) (SEGMENT_SIZE * LEAF_LOWER);
+
+	int[] values;
+	int[] counts;
+	int size;
+	transient int modCount;
+
+	public PackedMemoryIntSet() {
+		values = new int[SEGMENT_SIZE];
+		counts = new int[1];
+	}
+
+	public static PackedMemoryIntSet create() {
+		return new PackedMemoryIntSet();
+	}
+
+	public static PackedMemoryIntSet create(int... values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		PackedMemoryIntSet set = new PackedMemoryIntSet();
+		int segments = 1;
+		while (segments < MAX_SEGMENTS && distinct > segments * SEGMENT_SIZE * ROOT_UPPER) {
+			segments <<= 1;
+		}
+		set.resize(sorted, distinct, segments);
+		return set;
+	}
+
+	private int segments() {
+		return counts.length;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		values = new int[SEGMENT_SIZE];
+		counts = new int[1];
+		size = 0;
+		++modCount;
+	}
+
+	/**
+	 * @return the last segment whose first element is <= value, or 0 if there is none
+	 */
+	private int segmentFor(int value) {
+		int low = 0;
+		int high = segments() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (values[mid << SEGMENT_SHIFT] <= value) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private int searchSegment(int segment, int value) {
+		int start = segment << SEGMENT_SHIFT;
+		return Arrays.binarySearch(values, start, start + counts[segment], value);
+	}
+
+	/**
+	 * @return the slot of the smallest element >= value (> value if not inclusive), -1 if there is none
+	 */
+	int ceilingSlot(int value, boolean inclusive) {
+		if (size == 0) {
+			return -1;
+		}
+		int segment = segmentFor(value);
+		int idx = searchSegment(segment, value);
+		int slot = idx >= 0 ? (inclusive ? idx : idx + 1) : -(idx + 1);
+		if (slot < (segment << SEGMENT_SHIFT) + counts[segment]) {
+			return slot;
+		}
+		return segment + 1 < segments() ? (segment + 1) << SEGMENT_SHIFT : -1;
+	}
+
+	/**
+	 * @return the slot of the largest element <= value (< value if not inclusive), -1 if there is none
+	 */
+	int floorSlot(int value, boolean inclusive) {
+		if (size == 0) {
+			return -1;
+		}
+		int segment = segmentFor(value);
+		int idx = searchSegment(segment, value);
+		int slot = idx >= 0 ? (inclusive ? idx : idx - 1) : -(idx + 1) - 1;
+		if (slot >= segment << SEGMENT_SHIFT) {
+			return slot;
+		}
+		return segment > 0 ? lastSlot(segment - 1) : -1;
+	}
+
+	private int lastSlot(int segment) {
+		return (segment << SEGMENT_SHIFT) + counts[segment] - 1;
+	}
+
+	private int nextSlot(int slot) {
+		int segment = slot >>> SEGMENT_SHIFT;
+		if ((slot & SEGMENT_MASK) + 1 < counts[segment]) {
+			return slot + 1;
+		}
+		return segment + 1 < segments() ? (segment + 1) << SEGMENT_SHIFT : -1;
+	}
+
+	private int previousSlot(int slot) {
+		if ((slot & SEGMENT_MASK) > 0) {
+			return slot - 1;
+		}
+		int segment = slot >>> SEGMENT_SHIFT;
+		return segment > 0 ? lastSlot(segment - 1) : -1;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		int slot = ceilingSlot(value, inclusive);
+		return slot < 0 ? NONE : values[slot];
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		int slot = floorSlot(value, inclusive);
+		return slot < 0 ? NONE : values[slot];
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return size > 0 && searchSegment(segmentFor(value), value) >= 0;
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		int segment = segmentFor(value);
+		int idx = searchSegment(segment, value);
+		if (idx >= 0) {
+			return false;
+		}
+		if (counts[segment] == SEGMENT_SIZE) {
+			makeRoom(segment);
+			segment = segmentFor(value);
+			idx = searchSegment(segment, value);
+		}
+		int slot = -(idx + 1);
+		int end = (segment << SEGMENT_SHIFT) + counts[segment];
+		System.arraycopy(values, slot, values, slot + 1, end - slot);
+		values[slot] = value;
+		++counts[segment];
+		++size;
+		++modCount;
+		return true;
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		if (size == 0) {
+			return false;
+		}
+		int segment = segmentFor(value);
+		int slot = searchSegment(segment, value);
+		if (slot < 0) {
+			return false;
+		}
+		int end = (segment << SEGMENT_SHIFT) + counts[segment];
+		System.arraycopy(values, slot + 1, values, slot, end - slot - 1);
+		--counts[segment];
+		--size;
+		++modCount;
+		if (counts[segment] < MIN_SEGMENT_COUNT && segments() > 1) {
+			fixUnderflow(segment);
+		}
+		return true;
+	}
+
+	private static double threshold(double leaf, double root, int level, int height) {
+		return leaf - (leaf - root) * level / height;
+	}
+
+	/**
+	 * Spreads out the smallest window around the full segment that stays under its upper density threshold after one
+	 * more insert, doubling the array if even the root is too dense.
+	 */
+	private void makeRoom(int segment) {
+		int height = Integer.numberOfTrailingZeros(segments());
+		for (int level = 1; level <= height; ++level) {
+			int width = 1 << level;
+			int start = segment & -width;
+			int total = countSegments(start, width);
+			if (total + 1 <= threshold(LEAF_UPPER, ROOT_UPPER, level, height) * width * SEGMENT_SIZE
+					&& total <= width * (SEGMENT_SIZE - 1)) {
+				redistribute(start, width, total);
+				return;
+			}
+		}
+		if (segments() == MAX_SEGMENTS) {
+			throw new IllegalStateException("PackedMemoryIntSet is full");
+		}
+		resize(gather(0, segments(), size), size, segments() << 1);
+	}
+
+	/**
+	 * Refills the smallest window around the sparse segment that is still above its lower density threshold, halving
+	 * the array while the root is too sparse.
+	 */
+	private void fixUnderflow(int segment) {
+		int height = Integer.numberOfTrailingZeros(segments());
+		for (int level = 1; level < height; ++level) {
+			int width = 1 << level;
+			int start = segment & -width;
+			int total = countSegments(start, width);
+			if (total >= threshold(LEAF_LOWER, ROOT_LOWER, level, height) * width * SEGMENT_SIZE) {
+				redistribute(start, width, total);
+				return;
+			}
+		}
+		int segments = segments();
+		while (segments > 1 && size < ROOT_LOWER * segments * SEGMENT_SIZE) {
+			segments >>= 1;
+		}
+		if (segments == segments()) {
+			redistribute(0, segments, size);
+		}
+		else {
+			resize(gather(0, segments(), size), size, segments);
+		}
+	}
+
+	private int countSegments(int start, int width) {
+		int total = 0;
+		for (int i = start; i < start + width; ++i) {
+			total += counts[i];
+		}
+		return total;
+	}
+
+	private int[] gather(int start, int width, int total) {
+		int[] out = new int[total];
+		int pos = 0;
+		for (int i = start; i < start + width; ++i) {
+			System.arraycopy(values, i << SEGMENT_SHIFT, out, pos, counts[i]);
+			pos += counts[i];
+		}
+		return out;
+	}
+
+	private void redistribute(int start, int width, int total) {
+		spread(gather(start, width, total), total, start, width);
+		++modCount;
+	}
+
+	private void resize(int[] sorted, int total, int segments) {
+		values = new int[segments << SEGMENT_SHIFT];
+		counts = new int[segments];
+		size = total;
+		spread(sorted, total, 0, segments);
+		++modCount;
+	}
+
+	/**
+	 * Lays the first total sorted values evenly over the segments [start, start + width).
+	 */
+	private void spread(int[] sorted, int total, int start, int width) {
+		int per = total / width;
+		int extra = total % width;
+		int pos = 0;
+		for (int i = 0; i < width; ++i) {
+			int count = per + (i < extra ? 1 : 0);
+			System.arraycopy(sorted, pos, values, (start + i) << SEGMENT_SHIFT, count);
+			counts[start + i] = count;
+			pos += count;
+		}
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new SlotIterator(low, high, descending);
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		int from = ceilingSlot(low, true);
+		int to = floorSlot(high, true);
+		if (from < 0 || to < 0 || from > to) {
+			return 0;
+		}
+		int fromSegment = from >>> SEGMENT_SHIFT;
+		int toSegment = to >>> SEGMENT_SHIFT;
+		if (fromSegment == toSegment) {
+			return to - from + 1;
+		}
+		return counts[fromSegment] - (from & SEGMENT_MASK) + countSegments(fromSegment + 1, toSegment - fromSegment - 1)
+					 + (to & SEGMENT_MASK) + 1;
+	}
+
+	/**
+	 * Walks the slots directly. Whenever the set changed underneath it, the iterator finds its place again from the
+	 * last value it returned, so removing through it (or elsewhere) is safe.
+	 */
+	private final class SlotIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private int slot;
+		private long lastReturned = NONE;
+		private boolean canRemove;
+		private int expectedModCount = modCount;
+
+		SlotIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			if (low > high) {
+				slot = -1;
+			}
+			else {
+				slot = checked(descending ? floorSlot((int) high, true) : ceilingSlot((int) low, true));
+			}
+		}
+
+		private int checked(int slot) {
+			if (slot < 0) {
+				return -1;
+			}
+			int value = values[slot];
+			return value >= low && value <= high ? slot : -1;
+		}
+
+		private void sync() {
+			if (expectedModCount != modCount) {
+				expectedModCount = modCount;
+				if (lastReturned != NONE) {
+					int last = (int) lastReturned;
+					slot = checked(descending ? floorSlot(last, false) : ceilingSlot(last, false));
+				}
+				else if (low <= high) {
+					slot = checked(descending ? floorSlot((int) high, true) : ceilingSlot((int) low, true));
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			sync();
+			return slot >= 0;
+		}
+
+		@Override
+		public int nextInt() {
+			sync();
+			if (slot < 0) {
+				throw new NoSuchElementException();
+			}
+			int value = values[slot];
+			lastReturned = value;
+			canRemove = true;
+			slot = checked(descending ? previousSlot(slot) : nextSlot(slot));
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			removeInt((int) lastReturned);
+		}
+	}
+}
@@ -0,0 +1,533 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable ascending IntNavigableSet that is cheap to update: with and without return a new version that shares
+ * every untouched chunk with this one. The elements sit in a B+-tree of CHUNK_SIZE int[] leaves whose nodes are never
+ * modified, so an update copies one leaf and the inner nodes on the path to it, O(CHUNK_SIZE + log n), and handing a
+ * version to readers on other threads needs no copy and no locking.
+ */
+public final class PersistentFastNavIntSet extends AbstractIntNavigableSet {
+	private static final int DEFAULT_INNER_CAPACITY = 64;
+	private static final PersistentFastNavIntSet EMPTY =
+		new PersistentFastNavIntSet(new Leaf(new int[0]), Math.max(4, FastNavIntSet.CHUNK_SIZE), DEFAULT_INNER_CAPACITY);
+
+	final Node root;
+	private final int leafCapacity;
+	private final int innerCapacity;
+
+	abstract static class Node {
+		abstract int size();
+
+		abstract int first();
+
+		abstract int count();
+	}
+
+	static final class Leaf extends Node {
+		final int[] keys;
+
+		Leaf(int[] keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		int size() {
+			return keys.length;
+		}
+
+		@Override
+		int first() {
+			return keys[0];
+		}
+
+		@Override
+		int count() {
+			return keys.length;
+		}
+	}
+
+	/**
+	 * keys[i] separates children[i] from children[i + 1]: every element of children[i + 1] is >= keys[i] and every
+	 * element of children[i] is below it. sizes[i] is the number of elements under children[i].
+	 */
+	static final class Inner extends Node {
+		final int[] keys;
+		final Node[] children;
+		final int[] sizes;
+		final int size;
+
+		Inner(int[] keys, Node[] children, int[] sizes) {
+			this.keys = keys;
+			this.children = children;
+			this.sizes = sizes;
+			int total = 0;
+			for (int childSize : sizes) {
+				total += childSize;
+			}
+			size = total;
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+
+		@Override
+		int first() {
+			return children[0].first();
+		}
+
+		@Override
+		int count() {
+			return children.length;
+		}
+	}
+
+	private PersistentFastNavIntSet(Node root, int leafCapacity, int innerCapacity) {
+		this.root = root;
+		this.leafCapacity = leafCapacity;
+		this.innerCapacity = innerCapacity;
+	}
+
+	public static PersistentFastNavIntSet empty() {
+		return EMPTY;
+	}
+
+	public static PersistentFastNavIntSet of(int... values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		return build(sorted, 0, distinct, EMPTY.leafCapacity, EMPTY.innerCapacity);
+	}
+
+	/**
+	 * Builds a version holding the current contents of set in one pass over its values.
+	 */
+	public static PersistentFastNavIntSet copyOf(FastNavIntSet set) {
+		return build(set.values, set.head, set.size, EMPTY.leafCapacity, EMPTY.innerCapacity);
+	}
+
+	/**
+	 * @param sorted holds size strictly ascending values from index from
+	 */
+	static PersistentFastNavIntSet build(int[] sorted, int from, int size, int leafCapacity, int innerCapacity) {
+		if (size == 0) {
+			return new PersistentFastNavIntSet(new Leaf(new int[0]), leafCapacity, innerCapacity);
+		}
+		int leafCount = (size + leafCapacity - 1) / leafCapacity;
+		Node[] level = new Node[leafCount];
+		for (int i = 0; i < leafCount; ++i) {
+			level[i] = new Leaf(Arrays.copyOfRange(sorted, from + evenSplit(size, leafCount, i),
+					from + evenSplit(size, leafCount, i + 1)));
+		}
+		while (level.length > 1) {
+			int parentCount = (level.length + innerCapacity - 1) / innerCapacity;
+			Node[] parents = new Node[parentCount];
+			for (int i = 0; i < parentCount; ++i) {
+				Node[] children = Arrays.copyOfRange(level, evenSplit(level.length, parentCount, i),
+						evenSplit(level.length, parentCount, i + 1));
+				parents[i] = inner(children);
+			}
+			level = parents;
+		}
+		return new PersistentFastNavIntSet(level[0], leafCapacity, innerCapacity);
+	}
+
+	/**
+	 * @return where the part-th of parts near equal pieces of total starts
+	 */
+	private static int evenSplit(int total, int parts, int part) {
+		return (int) ((long) total * part / parts);
+	}
+
+	private static Inner inner(Node[] children) {
+		int[] keys = new int[children.length - 1];
+		int[] sizes = new int[children.length];
+		for (int i = 0; i < children.length; ++i) {
+			if (i > 0) {
+				keys[i - 1] = children[i].first();
+			}
+			sizes[i] = children[i].size();
+		}
+		return new Inner(keys, children, sizes);
+	}
+
+	/**
+	 * @return a mutable FastNavIntSet with the same elements
+	 */
+	public FastNavIntSet toFastNavIntSet() {
+		int[] values = new int[size()];
+		copyTo(root, values, 0);
+		return FastNavIntSet.wrapSorted(values, values.length);
+	}
+
+	private static int copyTo(Node node, int[] target, int offset) {
+		if (node instanceof Leaf) {
+			int[] keys = ((Leaf) node).keys;
+			System.arraycopy(keys, 0, target, offset, keys.length);
+			return offset + keys.length;
+		}
+		for (Node child : ((Inner) node).children) {
+			offset = copyTo(child, target, offset);
+		}
+		return offset;
+	}
+
+	@Override
+	public int size() {
+		return root.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return root.size() == 0;
+	}
+
+	private static int childFor(Inner inner, int value) {
+		int low = 0;
+		int high = inner.keys.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (inner.keys[mid] <= value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private static int search(Leaf leaf, int value) {
+		return IntArrayOps.INSTANCE.searchRange(leaf.keys, 0, leaf.keys.length, value);
+	}
+
+	private Leaf leafFor(int value) {
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[childFor(inner, value)];
+		}
+		return (Leaf) node;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return search(leafFor(value), value) >= 0;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		if (!inclusive) {
+			if (value == Integer.MAX_VALUE) {
+				return NONE;
+			}
+			++value;
+		}
+		Node node = root;
+		Node after = null;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int child = childFor(inner, value);
+			if (child + 1 < inner.children.length) {
+				after = inner.children[child + 1];
+			}
+			node = inner.children[child];
+		}
+		Leaf leaf = (Leaf) node;
+		int idx = search(leaf, value);
+		int index = idx >= 0 ? idx : -(idx + 1);
+		if (index < leaf.keys.length) {
+			return leaf.keys[index];
+		}
+		return after == null ? NONE : after.first();
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		if (!inclusive) {
+			if (value == Integer.MIN_VALUE) {
+				return NONE;
+			}
+			--value;
+		}
+		Node node = root;
+		Node before = null;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int child = childFor(inner, value);
+			if (child > 0) {
+				before = inner.children[child - 1];
+			}
+			node = inner.children[child];
+		}
+		Leaf leaf = (Leaf) node;
+		int idx = search(leaf, value);
+		int index = idx >= 0 ? idx : -(idx + 1) - 1;
+		if (index >= 0) {
+			return leaf.keys[index];
+		}
+		if (before == null) {
+			return NONE;
+		}
+		while (before instanceof Inner) {
+			Node[] children = ((Inner) before).children;
+			before = children[children.length - 1];
+		}
+		int[] keys = ((Leaf) before).keys;
+		return keys[keys.length - 1];
+	}
+
+	/**
+	 * @return the number of elements below value
+	 */
+	private int rank(int value) {
+		int rank = 0;
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			int child = childFor(inner, value);
+			for (int i = 0; i < child; ++i) {
+				rank += inner.sizes[i];
+			}
+			node = inner.children[child];
+		}
+		int idx = search((Leaf) node, value);
+		return rank + (idx >= 0 ? idx : -(idx + 1));
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		int upper = high == Integer.MAX_VALUE ? size() : rank(high + 1);
+		return upper - rank(low);
+	}
+
+	/**
+	 * @return a version that also holds value, this one if it already does
+	 */
+	public PersistentFastNavIntSet with(int value) {
+		if (containsInt(value)) {
+			return this;
+		}
+		Node[] nodes = insert(root, value);
+		return new PersistentFastNavIntSet(nodes.length == 1 ? nodes[0] : inner(nodes), leafCapacity, innerCapacity);
+	}
+
+	/**
+	 * @return a version without value, this one if it doesn't hold it
+	 */
+	public PersistentFastNavIntSet without(int value) {
+		if (!containsInt(value)) {
+			return this;
+		}
+		Node node = delete(root, value);
+		while (node instanceof Inner && node.count() == 1) {
+			node = ((Inner) node).children[0];
+		}
+		return new PersistentFastNavIntSet(node, leafCapacity, innerCapacity);
+	}
+
+	/**
+	 * @return the copy of node with value added, split in two if it overflowed
+	 */
+	private Node[] insert(Node node, int value) {
+		if (node instanceof Leaf) {
+			int[] keys = ((Leaf) node).keys;
+			int index = -(IntArrayOps.INSTANCE.searchRange(keys, 0, keys.length, value) + 1);
+			int[] added = new int[keys.length + 1];
+			System.arraycopy(keys, 0, added, 0, index);
+			added[index] = value;
+			System.arraycopy(keys, index, added, index + 1, keys.length - index);
+			return leaves(added);
+		}
+		Inner inner = (Inner) node;
+		int child = childFor(inner, value);
+		return replace(inner, child, 1, insert(inner.children[child], value));
+	}
+
+	/**
+	 * @return the copy of node with value removed, merged with or evened out against a neighbour if it ran low
+	 */
+	private Node delete(Node node, int value) {
+		if (node instanceof Leaf) {
+			int[] keys = ((Leaf) node).keys;
+			int index = IntArrayOps.INSTANCE.searchRange(keys, 0, keys.length, value);
+			int[] removed = new int[keys.length - 1];
+			System.arraycopy(keys, 0, removed, 0, index);
+			System.arraycopy(keys, index + 1, removed, index, removed.length - index);
+			return new Leaf(removed);
+		}
+		Inner inner = (Inner) node;
+		int child = childFor(inner, value);
+		Node changed = delete(inner.children[child], value);
+		int capacity = changed instanceof Leaf ? leafCapacity : innerCapacity;
+		if (changed.count() > capacity / 4 || inner.children.length == 1) {
+			return replace(inner, child, 1, new Node[] {changed})[0];
+		}
+		int left = child + 1 < inner.children.length ? child : child - 1;
+		Node leftNode = left == child ? changed : inner.children[left];
+		Node rightNode = left == child ? inner.children[left + 1] : changed;
+		return replace(inner, left, 2, combine(leftNode, rightNode))[0];
+	}
+
+	/**
+	 * @return left and right as one node if they fit, otherwise as two evenly filled ones
+	 */
+	private Node[] combine(Node left, Node right) {
+		if (left instanceof Leaf) {
+			int[] leftKeys = ((Leaf) left).keys;
+			int[] rightKeys = ((Leaf) right).keys;
+			int[] keys = Arrays.copyOf(leftKeys, leftKeys.length + rightKeys.length);
+			System.arraycopy(rightKeys, 0, keys, leftKeys.length, rightKeys.length);
+			return leaves(keys);
+		}
+		Node[] leftChildren = ((Inner) left).children;
+		Node[] rightChildren = ((Inner) right).children;
+		Node[] children = Arrays.copyOf(leftChildren, leftChildren.length + rightChildren.length);
+		System.arraycopy(rightChildren, 0, children, leftChildren.length, rightChildren.length);
+		return inners(children);
+	}
+
+	private Node[] leaves(int[] keys) {
+		if (keys.length <= leafCapacity) {
+			return new Node[] {new Leaf(keys)};
+		}
+		int half = keys.length >>> 1;
+		return new Node[] {new Leaf(Arrays.copyOf(keys, half)), new Leaf(Arrays.copyOfRange(keys, half, keys.length))};
+	}
+
+	private Node[] inners(Node[] children) {
+		if (children.length <= innerCapacity) {
+			return new Node[] {inner(children)};
+		}
+		int half = children.length >>> 1;
+		return new Node[] {inner(Arrays.copyOf(children, half)), inner(Arrays.copyOfRange(children, half, children.length))};
+	}
+
+	/**
+	 * @return a copy of inner with the replaced children from from on swapped for nodes, split in two if it overflowed
+	 */
+	private Node[] replace(Inner inner, int from, int replaced, Node[] nodes) {
+		Node[] children = inner.children;
+		int length = children.length - replaced + nodes.length;
+		if (replaced == 1 && nodes.length == 1) {
+			Node[] copy = children.clone();
+			copy[from] = nodes[0];
+			int[] sizes = inner.sizes.clone();
+			sizes[from] = nodes[0].size();
+			return new Node[] {new Inner(inner.keys, copy, sizes)};
+		}
+		Node[] copy = new Node[length];
+		System.arraycopy(children, 0, copy, 0, from);
+		System.arraycopy(nodes, 0, copy, from, nodes.length);
+		System.arraycopy(children, from + replaced, copy, from + nodes.length, children.length - from - replaced);
+		return inners(copy);
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new PathIterator(low, high, descending);
+	}
+
+	/**
+	 * Walks the leaves in order keeping the path down from the root, as the tree has no sibling links. Versions never
+	 * change, so it needs no checks for concurrent modification.
+	 */
+	private final class PathIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private final Inner[] path;
+		private final int[] positions;
+		private Leaf leaf;
+		private int index;
+
+		PathIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			int depth = 0;
+			for (Node node = root; node instanceof Inner; node = ((Inner) node).children[0]) {
+				++depth;
+			}
+			path = new Inner[depth];
+			positions = new int[depth];
+			if (low > high) {
+				return;
+			}
+			long start = descending ? floorValue((int) high, true) : ceilingValue((int) low, true);
+			if (start == NONE || start < low || start > high) {
+				return;
+			}
+			Node node = root;
+			for (int level = 0; level < depth; ++level) {
+				Inner inner = (Inner) node;
+				path[level] = inner;
+				positions[level] = childFor(inner, (int) start);
+				node = inner.children[positions[level]];
+			}
+			leaf = (Leaf) node;
+			index = search(leaf, (int) start);
+		}
+
+		/**
+		 * Moves to the next leaf in iteration order, or sets leaf to null at the end.
+		 */
+		private void nextLeaf() {
+			int level = path.length - 1;
+			while (level >= 0 && (descending ? positions[level] == 0
+																			 : positions[level] == path[level].children.length - 1)) {
+				--level;
+			}
+			if (level < 0) {
+				leaf = null;
+				return;
+			}
+			positions[level] += descending ? -1 : 1;
+			Node node = path[level].children[positions[level]];
+			for (++level; level < path.length; ++level) {
+				Inner inner = (Inner) node;
+				path[level] = inner;
+				positions[level] = descending ? inner.children.length - 1 : 0;
+				node = inner.children[positions[level]];
+			}
+			leaf = (Leaf) node;
+			index = descending ? leaf.keys.length - 1 : 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return leaf != null;
+		}
+
+		@Override
+		public int nextInt() {
+			if (leaf == null) {
+				throw new NoSuchElementException();
+			}
+			int value = leaf.keys[index];
+			if (descending ? --index < 0 : ++index == leaf.keys.length) {
+				nextLeaf();
+			}
+			if (leaf != null) {
+				int next = leaf.keys[index];
+				if (next < low || next > high) {
+					leaf = null;
+				}
+			}
+			return value;
+		}
+	}
+}
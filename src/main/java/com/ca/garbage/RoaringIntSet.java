@@ -0,0 +1,857 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An ascending IntNavigableSet that splits keys by their high 16 bits into containers, Roaring style. Each container
+ * holds the low 16 bits in whichever form is smallest for its contents: a sorted char[] for sparse chunks, a 65536 bit
+ * bitmap for dense ones and a list of runs for chunks made of long consecutive stretches. Containers switch form on
+ * their own as elements come and go, so the set never costs more than 2 bytes per element plus a per-container
+ * overhead of a few dozen bytes, and much less for dense or run heavy key spaces. Only where chunks hold fewer than
+ * about 20 keys each does that overhead make it larger than a plain int[]. Sparse sets like that are also where
+ * lookups are slower than FastNavIntSet's: with keys spread over the whole int range, a contains misses the cache on
+ * the container key table, the container and its content in turn, against one search of a single array.
+ */
+public class RoaringIntSet extends AbstractIntNavigableSet {
+	/**
+	 * Largest array container, at which point a bitmap is no bigger.
+	 */
+	static final int ARRAY_MAX = 4096;
+	private static final int BITMAP_BYTES = 8192;
+
+	int[] keys;
+	Container[] containers;
+	int containerCount;
+	int size;
+	transient int modCount;
+
+	public RoaringIntSet() {
+		keys = new int[4];
+		containers = new Container[4];
+	}
+
+	public static RoaringIntSet create() {
+		return new RoaringIntSet();
+	}
+
+	public static RoaringIntSet create(int... values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		RoaringIntSet set = new RoaringIntSet();
+		for (int value : sorted) {
+			set.addInt(value);
+		}
+		return set;
+	}
+
+	private static int high(int value) {
+		return value >> 16;
+	}
+
+	private static int low(int value) {
+		return value & 0xFFFF;
+	}
+
+	private static int join(int high, int low) {
+		return high << 16 | low;
+	}
+
+	private int containerIndex(int high) {
+		return IntArrayOps.INSTANCE.searchRange(keys, 0, containerCount, high);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(containers, 0, containerCount, null);
+		containerCount = 0;
+		size = 0;
+		++modCount;
+	}
+
+	/**
+	 * @return the approximate heap footprint of the keys and containers in bytes
+	 */
+	long sizeInBytes() {
+		long bytes = 4L * keys.length + 4L * containers.length;
+		for (int i = 0; i < containerCount; ++i) {
+			bytes += containers[i].sizeInBytes();
+		}
+		return bytes;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		int idx = containerIndex(high(value));
+		return idx >= 0 && containers[idx].contains(low(value));
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		int high = high(value);
+		int idx = containerIndex(high);
+		if (idx < 0) {
+			idx = -(idx + 1);
+			insertContainer(idx, high, new ArrayContainer());
+		}
+		Container container = containers[idx];
+		int before = container.cardinality();
+		containers[idx] = container.add(low(value));
+		if (containers[idx].cardinality() == before) {
+			return false;
+		}
+		++size;
+		++modCount;
+		return true;
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		int idx = containerIndex(high(value));
+		if (idx < 0) {
+			return false;
+		}
+		Container container = containers[idx];
+		int before = container.cardinality();
+		container = container.remove(low(value));
+		if (container.cardinality() == before) {
+			return false;
+		}
+		if (container.cardinality() == 0) {
+			removeContainer(idx);
+		}
+		else {
+			containers[idx] = container;
+		}
+		--size;
+		++modCount;
+		return true;
+	}
+
+	private void insertContainer(int idx, int high, Container container) {
+		if (containerCount == keys.length) {
+			int capacity = containerCount + (containerCount >> 1) + 1;
+			keys = Arrays.copyOf(keys, capacity);
+			containers = Arrays.copyOf(containers, capacity);
+		}
+		System.arraycopy(keys, idx, keys, idx + 1, containerCount - idx);
+		System.arraycopy(containers, idx, containers, idx + 1, containerCount - idx);
+		keys[idx] = high;
+		containers[idx] = container;
+		++containerCount;
+	}
+
+	private void removeContainer(int idx) {
+		System.arraycopy(keys, idx + 1, keys, idx, containerCount - idx - 1);
+		System.arraycopy(containers, idx + 1, containers, idx, containerCount - idx - 1);
+		containers[--containerCount] = null;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		if (!inclusive) {
+			if (value == Integer.MAX_VALUE) {
+				return NONE;
+			}
+			++value;
+		}
+		int high = high(value);
+		int idx = containerIndex(high);
+		if (idx >= 0) {
+			int low = containers[idx].ceiling(low(value));
+			if (low >= 0) {
+				return join(high, low);
+			}
+			++idx;
+		}
+		else {
+			idx = -(idx + 1);
+		}
+		return idx < containerCount ? join(keys[idx], containers[idx].first()) : NONE;
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		if (!inclusive) {
+			if (value == Integer.MIN_VALUE) {
+				return NONE;
+			}
+			--value;
+		}
+		int high = high(value);
+		int idx = containerIndex(high);
+		if (idx >= 0) {
+			int low = containers[idx].floor(low(value));
+			if (low >= 0) {
+				return join(high, low);
+			}
+		}
+		else {
+			idx = -(idx + 1);
+		}
+		--idx;
+		return idx >= 0 ? join(keys[idx], containers[idx].last()) : NONE;
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		int from = containerIndex(high(low));
+		int to = containerIndex(high(high));
+		int fromIdx = from >= 0 ? from : -(from + 1);
+		int toIdx = to >= 0 ? to : -(to + 1) - 1;
+		int count = 0;
+		for (int i = fromIdx; i <= toIdx; ++i) {
+			Container container = containers[i];
+			int below = i == from && low(low) > 0 ? container.rank(low(low) - 1) : 0;
+			int upTo = i == to ? container.rank(low(high)) : container.cardinality();
+			count += upTo - below;
+		}
+		return count;
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new ContainerIterator(low, high, descending);
+	}
+
+	/**
+	 * Steps within the current container; whenever the set changed underneath it, it finds its place again from the
+	 * last value it returned.
+	 */
+	private final class ContainerIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private int idx;
+		private long next;
+		private long lastReturned = NONE;
+		private boolean canRemove;
+		private int expectedModCount = modCount;
+
+		ContainerIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			if (low > high) {
+				next = NONE;
+			}
+			else {
+				locate(descending ? floorValue((int) high, true) : ceilingValue((int) low, true));
+			}
+		}
+
+		private void locate(long value) {
+			next = value != NONE && value >= low && value <= high ? value : NONE;
+			if (next != NONE) {
+				idx = containerIndex(high((int) next));
+			}
+		}
+
+		private void sync() {
+			if (expectedModCount != modCount) {
+				expectedModCount = modCount;
+				if (lastReturned != NONE) {
+					int last = (int) lastReturned;
+					locate(descending ? floorValue(last, false) : ceilingValue(last, false));
+				}
+				else if (low <= high) {
+					locate(descending ? floorValue((int) high, true) : ceilingValue((int) low, true));
+				}
+			}
+		}
+
+		private long step(int value) {
+			int lowBits = low(value);
+			int out = descending ? (lowBits == 0 ? -1 : containers[idx].floor(lowBits - 1))
+									: (lowBits == 0xFFFF ? -1 : containers[idx].ceiling(lowBits + 1));
+			if (out < 0) {
+				idx += descending ? -1 : 1;
+				if (idx < 0 || idx >= containerCount) {
+					return NONE;
+				}
+				out = descending ? containers[idx].last() : containers[idx].first();
+			}
+			long stepped = join(keys[idx], out);
+			return stepped >= low && stepped <= high ? stepped : NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			sync();
+			return next != NONE;
+		}
+
+		@Override
+		public int nextInt() {
+			sync();
+			if (next == NONE) {
+				throw new NoSuchElementException();
+			}
+			int value = (int) next;
+			lastReturned = value;
+			canRemove = true;
+			next = step(value);
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			removeInt((int) lastReturned);
+		}
+	}
+
+	/**
+	 * The low 16 bits of the elements sharing one high half. Values are passed as ints in [0, 65535]; add and remove
+	 * return the container to keep, which may be a different form than this one.
+	 */
+	abstract static class Container {
+		abstract int cardinality();
+
+		abstract boolean contains(int low);
+
+		abstract Container add(int low);
+
+		abstract Container remove(int low);
+
+		/**
+		 * @return the smallest element >= low, -1 if there is none
+		 */
+		abstract int ceiling(int low);
+
+		/**
+		 * @return the largest element <= low, -1 if there is none
+		 */
+		abstract int floor(int low);
+
+		abstract int first();
+
+		abstract int last();
+
+		/**
+		 * @return the number of elements <= low
+		 */
+		abstract int rank(int low);
+
+		abstract int runCount();
+
+		abstract long sizeInBytes();
+
+		abstract void forEach(LowConsumer action);
+
+		/**
+		 * Picks the smallest form for the current contents. Leaving the run form happens as soon as it stops being the
+		 * smallest, entering it only once it is at most half the size, so a container on the boundary doesn't convert on
+		 * every change.
+		 */
+		Container optimize() {
+			int cardinality = cardinality();
+			if (cardinality == 0) {
+				return this;
+			}
+			long runBytes = RunContainer.bytesFor(runCount());
+			long flatBytes = cardinality <= ARRAY_MAX ? ArrayContainer.bytesFor(cardinality) : BITMAP_BYTES;
+			if (this instanceof RunContainer) {
+				return runBytes > flatBytes ? flatten() : this;
+			}
+			if (runBytes * 2 <= flatBytes) {
+				return RunContainer.of(this);
+			}
+			if (cardinality <= ARRAY_MAX) {
+				return this instanceof ArrayContainer ? this : ArrayContainer.of(this);
+			}
+			return this instanceof BitmapContainer ? this : BitmapContainer.of(this);
+		}
+
+		Container flatten() {
+			return cardinality() <= ARRAY_MAX ? ArrayContainer.of(this) : BitmapContainer.of(this);
+		}
+	}
+
+	interface LowConsumer {
+		void accept(int low);
+	}
+
+	/**
+	 * Up to ARRAY_MAX sorted values.
+	 */
+	static final class ArrayContainer extends Container {
+		/**
+		 * Window search scans instead of bisecting, 64 bytes of chars.
+		 */
+		private static final int LINEAR_SEARCH = 32;
+		private char[] content;
+		private int cardinality;
+		private int runs;
+
+		ArrayContainer() {
+			content = new char[4];
+		}
+
+		static long bytesFor(int cardinality) {
+			return 2L * cardinality;
+		}
+
+		static ArrayContainer of(Container source) {
+			ArrayContainer out = new ArrayContainer();
+			out.content = new char[Math.max(4, source.cardinality())];
+			source.forEach(low -> out.content[out.cardinality++] = (char) low);
+			out.runs = source.runCount();
+			return out;
+		}
+
+		/**
+		 * Same result as Arrays.binarySearch, but only bisects down to LINEAR_SEARCH chars and scans the rest, which
+		 * sit in one or two cache lines, without the unpredictable branches of the last few halvings.
+		 */
+		private int search(int low) {
+			int from = 0;
+			int to = cardinality;
+			while (to - from > LINEAR_SEARCH) {
+				int mid = (from + to) >>> 1;
+				int midVal = content[mid];
+				if (midVal < low) {
+					from = mid + 1;
+				}
+				else if (midVal > low) {
+					to = mid;
+				}
+				else {
+					return mid;
+				}
+			}
+			while (from < to && content[from] < low) {
+				++from;
+			}
+			return from < to && content[from] == low ? from : -(from + 1);
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int low) {
+			return search(low) >= 0;
+		}
+
+		@Override
+		Container add(int low) {
+			int idx = search(low);
+			if (idx >= 0) {
+				return this;
+			}
+			if (cardinality == ARRAY_MAX) {
+				return BitmapContainer.of(this).add(low);
+			}
+			idx = -(idx + 1);
+			boolean left = idx > 0 && content[idx - 1] == low - 1;
+			boolean right = idx < cardinality && content[idx] == low + 1;
+			runs += 1 - (left ? 1 : 0) - (right ? 1 : 0);
+			if (cardinality == content.length) {
+				content = Arrays.copyOf(content, Math.min(ARRAY_MAX, cardinality + (cardinality >> 1) + 1));
+			}
+			System.arraycopy(content, idx, content, idx + 1, cardinality - idx);
+			content[idx] = (char) low;
+			++cardinality;
+			return optimize();
+		}
+
+		@Override
+		Container remove(int low) {
+			int idx = search(low);
+			if (idx < 0) {
+				return this;
+			}
+			boolean left = idx > 0 && content[idx - 1] == low - 1;
+			boolean right = idx + 1 < cardinality && content[idx + 1] == low + 1;
+			runs += (left ? 1 : 0) + (right ? 1 : 0) - 1;
+			System.arraycopy(content, idx + 1, content, idx, cardinality - idx - 1);
+			--cardinality;
+			return optimize();
+		}
+
+		@Override
+		int ceiling(int low) {
+			int idx = search(low);
+			if (idx < 0) {
+				idx = -(idx + 1);
+			}
+			return idx < cardinality ? content[idx] : -1;
+		}
+
+		@Override
+		int floor(int low) {
+			int idx = search(low);
+			if (idx < 0) {
+				idx = -(idx + 1) - 1;
+			}
+			return idx >= 0 ? content[idx] : -1;
+		}
+
+		@Override
+		int first() {
+			return content[0];
+		}
+
+		@Override
+		int last() {
+			return content[cardinality - 1];
+		}
+
+		@Override
+		int rank(int low) {
+			int idx = search(low);
+			return idx >= 0 ? idx + 1 : -(idx + 1);
+		}
+
+		@Override
+		int runCount() {
+			return runs;
+		}
+
+		@Override
+		long sizeInBytes() {
+			return 16 + 2L * content.length;
+		}
+
+		@Override
+		void forEach(LowConsumer action) {
+			for (int i = 0; i < cardinality; ++i) {
+				action.accept(content[i]);
+			}
+		}
+	}
+
+	/**
+	 * One bit per possible value.
+	 */
+	static final class BitmapContainer extends Container {
+		private final long[] bits = new long[1024];
+		private int cardinality;
+		private int runs;
+
+		static BitmapContainer of(Container source) {
+			BitmapContainer out = new BitmapContainer();
+			source.forEach(low -> out.bits[low >>> 6] |= 1L << low);
+			out.cardinality = source.cardinality();
+			out.runs = source.runCount();
+			return out;
+		}
+
+		private boolean get(int low) {
+			return low >= 0 && low <= 0xFFFF && (bits[low >>> 6] & 1L << low) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int low) {
+			return (bits[low >>> 6] & 1L << low) != 0;
+		}
+
+		@Override
+		Container add(int low) {
+			if (contains(low)) {
+				return this;
+			}
+			runs += 1 - (get(low - 1) ? 1 : 0) - (get(low + 1) ? 1 : 0);
+			bits[low >>> 6] |= 1L << low;
+			++cardinality;
+			return optimize();
+		}
+
+		@Override
+		Container remove(int low) {
+			if (!contains(low)) {
+				return this;
+			}
+			bits[low >>> 6] &= ~(1L << low);
+			runs += (get(low - 1) ? 1 : 0) + (get(low + 1) ? 1 : 0) - 1;
+			--cardinality;
+			return optimize();
+		}
+
+		@Override
+		int ceiling(int low) {
+			int word = low >>> 6;
+			long w = bits[word] & -1L << low;
+			while (w == 0) {
+				if (++word == bits.length) {
+					return -1;
+				}
+				w = bits[word];
+			}
+			return word << 6 | Long.numberOfTrailingZeros(w);
+		}
+
+		@Override
+		int floor(int low) {
+			int word = low >>> 6;
+			long w = bits[word] & -1L >>> (63 - (low & 63));
+			while (w == 0) {
+				if (--word < 0) {
+					return -1;
+				}
+				w = bits[word];
+			}
+			return word << 6 | 63 - Long.numberOfLeadingZeros(w);
+		}
+
+		@Override
+		int first() {
+			return ceiling(0);
+		}
+
+		@Override
+		int last() {
+			return floor(0xFFFF);
+		}
+
+		@Override
+		int rank(int low) {
+			int word = low >>> 6;
+			int count = 0;
+			for (int i = 0; i < word; ++i) {
+				count += Long.bitCount(bits[i]);
+			}
+			return count + Long.bitCount(bits[word] & -1L >>> (63 - (low & 63)));
+		}
+
+		@Override
+		int runCount() {
+			return runs;
+		}
+
+		@Override
+		long sizeInBytes() {
+			return 16 + BITMAP_BYTES;
+		}
+
+		@Override
+		void forEach(LowConsumer action) {
+			for (int word = 0; word < bits.length; ++word) {
+				long w = bits[word];
+				while (w != 0) {
+					action.accept(word << 6 | Long.numberOfTrailingZeros(w));
+					w &= w - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sorted, non-adjacent runs stored as (start, length - 1) pairs.
+	 */
+	static final class RunContainer extends Container {
+		private char[] runs;
+		private int runCount;
+		private int cardinality;
+
+		private RunContainer(int capacity) {
+			runs = new char[2 * Math.max(1, capacity)];
+		}
+
+		static long bytesFor(int runCount) {
+			return 4L * runCount;
+		}
+
+		static RunContainer of(Container source) {
+			RunContainer out = new RunContainer(source.runCount());
+			source.forEach(low -> {
+				if (out.runCount > 0 && out.end(out.runCount - 1) == low - 1) {
+					++out.runs[2 * out.runCount - 1];
+				}
+				else {
+					out.insertRun(out.runCount, low, low);
+				}
+			});
+			out.cardinality = source.cardinality();
+			return out;
+		}
+
+		private int start(int run) {
+			return runs[2 * run];
+		}
+
+		private int end(int run) {
+			return runs[2 * run] + runs[2 * run + 1];
+		}
+
+		private void setRun(int run, int start, int end) {
+			runs[2 * run] = (char) start;
+			runs[2 * run + 1] = (char) (end - start);
+		}
+
+		/**
+		 * @return the last run starting at or before low, -1 if there is none
+		 */
+		private int runFor(int low) {
+			int lowRun = 0;
+			int highRun = runCount - 1;
+			while (lowRun <= highRun) {
+				int mid = (lowRun + highRun) >>> 1;
+				if (start(mid) <= low) {
+					lowRun = mid + 1;
+				}
+				else {
+					highRun = mid - 1;
+				}
+			}
+			return highRun;
+		}
+
+		private void insertRun(int run, int start, int end) {
+			if (2 * runCount == runs.length) {
+				runs = Arrays.copyOf(runs, 2 * (runCount + (runCount >> 1) + 1));
+			}
+			System.arraycopy(runs, 2 * run, runs, 2 * run + 2, 2 * (runCount - run));
+			setRun(run, start, end);
+			++runCount;
+		}
+
+		private void deleteRun(int run) {
+			System.arraycopy(runs, 2 * run + 2, runs, 2 * run, 2 * (runCount - run - 1));
+			--runCount;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int low) {
+			int run = runFor(low);
+			return run >= 0 && low <= end(run);
+		}
+
+		@Override
+		Container add(int low) {
+			int run = runFor(low);
+			if (run >= 0 && low <= end(run)) {
+				return this;
+			}
+			boolean left = run >= 0 && end(run) == low - 1;
+			boolean right = run + 1 < runCount && start(run + 1) == low + 1;
+			if (left && right) {
+				setRun(run, start(run), end(run + 1));
+				deleteRun(run + 1);
+			}
+			else if (left) {
+				setRun(run, start(run), low);
+			}
+			else if (right) {
+				setRun(run + 1, low, end(run + 1));
+			}
+			else {
+				insertRun(run + 1, low, low);
+			}
+			++cardinality;
+			return optimize();
+		}
+
+		@Override
+		Container remove(int low) {
+			int run = runFor(low);
+			if (run < 0 || low > end(run)) {
+				return this;
+			}
+			int start = start(run);
+			int end = end(run);
+			if (start == end) {
+				deleteRun(run);
+			}
+			else if (low == start) {
+				setRun(run, start + 1, end);
+			}
+			else if (low == end) {
+				setRun(run, start, end - 1);
+			}
+			else {
+				setRun(run, start, low - 1);
+				insertRun(run + 1, low + 1, end);
+			}
+			--cardinality;
+			return optimize();
+		}
+
+		@Override
+		int ceiling(int low) {
+			int run = runFor(low);
+			if (run >= 0 && low <= end(run)) {
+				return low;
+			}
+			return run + 1 < runCount ? start(run + 1) : -1;
+		}
+
+		@Override
+		int floor(int low) {
+			int run = runFor(low);
+			if (run < 0) {
+				return -1;
+			}
+			return Math.min(low, end(run));
+		}
+
+		@Override
+		int first() {
+			return start(0);
+		}
+
+		@Override
+		int last() {
+			return end(runCount - 1);
+		}
+
+		@Override
+		int rank(int low) {
+			int run = runFor(low);
+			int count = 0;
+			for (int i = 0; i < run; ++i) {
+				count += end(i) - start(i) + 1;
+			}
+			return run < 0 ? 0 : count + Math.min(low, end(run)) - start(run) + 1;
+		}
+
+		@Override
+		int runCount() {
+			return runCount;
+		}
+
+		@Override
+		long sizeInBytes() {
+			return 16 + 2L * runs.length;
+		}
+
+		@Override
+		void forEach(LowConsumer action) {
+			for (int run = 0; run < runCount; ++run) {
+				for (int low = start(run), end = end(run); low <= end; ++low) {
+					action.accept(low);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.ca.garbage;
+
+final class ScalarIntArrayOps extends IntArrayOps {
+	@Override
+	int search(int[] a, int fromIndex, int toIndex, int key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midVal = a[mid];
+
+			if (midVal < key) {
+				low = mid + 1;
+			}
+			else if (midVal > key) {
+				high = mid - 1;
+			}
+			else {
+				return mid; // key found
+			}
+		}
+		return -(low + 1);  // key not found.
+	}
+
+	@Override
+	int mismatch(int[] a, int aFromIndex, int[] b, int bFromIndex, int length) {
+		for (int i = 0; i < length; i++) {
+			if (a[aFromIndex + i] != b[bFromIndex + i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,426 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An ascending IntNavigableSet stored as a list of sorted int[] segments of at most segmentSize elements, with a top
+ * level index of each segment's first element. Inserts and removes shift within one segment only; a full segment
+ * splits in two and a segment that runs low merges with a neighbour, so growth never copies the whole set and no
+ * allocation is larger than a segment, apart from the top level index at one entry per segment.
+ */
+public class SegmentedIntSet extends AbstractIntNavigableSet {
+	/**
+	 * System property overriding the default segment size, read once when the class is loaded.
+	 */
+	public static final String SEGMENT_SIZE_PROPERTY = "com.ca.garbage.SegmentedIntSet.segmentSize";
+	private static final int DEFAULT_SEGMENT_SIZE =
+		Math.max(4, Integer.getInteger(SEGMENT_SIZE_PROPERTY, 8 * FastNavIntSet.CHUNK_SIZE));
+	private static final int MIN_SEGMENT_CAPACITY = 8;
+
+	private final int segmentSize;
+	int[] firsts;
+	int[][] segments;
+	int[] counts;
+	int segmentCount;
+	int size;
+	transient int modCount;
+
+	private SegmentedIntSet(int segmentSize) {
+		if (segmentSize < 4) {
+			throw new IllegalArgumentException("segmentSize must be at least 4");
+		}
+		this.segmentSize = segmentSize;
+		firsts = new int[4];
+		segments = new int[4][];
+		counts = new int[4];
+	}
+
+	public static SegmentedIntSet create() {
+		return new SegmentedIntSet(DEFAULT_SEGMENT_SIZE);
+	}
+
+	public static SegmentedIntSet create(int... values) {
+		SegmentedIntSet set = new SegmentedIntSet(DEFAULT_SEGMENT_SIZE);
+		set.fill(values);
+		return set;
+	}
+
+	/**
+	 * @param segmentSize the most elements, and so the largest int[], any one segment holds
+	 */
+	public static SegmentedIntSet withSegmentSize(int segmentSize, int... values) {
+		SegmentedIntSet set = new SegmentedIntSet(segmentSize);
+		set.fill(values);
+		return set;
+	}
+
+	/**
+	 * Bulk loads an empty set with segments three quarters full.
+	 */
+	private void fill(int[] values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		int perSegment = Math.max(1, segmentSize * 3 / 4);
+		for (int from = 0; from < distinct; from += perSegment) {
+			int count = Math.min(perSegment, distinct - from);
+			insertSegment(segmentCount, Arrays.copyOfRange(sorted, from, from + count), count);
+		}
+		size = distinct;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(segments, 0, segmentCount, null);
+		segmentCount = 0;
+		size = 0;
+		++modCount;
+	}
+
+	private void insertSegment(int at, int[] segment, int count) {
+		if (segmentCount == segments.length) {
+			int capacity = segmentCount + (segmentCount >> 1) + 1;
+			firsts = Arrays.copyOf(firsts, capacity);
+			segments = Arrays.copyOf(segments, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+		}
+		System.arraycopy(firsts, at, firsts, at + 1, segmentCount - at);
+		System.arraycopy(segments, at, segments, at + 1, segmentCount - at);
+		System.arraycopy(counts, at, counts, at + 1, segmentCount - at);
+		firsts[at] = segment[0];
+		segments[at] = segment;
+		counts[at] = count;
+		++segmentCount;
+	}
+
+	private void deleteSegment(int at) {
+		System.arraycopy(firsts, at + 1, firsts, at, segmentCount - at - 1);
+		System.arraycopy(segments, at + 1, segments, at, segmentCount - at - 1);
+		System.arraycopy(counts, at + 1, counts, at, segmentCount - at - 1);
+		segments[--segmentCount] = null;
+	}
+
+	/**
+	 * @return the last segment whose first element is <= value, or 0 if there is none
+	 */
+	private int segmentFor(int value) {
+		int low = 0;
+		int high = segmentCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (firsts[mid] <= value) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private int search(int segment, int value) {
+		return IntArrayOps.INSTANCE.searchRange(segments[segment], 0, counts[segment], value);
+	}
+
+	private static long position(int segment, int offset) {
+		return (long) segment << 32 | offset;
+	}
+
+	private static int segmentOf(long position) {
+		return (int) (position >>> 32);
+	}
+
+	private static int offsetOf(long position) {
+		return (int) position;
+	}
+
+	private int valueAt(long position) {
+		return segments[segmentOf(position)][offsetOf(position)];
+	}
+
+	/**
+	 * @return the position of the smallest element >= value (> value if not inclusive), -1 if there is none
+	 */
+	long ceilingPosition(int value, boolean inclusive) {
+		if (size == 0) {
+			return -1;
+		}
+		int segment = segmentFor(value);
+		int idx = search(segment, value);
+		int offset = idx >= 0 ? (inclusive ? idx : idx + 1) : -(idx + 1);
+		if (offset < counts[segment]) {
+			return position(segment, offset);
+		}
+		return segment + 1 < segmentCount ? position(segment + 1, 0) : -1;
+	}
+
+	/**
+	 * @return the position of the largest element <= value (< value if not inclusive), -1 if there is none
+	 */
+	long floorPosition(int value, boolean inclusive) {
+		if (size == 0) {
+			return -1;
+		}
+		int segment = segmentFor(value);
+		int idx = search(segment, value);
+		int offset = idx >= 0 ? (inclusive ? idx : idx - 1) : -(idx + 1) - 1;
+		if (offset >= 0) {
+			return position(segment, offset);
+		}
+		return segment > 0 ? position(segment - 1, counts[segment - 1] - 1) : -1;
+	}
+
+	private long nextPosition(long position) {
+		int segment = segmentOf(position);
+		int offset = offsetOf(position) + 1;
+		if (offset < counts[segment]) {
+			return position(segment, offset);
+		}
+		return segment + 1 < segmentCount ? position(segment + 1, 0) : -1;
+	}
+
+	private long previousPosition(long position) {
+		int segment = segmentOf(position);
+		int offset = offsetOf(position);
+		if (offset > 0) {
+			return position(segment, offset - 1);
+		}
+		return segment > 0 ? position(segment - 1, counts[segment - 1] - 1) : -1;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		long position = ceilingPosition(value, inclusive);
+		return position < 0 ? NONE : valueAt(position);
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		long position = floorPosition(value, inclusive);
+		return position < 0 ? NONE : valueAt(position);
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		return size > 0 && search(segmentFor(value), value) >= 0;
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		if (segmentCount == 0) {
+			insertSegment(0, new int[MIN_SEGMENT_CAPACITY], 0);
+		}
+		int segment = segmentFor(value);
+		int idx = search(segment, value);
+		if (idx >= 0) {
+			return false;
+		}
+		int offset = -(idx + 1);
+		if (counts[segment] == segmentSize) {
+			split(segment);
+			if (offset > counts[segment]) {
+				offset -= counts[segment];
+				++segment;
+			}
+		}
+		int count = counts[segment];
+		int[] values = segments[segment];
+		if (count == values.length) {
+			values = Arrays.copyOf(values, Math.min(segmentSize, count + (count >> 1) + 1));
+			segments[segment] = values;
+		}
+		System.arraycopy(values, offset, values, offset + 1, count - offset);
+		values[offset] = value;
+		counts[segment] = count + 1;
+		if (offset == 0) {
+			firsts[segment] = value;
+		}
+		++size;
+		++modCount;
+		return true;
+	}
+
+	/**
+	 * Moves the upper half of a full segment into a new segment right after it.
+	 */
+	private void split(int segment) {
+		int count = counts[segment];
+		int keep = count >>> 1;
+		int moved = count - keep;
+		int[] upper = new int[Math.min(segmentSize, Math.max(MIN_SEGMENT_CAPACITY, moved + (moved >> 1)))];
+		System.arraycopy(segments[segment], keep, upper, 0, moved);
+		counts[segment] = keep;
+		insertSegment(segment + 1, upper, moved);
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		if (size == 0) {
+			return false;
+		}
+		int segment = segmentFor(value);
+		int offset = search(segment, value);
+		if (offset < 0) {
+			return false;
+		}
+		int[] values = segments[segment];
+		int count = counts[segment] - 1;
+		System.arraycopy(values, offset + 1, values, offset, count - offset);
+		counts[segment] = count;
+		--size;
+		++modCount;
+		if (count == 0) {
+			deleteSegment(segment);
+		}
+		else {
+			if (offset == 0) {
+				firsts[segment] = values[0];
+			}
+			if (count < segmentSize / 4) {
+				mergeWithNeighbour(segment);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Folds a sparse segment into a neighbour if the two together stay at most half full.
+	 */
+	private void mergeWithNeighbour(int segment) {
+		int left;
+		if (segment + 1 < segmentCount && counts[segment] + counts[segment + 1] <= segmentSize / 2) {
+			left = segment;
+		}
+		else if (segment > 0 && counts[segment - 1] + counts[segment] <= segmentSize / 2) {
+			left = segment - 1;
+		}
+		else {
+			return;
+		}
+		int leftCount = counts[left];
+		int rightCount = counts[left + 1];
+		int[] merged = segments[left];
+		if (merged.length < leftCount + rightCount) {
+			merged = Arrays.copyOf(merged, Math.min(segmentSize, (leftCount + rightCount) * 3 / 2));
+			segments[left] = merged;
+		}
+		System.arraycopy(segments[left + 1], 0, merged, leftCount, rightCount);
+		counts[left] = leftCount + rightCount;
+		deleteSegment(left + 1);
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		long from = ceilingPosition(low, true);
+		long to = floorPosition(high, true);
+		if (from < 0 || to < 0 || from > to) {
+			return 0;
+		}
+		int fromSegment = segmentOf(from);
+		int toSegment = segmentOf(to);
+		if (fromSegment == toSegment) {
+			return offsetOf(to) - offsetOf(from) + 1;
+		}
+		int count = counts[fromSegment] - offsetOf(from) + offsetOf(to) + 1;
+		for (int segment = fromSegment + 1; segment < toSegment; ++segment) {
+			count += counts[segment];
+		}
+		return count;
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new SegmentIterator(low, high, descending);
+	}
+
+	/**
+	 * Steps through the segments directly; whenever the set changed underneath it, it finds its place again from the
+	 * last value it returned.
+	 */
+	private final class SegmentIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		private long position;
+		private long lastReturned = NONE;
+		private boolean canRemove;
+		private int expectedModCount = modCount;
+
+		SegmentIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			position = low > high ? -1 : start();
+		}
+
+		private long start() {
+			return checked(descending ? floorPosition((int) high, true) : ceilingPosition((int) low, true));
+		}
+
+		private long checked(long position) {
+			if (position < 0) {
+				return -1;
+			}
+			int value = valueAt(position);
+			return value >= low && value <= high ? position : -1;
+		}
+
+		private void sync() {
+			if (expectedModCount != modCount) {
+				expectedModCount = modCount;
+				if (lastReturned != NONE) {
+					int last = (int) lastReturned;
+					position = checked(descending ? floorPosition(last, false) : ceilingPosition(last, false));
+				}
+				else if (low <= high) {
+					position = start();
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			sync();
+			return position >= 0;
+		}
+
+		@Override
+		public int nextInt() {
+			sync();
+			if (position < 0) {
+				throw new NoSuchElementException();
+			}
+			int value = valueAt(position);
+			lastReturned = value;
+			canRemove = true;
+			position = checked(descending ? previousPosition(position) : nextPosition(position));
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			removeInt((int) lastReturned);
+		}
+	}
+}
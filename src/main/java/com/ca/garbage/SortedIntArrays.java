@@ -0,0 +1,364 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+
+/**
+ * Merge kernels over strictly ascending int[] prefixes, behind FastNavIntSet's set algebra. Inputs of similar size are
+ * walked side by side; once one side is more than GALLOP_RATIO times the other, each element of the smaller one
+ * gallops through the larger instead, and the runs skipped over are copied with System.arraycopy.
+ *
+ * Inputs are given as [from, to) ranges, since a FastNavIntSet's elements need not start at values[0]. Every kernel
+ * but the ranged andNot and unionWithRepeats, which write from outFrom, writes its result from out[0], and each returns
+ * the length of what it wrote. out may be the first input itself, as long as that range starts at or after the length
+ * of the second (see union), since no kernel writes past what it has already read.
+ */
+final class SortedIntArrays {
+	/**
+	 * Size ratio past which galloping beats a linear merge. A gallop costs about 2 log2(gap) comparisons against the gap
+	 * it skips, but they are less predictable; SetAlgebraBenchmark breaks even at around 16.
+	 */
+	static final int GALLOP_RATIO = 16;
+
+	private SortedIntArrays() {
+	}
+
+	private static boolean skewed(int small, int large) {
+		return (long) small * GALLOP_RATIO < large;
+	}
+
+	/**
+	 * Probes from, from + 1, from + 3, from + 7... until it passes key, then binary searches the last step, so finding
+	 * a value d positions on costs O(log d) rather than O(log(to - from)).
+	 *
+	 * @return the first index in a[from, to) holding a value >= key, to if there is none
+	 */
+	static int gallop(int[] a, int from, int to, int key) {
+		if (from >= to || a[from] >= key) {
+			return from;
+		}
+		int low = from;
+		int step = 1;
+		while (step < to - low && a[low + step] < key) {
+			low += step;
+			step <<= 1;
+		}
+		int high = step < to - low ? low + step : to;
+		// a[low] < key, and a[high] >= key unless high is to; unlike Arrays.binarySearch this lands on the first of
+		// repeated keys
+		++low;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (a[mid] < key) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Sorts values[0, size) and drops the duplicates.
+	 *
+	 * @return the number of distinct values left at the front
+	 */
+	static int sortDistinct(int[] values, int size) {
+		Arrays.sort(values, 0, size);
+		int distinct = 0;
+		for (int i = 0; i < size; ++i) {
+			if (distinct == 0 || values[distinct - 1] != values[i]) {
+				values[distinct++] = values[i];
+			}
+		}
+		return distinct;
+	}
+
+	/**
+	 * Writes the elements of a[aFrom, aTo) or b[bFrom, bTo).
+	 */
+	static int union(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+		return mergeAll(a, aFrom, aTo, b, bFrom, bTo, out, true);
+	}
+
+	/**
+	 * Writes the elements in exactly one of a[aFrom, aTo) and b[bFrom, bTo).
+	 */
+	static int xor(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+		return mergeAll(a, aFrom, aTo, b, bFrom, bTo, out, false);
+	}
+
+	private static int mergeAll(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out,
+			boolean keepCommon) {
+		int aSize = aTo - aFrom;
+		int bSize = bTo - bFrom;
+		if (skewed(aSize, bSize)) {
+			return mergeRuns(b, bFrom, bTo, a, aFrom, aTo, out, keepCommon);
+		}
+		if (skewed(bSize, aSize)) {
+			return mergeRuns(a, aFrom, aTo, b, bFrom, bTo, out, keepCommon);
+		}
+		int i = aFrom;
+		int j = bFrom;
+		int k = 0;
+		while (i < aTo && j < bTo) {
+			int x = a[i];
+			int y = b[j];
+			if (x < y) {
+				out[k++] = x;
+				++i;
+			}
+			else if (x > y) {
+				out[k++] = y;
+				++j;
+			}
+			else {
+				if (keepCommon) {
+					out[k++] = x;
+				}
+				++i;
+				++j;
+			}
+		}
+		System.arraycopy(a, i, out, k, aTo - i);
+		k += aTo - i;
+		System.arraycopy(b, j, out, k, bTo - j);
+		return k + bTo - j;
+	}
+
+	/**
+	 * Union of the distinct a[aFrom, aTo) and the ascending b[bFrom, bTo), which may repeat values, written from
+	 * out[outFrom]. With a null out the elements are only counted, so a caller can size and place the result first.
+	 *
+	 * @return the number of elements in the union
+	 */
+	static int unionWithRepeats(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out, int outFrom) {
+		int i = aFrom;
+		int j = bFrom;
+		int k = outFrom;
+		while (i < aTo && j < bTo) {
+			int x = a[i];
+			int y = b[j];
+			int value;
+			if (x < y) {
+				value = x;
+				++i;
+			}
+			else {
+				value = y;
+				if (x == y) {
+					++i;
+				}
+				do {
+					++j;
+				} while (j < bTo && b[j] == y);
+			}
+			if (out != null) {
+				out[k] = value;
+			}
+			++k;
+		}
+		if (out != null) {
+			System.arraycopy(a, i, out, k, aTo - i);
+		}
+		k += aTo - i;
+		while (j < bTo) {
+			int y = b[j];
+			if (out != null) {
+				out[k] = y;
+			}
+			++k;
+			do {
+				++j;
+			} while (j < bTo && b[j] == y);
+		}
+		return k - outFrom;
+	}
+
+	/**
+	 * Binary searches the int range for a value splitting a[aFrom, aTo) and b[bFrom, bTo) together at rank, so that
+	 * cutting both arrays at the same value gives pieces of about the size wanted and never separates equal values.
+	 *
+	 * @return the smallest value with at least rank elements of both arrays below it, 2^31 if there is none
+	 */
+	static long pivot(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, long rank) {
+		long low = Integer.MIN_VALUE;
+		long high = Integer.MAX_VALUE + 1L;
+		while (low < high) {
+			long mid = (low + high) >> 1;
+			int key = (int) mid;
+			if (gallop(a, aFrom, aTo, key) - aFrom + gallop(b, bFrom, bTo, key) - bFrom >= rank) {
+				high = mid;
+			}
+			else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Union or xor where small has far fewer elements: the runs of large between them are copied whole.
+	 */
+	private static int mergeRuns(int[] large, int largeFrom, int largeTo, int[] small, int smallFrom, int smallTo,
+			int[] out, boolean keepCommon) {
+		int k = 0;
+		int position = largeFrom;
+		for (int i = smallFrom; i < smallTo; ++i) {
+			int value = small[i];
+			int index = gallop(large, position, largeTo, value);
+			System.arraycopy(large, position, out, k, index - position);
+			k += index - position;
+			if (index < largeTo && large[index] == value) {
+				++index;
+				if (keepCommon) {
+					out[k++] = value;
+				}
+			}
+			else {
+				out[k++] = value;
+			}
+			position = index;
+		}
+		System.arraycopy(large, position, out, k, largeTo - position);
+		return k + largeTo - position;
+	}
+
+	/**
+	 * Writes the elements in both a[aFrom, aTo) and b[bFrom, bTo).
+	 */
+	static int intersect(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+		if (skewed(aTo - aFrom, bTo - bFrom)) {
+			return intersectGallop(a, aFrom, aTo, b, bFrom, bTo, out);
+		}
+		if (skewed(bTo - bFrom, aTo - aFrom)) {
+			return intersectGallop(b, bFrom, bTo, a, aFrom, aTo, out);
+		}
+		int i = aFrom;
+		int j = bFrom;
+		int k = 0;
+		while (i < aTo && j < bTo) {
+			int x = a[i];
+			int y = b[j];
+			if (x < y) {
+				++i;
+			}
+			else if (x > y) {
+				++j;
+			}
+			else {
+				out[k++] = x;
+				++i;
+				++j;
+			}
+		}
+		return k;
+	}
+
+	private static int intersectGallop(int[] small, int smallFrom, int smallTo, int[] large, int largeFrom, int largeTo,
+			int[] out) {
+		int k = 0;
+		int position = largeFrom;
+		for (int i = smallFrom; i < smallTo && position < largeTo; ++i) {
+			int value = small[i];
+			position = gallop(large, position, largeTo, value);
+			if (position < largeTo && large[position] == value) {
+				out[k++] = value;
+				++position;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * @return the number of elements in both a[aFrom, aTo) and b[bFrom, bTo), without writing them anywhere
+	 */
+	static int intersectCount(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+		if (skewed(bTo - bFrom, aTo - aFrom)) {
+			return intersectCount(b, bFrom, bTo, a, aFrom, aTo);
+		}
+		int count = 0;
+		if (skewed(aTo - aFrom, bTo - bFrom)) {
+			int position = bFrom;
+			for (int i = aFrom; i < aTo && position < bTo; ++i) {
+				position = gallop(b, position, bTo, a[i]);
+				if (position < bTo && b[position] == a[i]) {
+					++count;
+					++position;
+				}
+			}
+			return count;
+		}
+		int i = aFrom;
+		int j = bFrom;
+		while (i < aTo && j < bTo) {
+			int x = a[i];
+			int y = b[j];
+			if (x == y) {
+				++count;
+			}
+			if (x <= y) {
+				++i;
+			}
+			if (x >= y) {
+				++j;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the elements of a[aFrom, aTo) that are not in the ascending b[bFrom, bTo), which may repeat values, from
+	 * out[outFrom]. When out is a and outFrom is aFrom, the elements before the first match aren't copied at all.
+	 *
+	 * @return the number of elements written
+	 */
+	static int andNot(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out, int outFrom) {
+		int k = outFrom;
+		if (skewed(aTo - aFrom, bTo - bFrom)) {
+			int position = bFrom;
+			for (int i = aFrom; i < aTo; ++i) {
+				int value = a[i];
+				position = gallop(b, position, bTo, value);
+				if (position == bTo || b[position] != value) {
+					out[k++] = value;
+				}
+			}
+			return k - outFrom;
+		}
+		if (skewed(bTo - bFrom, aTo - aFrom)) {
+			int position = aFrom;
+			for (int j = bFrom; j < bTo && position < aTo; ++j) {
+				int index = gallop(a, position, aTo, b[j]);
+				if (out != a || k != position) {
+					System.arraycopy(a, position, out, k, index - position);
+				}
+				k += index - position;
+				position = index < aTo && a[index] == b[j] ? index + 1 : index;
+			}
+			if (out != a || k != position) {
+				System.arraycopy(a, position, out, k, aTo - position);
+			}
+			return k + aTo - position - outFrom;
+		}
+		int i = aFrom;
+		int j = bFrom;
+		while (i < aTo && j < bTo) {
+			int x = a[i];
+			int y = b[j];
+			if (x < y) {
+				out[k++] = x;
+				++i;
+			}
+			else if (x > y) {
+				++j;
+			}
+			else {
+				++i;
+				++j;
+			}
+		}
+		System.arraycopy(a, i, out, k, aTo - i);
+		return k + aTo - i - outFrom;
+	}
+}
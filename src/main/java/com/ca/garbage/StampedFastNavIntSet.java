@@ -0,0 +1,321 @@
+package com.ca.garbage;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread safe ascending IntNavigableSet over a FastNavIntSet guarded by a StampedLock. Lookups, navigation and size
+ * run as optimistic reads that take no lock at all: they read the arrays as they are and only keep the answer if no
+ * write happened meanwhile, otherwise (including when a torn read threw) they run again under the read lock. Changes
+ * take the write lock, so readers scale across cores as long as writes are comparatively rare.
+ *
+ * Iterators walk a copy of their range taken under the read lock, so they are weakly consistent: they never throw
+ * ConcurrentModificationException and don't see changes made after they were created.
+ */
+public class StampedFastNavIntSet extends AbstractIntNavigableSet {
+	private final FastNavIntSet set;
+	private final StampedLock lock = new StampedLock();
+
+	private StampedFastNavIntSet(FastNavIntSet set) {
+		this.set = set;
+	}
+
+	public static StampedFastNavIntSet create() {
+		return new StampedFastNavIntSet(FastNavIntSet.create());
+	}
+
+	public static StampedFastNavIntSet create(int... values) {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int value : values) {
+			set.addInt(value);
+		}
+		return new StampedFastNavIntSet(set);
+	}
+
+	/**
+	 * Must only be called under a lock or a validated optimistic stamp.
+	 */
+	private long valueAt(int index) {
+		return index >= 0 && index < set.size ? set.elementAt(index) : NONE;
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		long stamp = lock.tryOptimisticRead();
+		try {
+			long result = valueAt(set.ceilingIndex(value, inclusive));
+			if (lock.validate(stamp)) {
+				return result;
+			}
+		}
+		catch (RuntimeException tornRead) {
+			// a writer moved the arrays underneath, retried under the read lock
+		}
+		stamp = lock.readLock();
+		try {
+			return valueAt(set.ceilingIndex(value, inclusive));
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		long stamp = lock.tryOptimisticRead();
+		try {
+			long result = valueAt(set.ceilingIndex(value, !inclusive) - 1);
+			if (lock.validate(stamp)) {
+				return result;
+			}
+		}
+		catch (RuntimeException tornRead) {
+			// a writer moved the arrays underneath, retried under the read lock
+		}
+		stamp = lock.readLock();
+		try {
+			return valueAt(set.ceilingIndex(value, !inclusive) - 1);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		long stamp = lock.tryOptimisticRead();
+		try {
+			boolean result = set.containsInt(value);
+			if (lock.validate(stamp)) {
+				return result;
+			}
+		}
+		catch (RuntimeException tornRead) {
+			// a writer moved the arrays underneath, retried under the read lock
+		}
+		stamp = lock.readLock();
+		try {
+			return set.containsInt(value);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int size = set.size;
+		if (lock.validate(stamp)) {
+			return size;
+		}
+		stamp = lock.readLock();
+		try {
+			return set.size;
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		long stamp = lock.tryOptimisticRead();
+		try {
+			int count = set.ceilingIndex(high, false) - set.ceilingIndex(low, true);
+			if (lock.validate(stamp)) {
+				return count;
+			}
+		}
+		catch (RuntimeException tornRead) {
+			// a writer moved the arrays underneath, retried under the read lock
+		}
+		stamp = lock.readLock();
+		try {
+			return set.ceilingIndex(high, false) - set.ceilingIndex(low, true);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		long stamp = lock.writeLock();
+		try {
+			return set.addInt(value);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		long stamp = lock.writeLock();
+		try {
+			return set.removeInt(value);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Adds all values under one write lock.
+	 */
+	public boolean addAll(int[] values) {
+		long stamp = lock.writeLock();
+		try {
+			return set.addAll(values);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes all values under one write lock.
+	 */
+	public boolean removeAll(int[] values) {
+		long stamp = lock.writeLock();
+		try {
+			return set.removeAll(values);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Integer> c) {
+		int[] values = new int[c.size()];
+		int i = 0;
+		for (Integer value : c) {
+			values[i++] = value;
+		}
+		return addAll(values);
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			set.clear();
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes and returns the first or last element in one step, so concurrent polls never return the same element.
+	 */
+	private long poll(boolean last) {
+		long stamp = lock.writeLock();
+		try {
+			if (set.size == 0) {
+				return NONE;
+			}
+			int index = last ? set.size - 1 : 0;
+			int value = set.elementAt(index);
+			set.removeAtIndex(index);
+			return value;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Integer pollFirst() {
+		long value = poll(false);
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public Integer pollLast() {
+		long value = poll(true);
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		long value = poll(false);
+		return value == NONE ? missing : (int) value;
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		long value = poll(true);
+		return value == NONE ? missing : (int) value;
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		if (low > high) {
+			return new SnapshotIterator(new int[0], descending);
+		}
+		long stamp = lock.readLock();
+		try {
+			int from = set.ceilingIndex((int) low, true);
+			int to = set.ceilingIndex((int) high, false);
+			int[] snapshot = new int[Math.max(0, to - from)];
+			System.arraycopy(set.values, set.head + from, snapshot, 0, snapshot.length);
+			return new SnapshotIterator(snapshot, descending);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Iterates a copy of the range; remove() takes the element out of the live set.
+	 */
+	private final class SnapshotIterator implements PrimitiveIterator.OfInt {
+		private final int[] snapshot;
+		private final boolean descending;
+		private int next;
+		private boolean canRemove;
+
+		SnapshotIterator(int[] snapshot, boolean descending) {
+			this.snapshot = snapshot;
+			this.descending = descending;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < snapshot.length;
+		}
+
+		@Override
+		public int nextInt() {
+			if (next == snapshot.length) {
+				throw new NoSuchElementException();
+			}
+			canRemove = true;
+			int index = next++;
+			return snapshot[descending ? snapshot.length - 1 - index : index];
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException("next has not been called");
+			}
+			canRemove = false;
+			int index = next - 1;
+			removeInt(snapshot[descending ? snapshot.length - 1 - index : index]);
+		}
+	}
+}
@@ -0,0 +1,529 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread safe ascending IntNavigableSet for several writers, split into shards that each own an ordered, disjoint
+ * range of the int key space, with their own FastNavIntSet and StampedLock. Point operations lock only the shard of
+ * their key, and reads in a shard are optimistic like in StampedFastNavIntSet, so threads working on different key
+ * ranges don't contend. Navigation moves on to the neighbouring shards when its own has no answer.
+ *
+ * When a shard grows past twice the average it is evened out with its neighbours: a window of adjacent shards around
+ * it is locked, their elements are split evenly over as many new shards and the old ones are retired, so operations
+ * that were waiting on them retry on the new layout. Only the shards in the window are blocked meanwhile.
+ *
+ * Operations spanning shards, such as size, iteration and navigation across a boundary, are weakly consistent, like
+ * those of ConcurrentSkipListSet.
+ */
+public class StripedFastNavIntSet extends AbstractIntNavigableSet {
+	private static final int DEFAULT_SHARD_COUNT = 16;
+	private static final int MIN_REBALANCE_SIZE = 1 << 12;
+	private static final long RETIRED = Long.MIN_VALUE + 1;
+
+	private final int minRebalanceSize;
+	private volatile Layout layout;
+	private final LongAdder size = new LongAdder();
+	private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+	/**
+	 * The keys in [low, high]. Once retired its contents live in other shards and it must not be used.
+	 */
+	private static final class Shard {
+		final int low;
+		final int high;
+		final FastNavIntSet set;
+		final StampedLock lock = new StampedLock();
+		boolean retired;
+
+		Shard(int low, int high, FastNavIntSet set) {
+			this.low = low;
+			this.high = high;
+			this.set = set;
+		}
+	}
+
+	/**
+	 * The shards in key order, replaced as a whole when boundaries move. lows[i] is the smallest key of shards[i].
+	 */
+	private static final class Layout {
+		final int[] lows;
+		final Shard[] shards;
+
+		Layout(Shard[] shards) {
+			this.shards = shards;
+			lows = new int[shards.length];
+			for (int i = 0; i < shards.length; ++i) {
+				lows[i] = shards[i].low;
+			}
+		}
+
+		int indexFor(int value) {
+			int index = Arrays.binarySearch(lows, value);
+			return index >= 0 ? index : -(index + 1) - 1;
+		}
+	}
+
+	@FunctionalInterface
+	private interface ShardRead {
+		long apply(FastNavIntSet set);
+	}
+
+	StripedFastNavIntSet(int shardCount, int minRebalanceSize, int[] values) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("shardCount must be at least 1");
+		}
+		this.minRebalanceSize = minRebalanceSize;
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		layout = new Layout(split(sorted, distinct, Integer.MIN_VALUE, Integer.MAX_VALUE, shardCount));
+		size.add(distinct);
+	}
+
+	public static StripedFastNavIntSet create() {
+		return new StripedFastNavIntSet(DEFAULT_SHARD_COUNT, MIN_REBALANCE_SIZE, new int[0]);
+	}
+
+	public static StripedFastNavIntSet create(int... values) {
+		return new StripedFastNavIntSet(DEFAULT_SHARD_COUNT, MIN_REBALANCE_SIZE, values);
+	}
+
+	/**
+	 * @param shardCount the number of shards, which stays fixed; boundaries start at the quantiles of values, or evenly
+	 * spread over the int range if there are none
+	 */
+	public static StripedFastNavIntSet withShards(int shardCount, int... values) {
+		return new StripedFastNavIntSet(shardCount, MIN_REBALANCE_SIZE, values);
+	}
+
+	/**
+	 * Splits the distinct ascending values, all within [low, high], into count shards covering [low, high], with
+	 * near equal numbers of elements, or near equal key ranges when there are too few elements to tell them apart.
+	 */
+	private static Shard[] split(int[] sorted, int size, int low, int high, int count) {
+		int[] lows = new int[count];
+		lows[0] = low;
+		for (int i = 1; i < count; ++i) {
+			long boundary;
+			if (size >= count) {
+				boundary = sorted[(int) ((long) size * i / count)];
+			}
+			else {
+				boundary = low + ((long) high - low + 1) * i / count;
+			}
+			lows[i] = (int) Math.max(boundary, (long) lows[i - 1] + 1);
+		}
+		Shard[] shards = new Shard[count];
+		int from = 0;
+		for (int i = 0; i < count; ++i) {
+			int shardHigh = i + 1 < count ? lows[i + 1] - 1 : high;
+			int to = from;
+			while (to < size && sorted[to] <= shardHigh) {
+				++to;
+			}
+			FastNavIntSet set = FastNavIntSet.wrapSorted(Arrays.copyOfRange(sorted, from, to), to - from);
+			shards[i] = new Shard(lows[i], shardHigh, set);
+			from = to;
+		}
+		return shards;
+	}
+
+	/**
+	 * @return op's answer from the shard, or RETIRED if the shard has been replaced and the caller has to start over
+	 */
+	private static long read(Shard shard, ShardRead op) {
+		long stamp = shard.lock.tryOptimisticRead();
+		try {
+			boolean retired = shard.retired;
+			long result = retired ? RETIRED : op.apply(shard.set);
+			if (shard.lock.validate(stamp)) {
+				return result;
+			}
+		}
+		catch (RuntimeException tornRead) {
+			// a writer moved the arrays underneath, retried under the read lock
+		}
+		stamp = shard.lock.readLock();
+		try {
+			return shard.retired ? RETIRED : op.apply(shard.set);
+		}
+		finally {
+			shard.lock.unlockRead(stamp);
+		}
+	}
+
+	private static long ceilingIn(FastNavIntSet set, int value, boolean inclusive) {
+		int index = set.ceilingIndex(value, inclusive);
+		return index < set.size ? set.elementAt(index) : NONE;
+	}
+
+	private static long floorIn(FastNavIntSet set, int value, boolean inclusive) {
+		int index = set.ceilingIndex(value, !inclusive) - 1;
+		return index >= 0 ? set.elementAt(index) : NONE;
+	}
+
+	@Override
+	public boolean containsInt(int value) {
+		while (true) {
+			Layout current = layout;
+			long result = read(current.shards[current.indexFor(value)], set -> set.containsInt(value) ? 1 : 0);
+			if (result != RETIRED) {
+				return result == 1;
+			}
+		}
+	}
+
+	@Override
+	protected long ceilingValue(int value, boolean inclusive) {
+		while (true) {
+			Layout current = layout;
+			int index = current.indexFor(value);
+			long result = read(current.shards[index], set -> ceilingIn(set, value, inclusive));
+			while (result == NONE && ++index < current.shards.length) {
+				result = read(current.shards[index], set -> set.size == 0 ? NONE : set.elementAt(0));
+			}
+			if (result == RETIRED) {
+				continue;
+			}
+			return result;
+		}
+	}
+
+	@Override
+	protected long floorValue(int value, boolean inclusive) {
+		while (true) {
+			Layout current = layout;
+			int index = current.indexFor(value);
+			long result = read(current.shards[index], set -> floorIn(set, value, inclusive));
+			while (result == NONE && --index >= 0) {
+				result = read(current.shards[index], set -> set.size == 0 ? NONE : set.elementAt(set.size - 1));
+			}
+			if (result == RETIRED) {
+				continue;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The current number of elements in each shard, in key order.
+	 */
+	int[] shardSizes() {
+		Shard[] shards = layout.shards;
+		int[] sizes = new int[shards.length];
+		for (int i = 0; i < shards.length; ++i) {
+			sizes[i] = (int) read(shards[i], set -> set.size);
+		}
+		return sizes;
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size.sum()));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	protected int countBetween(int low, int high) {
+		if (low > high) {
+			return 0;
+		}
+		retry:
+		while (true) {
+			Layout current = layout;
+			long count = 0;
+			for (int index = current.indexFor(low); index < current.shards.length; ++index) {
+				Shard shard = current.shards[index];
+				if (shard.low > high) {
+					break;
+				}
+				long result = read(shard, set -> set.ceilingIndex(high, false) - set.ceilingIndex(low, true));
+				if (result == RETIRED) {
+					continue retry;
+				}
+				count += result;
+			}
+			return (int) Math.min(count, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Runs a change on the shard of value under its write lock, retrying if that shard was retired meanwhile.
+	 */
+	private boolean write(int value, boolean add) {
+		while (true) {
+			Layout current = layout;
+			int index = current.indexFor(value);
+			Shard shard = current.shards[index];
+			long stamp = shard.lock.writeLock();
+			boolean changed;
+			int shardSize;
+			try {
+				if (shard.retired) {
+					continue;
+				}
+				changed = add ? shard.set.addInt(value) : shard.set.removeInt(value);
+				shardSize = shard.set.size;
+			}
+			finally {
+				shard.lock.unlockWrite(stamp);
+			}
+			if (changed) {
+				size.add(add ? 1 : -1);
+				if (add && shardSize > minRebalanceSize && shardSize > 2 * size.sum() / current.shards.length) {
+					rebalance(shard);
+				}
+			}
+			return changed;
+		}
+	}
+
+	@Override
+	public boolean addInt(int value) {
+		return write(value, true);
+	}
+
+	@Override
+	public boolean removeInt(int value) {
+		return write(value, false);
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Integer> c) {
+		boolean changed = false;
+		for (Integer value : c) {
+			changed |= addInt(value);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		retry:
+		while (true) {
+			Layout current = layout;
+			for (Shard shard : current.shards) {
+				long stamp = shard.lock.writeLock();
+				try {
+					if (shard.retired) {
+						continue retry;
+					}
+					size.add(-shard.set.size);
+					shard.set.clear();
+				}
+				finally {
+					shard.lock.unlockWrite(stamp);
+				}
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Evens out an oversized shard with its neighbours: the window of shards around it grows towards the smaller side
+	 * until it holds no more than its share of the elements, then its elements are split evenly over that many new
+	 * shards. Skipped if another rebalance is running, as the shard will trip the check again on its next add.
+	 */
+	private void rebalance(Shard shard) {
+		if (!rebalanceLock.tryLock()) {
+			return;
+		}
+		try {
+			Layout current = layout;
+			Shard[] shards = current.shards;
+			int index = current.indexFor(shard.low);
+			if (shards[index] != shard || shards.length == 1) {
+				return;
+			}
+			// sizes are read unlocked, they only steer the choice of window
+			long total = size.sum();
+			int from = index;
+			int to = index + 1;
+			long windowSize = shard.set.size;
+			while (to - from < shards.length && windowSize * shards.length > total * (to - from)) {
+				if (to == shards.length || from > 0 && shards[from - 1].set.size <= shards[to].set.size) {
+					windowSize += shards[--from].set.size;
+				}
+				else {
+					windowSize += shards[to++].set.size;
+				}
+			}
+			long[] stamps = new long[to - from];
+			for (int i = from; i < to; ++i) {
+				stamps[i - from] = shards[i].lock.writeLock();
+			}
+			try {
+				int count = 0;
+				for (int i = from; i < to; ++i) {
+					count += shards[i].set.size;
+				}
+				int[] combined = new int[count];
+				count = 0;
+				for (int i = from; i < to; ++i) {
+					System.arraycopy(shards[i].set.values, shards[i].set.head, combined, count, shards[i].set.size);
+					count += shards[i].set.size;
+				}
+				Shard[] replacement = split(combined, count, shards[from].low, shards[to - 1].high, to - from);
+				Shard[] updated = shards.clone();
+				System.arraycopy(replacement, 0, updated, from, replacement.length);
+				layout = new Layout(updated);
+				for (int i = from; i < to; ++i) {
+					shards[i].retired = true;
+				}
+			}
+			finally {
+				for (int i = to - 1; i >= from; --i) {
+					shards[i].lock.unlockWrite(stamps[i - from]);
+				}
+			}
+		}
+		finally {
+			rebalanceLock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the first or last element and retries if another writer removed it first, so concurrent polls never
+	 * return the same element.
+	 */
+	private long poll(boolean last) {
+		while (true) {
+			long value = last ? floorValue(Integer.MAX_VALUE, true) : ceilingValue(Integer.MIN_VALUE, true);
+			if (value == NONE || removeInt((int) value)) {
+				return value;
+			}
+		}
+	}
+
+	@Override
+	public Integer pollFirst() {
+		long value = poll(false);
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public Integer pollLast() {
+		long value = poll(true);
+		return value == NONE ? null : (int) value;
+	}
+
+	@Override
+	public int pollFirstIntOrElse(int missing) {
+		long value = poll(false);
+		return value == NONE ? missing : (int) value;
+	}
+
+	@Override
+	public int pollLastIntOrElse(int missing) {
+		long value = poll(true);
+		return value == NONE ? missing : (int) value;
+	}
+
+	@Override
+	protected PrimitiveIterator.OfInt rangeIterator(long low, long high, boolean descending) {
+		return new ShardIterator(low, high, descending);
+	}
+
+	/**
+	 * Copies one shard's part of the range at a time, under that shard's read lock, and moves on to the next shard
+	 * from the last key covered, finding it again in the current layout.
+	 */
+	private final class ShardIterator implements PrimitiveIterator.OfInt {
+		private final long low;
+		private final long high;
+		private final boolean descending;
+		/**
+		 * The next key not yet covered by a copied chunk, in iteration order.
+		 */
+		private long resume;
+		private int[] chunk = new int[0];
+		private int next;
+		private long lastReturned = NONE;
+
+		ShardIterator(long low, long high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			resume = descending ? high : low;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == chunk.length) {
+				if (resume < low || resume > high) {
+					return false;
+				}
+				fetch();
+			}
+			return true;
+		}
+
+		/**
+		 * Copies the part of the range in the shard holding resume.
+		 */
+		private void fetch() {
+			while (true) {
+				Layout current = layout;
+				Shard shard = current.shards[current.indexFor((int) resume)];
+				long stamp = shard.lock.readLock();
+				try {
+					if (shard.retired) {
+						continue;
+					}
+					int from = descending ? Math.max(shard.low, (int) low) : (int) resume;
+					int to = descending ? (int) resume : Math.min(shard.high, (int) high);
+					int fromIndex = shard.set.head + shard.set.ceilingIndex(from, true);
+					int toIndex = shard.set.head + shard.set.ceilingIndex(to, false);
+					int[] copy = Arrays.copyOfRange(shard.set.values, fromIndex, Math.max(fromIndex, toIndex));
+					if (descending) {
+						for (int i = 0, j = copy.length - 1; i < j; ++i, --j) {
+							int swap = copy[i];
+							copy[i] = copy[j];
+							copy[j] = swap;
+						}
+					}
+					chunk = copy;
+					next = 0;
+					resume = descending ? (long) shard.low - 1 : (long) shard.high + 1;
+					return;
+				}
+				finally {
+					shard.lock.unlockRead(stamp);
+				}
+			}
+		}
+
+		@Override
+		public int nextInt() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = chunk[next++];
+			return (int) lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == NONE) {
+				throw new IllegalStateException("next has not been called");
+			}
+			removeInt((int) lastReturned);
+			lastReturned = NONE;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.ca.garbage;
+
+/**
+ * Picks the IntArrayOps implementation. On JDK 21+ that is VectorIntArrayOps when the incubating
+ * jdk.incubator.vector module has been added (--add-modules jdk.incubator.vector) and the
+ * com.ca.garbage.vector system property isn't false, otherwise the scalar one.
+ */
+final class IntArrayOpsProvider {
+	static final String VECTOR_PROPERTY = "com.ca.garbage.vector";
+
+	private IntArrayOpsProvider() {
+	}
+
+	static IntArrayOps create() {
+		if (Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			try {
+				return (IntArrayOps) Class.forName("com.ca.garbage.VectorIntArrayOps")
+					.getDeclaredConstructor()
+					.newInstance();
+			}
+			catch (ReflectiveOperationException | LinkageError e) {
+				return new ScalarIntArrayOps();
+			}
+		}
+		return new ScalarIntArrayOps();
+	}
+}
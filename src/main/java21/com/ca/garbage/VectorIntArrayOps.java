@@ -0,0 +1,58 @@
+package com.ca.garbage;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * IntArrayOps on the Vector API. search compares a whole vector of the chunk against the key at once and takes the
+ * first lane that isn't below it, which for a sorted array is the insertion point.
+ */
+final class VectorIntArrayOps extends IntArrayOps {
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	@Override
+	int search(int[] a, int fromIndex, int toIndex, int key) {
+		IntVector keys = IntVector.broadcast(SPECIES, key);
+		int lanes = SPECIES.length();
+		int i = fromIndex;
+		int bound = fromIndex + SPECIES.loopBound(toIndex - fromIndex);
+		for (; i < bound; i += lanes) {
+			VectorMask<Integer> notBelow = IntVector.fromArray(SPECIES, a, i).compare(VectorOperators.GE, keys);
+			if (notBelow.anyTrue()) {
+				return found(a, i + notBelow.firstTrue(), key);
+			}
+		}
+		for (; i < toIndex; i++) {
+			if (a[i] >= key) {
+				return found(a, i, key);
+			}
+		}
+		return -(toIndex + 1);
+	}
+
+	private static int found(int[] a, int index, int key) {
+		return a[index] == key ? index : -(index + 1);
+	}
+
+	@Override
+	int mismatch(int[] a, int aFromIndex, int[] b, int bFromIndex, int length) {
+		int lanes = SPECIES.length();
+		int i = 0;
+		int bound = SPECIES.loopBound(length);
+		for (; i < bound; i += lanes) {
+			VectorMask<Integer> different = IntVector.fromArray(SPECIES, a, aFromIndex + i)
+				.compare(VectorOperators.NE, IntVector.fromArray(SPECIES, b, bFromIndex + i));
+			if (different.anyTrue()) {
+				return i + different.firstTrue();
+			}
+		}
+		for (; i < length; i++) {
+			if (a[aFromIndex + i] != b[bFromIndex + i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,343 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Checks an IntNavigableSet implementation against a TreeSet: random mutations, navigation, views of views in both
+ * directions and iterator removal. Subclasses supply the sets.
+ */
+public abstract class AbstractIntNavigableSetTest {
+	Random rnd = new Random(666);
+
+	protected abstract IntNavigableSet newSet();
+
+	protected IntNavigableSet newSet(int... values) {
+		IntNavigableSet set = newSet();
+		for (int value : values) {
+			set.addInt(value);
+		}
+		return set;
+	}
+
+	/**
+	 * Whether the set can be changed after it was created.
+	 */
+	protected boolean mutable() {
+		return true;
+	}
+
+	private int[] randomValues(int count, int bound) {
+		int[] out = new int[count];
+		for (int i = 0; i < count; ++i) {
+			out[i] = rnd.nextInt(bound);
+		}
+		return out;
+	}
+
+	private static TreeSet<Integer> reference(int... values) {
+		TreeSet<Integer> out = new TreeSet<>();
+		for (int value : values) {
+			out.add(value);
+		}
+		return out;
+	}
+
+	@Test
+	public void testEmpty() {
+		IntNavigableSet set = newSet(new int[0]);
+		assertTrue(set.isEmpty());
+		assertEquals(0, set.size());
+		assertFalse(set.iterator().hasNext());
+		assertNull(set.ceiling(0));
+		assertEquals(-1, set.lowerIntOrElse(0, -1));
+		try {
+			set.firstInt();
+			fail();
+		}
+		catch (NoSuchElementException success) {
+		}
+	}
+
+	@Test
+	public void testContents() {
+		int[] values = randomValues(5000, 20000);
+		IntNavigableSet set = newSet(values);
+		TreeSet<Integer> expected = reference(values);
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected, set);
+		assertEquals(set, expected);
+		assertEquals(expected.hashCode(), set.hashCode());
+		assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+		assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(set.descendingSet()));
+		assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.intStream().toArray());
+	}
+
+	@Test
+	public void testNavigation() {
+		int[] values = randomValues(2000, 10000);
+		IntNavigableSet set = newSet(values);
+		checkAgainst(reference(values), set, -10, 10010);
+	}
+
+	@Test
+	public void testExtremeValues() {
+		IntNavigableSet set = newSet(Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE);
+		assertEquals(Integer.MIN_VALUE, set.firstInt());
+		assertEquals(Integer.MAX_VALUE, set.lastInt());
+		assertEquals(-1, set.lowerInt(0));
+		assertNull(set.lower(Integer.MIN_VALUE));
+		assertNull(set.higher(Integer.MAX_VALUE));
+		assertEquals(2, set.tailSet(0, true).size());
+		assertEquals(1, set.tailSet(0, false).size());
+		assertEquals(0, set.tailSet(Integer.MAX_VALUE, false).size());
+		assertEquals(0, set.headSet(Integer.MIN_VALUE, false).size());
+		assertEquals(Integer.MAX_VALUE, set.descendingSet().firstInt());
+	}
+
+	@Test
+	public void testRandomMutations() {
+		if (!mutable()) {
+			return;
+		}
+		IntNavigableSet set = newSet();
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 50000; ++i) {
+			int value = rnd.nextInt(4000);
+			if (rnd.nextInt(3) == 0) {
+				assertEquals(expected.remove(value), set.removeInt(value));
+			}
+			else {
+				assertEquals(expected.add(value), set.addInt(value));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		assertEquals(expected, set);
+		checkAgainst(expected, set, -5, 4005);
+		while (!expected.isEmpty()) {
+			assertEquals(expected.pollFirst(), set.pollFirst());
+			assertEquals(expected.pollLast(), set.pollLast());
+		}
+		assertTrue(set.isEmpty());
+		assertEquals(-1, set.pollFirstIntOrElse(-1));
+	}
+
+	@Test
+	public void testGrowAndShrink() {
+		if (!mutable()) {
+			return;
+		}
+		IntNavigableSet set = newSet();
+		for (int i = 0; i < 100000; ++i) {
+			assertTrue(set.addInt(i * 3));
+		}
+		assertEquals(100000, set.size());
+		for (int i = 0; i < 100000; i += 2) {
+			assertTrue(set.removeInt(i * 3));
+		}
+		assertEquals(50000, set.size());
+		for (int i = 1; i < 100000; i += 2) {
+			assertTrue(set.containsInt(i * 3));
+			assertFalse(set.containsInt(i * 3 - 3));
+		}
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertTrue(set.addInt(7));
+		assertEquals(7, set.firstInt());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		if (!mutable()) {
+			return;
+		}
+		int[] values = randomValues(3000, 10000);
+		IntNavigableSet set = newSet(values);
+		TreeSet<Integer> expected = reference(values);
+		for (Iterator<Integer> it = set.iterator(); it.hasNext();) {
+			int value = it.next();
+			if (rnd.nextBoolean()) {
+				it.remove();
+				expected.remove(value);
+			}
+		}
+		assertEquals(expected, set);
+		for (Iterator<Integer> it = set.descendingIterator(); it.hasNext();) {
+			int value = it.next();
+			if (rnd.nextBoolean()) {
+				it.remove();
+				expected.remove(value);
+			}
+		}
+		assertEquals(expected, set);
+		PrimitiveIterator.OfInt it = set.intIterator();
+		try {
+			it.remove();
+			fail();
+		}
+		catch (IllegalStateException success) {
+		}
+	}
+
+	@Test
+	public void testViews() {
+		int[] values = randomValues(1000, 2000);
+		IntNavigableSet set = newSet(values);
+		TreeSet<Integer> expected = reference(values);
+		bashViews(expected, set, -1, 2001, 0);
+	}
+
+	@Test
+	public void testViewMutation() {
+		if (!mutable()) {
+			return;
+		}
+		int[] values = randomValues(1000, 2000);
+		IntNavigableSet set = newSet(values);
+		TreeSet<Integer> expected = reference(values);
+		IntNavigableSet view = set.subSet(500, true, 1500, false);
+		NavigableSet<Integer> expectedView = expected.subSet(500, true, 1500, false);
+		for (int i = 0; i < 2000; ++i) {
+			int value = 500 + rnd.nextInt(1000);
+			if (rnd.nextBoolean()) {
+				assertEquals(expectedView.add(value), view.addInt(value));
+			}
+			else {
+				assertEquals(expectedView.remove(value), view.removeInt(value));
+			}
+		}
+		assertEquals(expected, set);
+		assertEquals(expectedView, view);
+		try {
+			view.addInt(1500);
+			fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+		try {
+			view.subSet(400, true, 600, true);
+			fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+	}
+
+	private void bashViews(NavigableSet<Integer> expected, IntNavigableSet set, int min, int max, int depth) {
+		checkAgainst(expected, set, min, max);
+		if (depth == 4 || max - min < 4) {
+			return;
+		}
+		int a = min + rnd.nextInt(max - min);
+		int b = min + rnd.nextInt(max - min);
+		int from = Math.min(a, b);
+		int to = Math.max(a, b);
+		boolean fromInclusive = rnd.nextBoolean();
+		boolean toInclusive = rnd.nextBoolean();
+		boolean ascending = expected.comparator() == null || expected.comparator().compare(0, 1) < 0;
+		int low = fromInclusive ? from : from + 1;
+		int high = toInclusive ? to : to - 1;
+		if (ascending) {
+			bashViews(expected.subSet(from, fromInclusive, to, toInclusive),
+								set.subSet(from, fromInclusive, to, toInclusive), low, high, depth + 1);
+			bashViews(expected.headSet(to, toInclusive), set.headSet(to, toInclusive), min, high, depth + 1);
+			bashViews(expected.tailSet(from, fromInclusive), set.tailSet(from, fromInclusive), low, max, depth + 1);
+		}
+		else {
+			bashViews(expected.subSet(to, toInclusive, from, fromInclusive),
+								set.subSet(to, toInclusive, from, fromInclusive), low, high, depth + 1);
+			bashViews(expected.headSet(from, fromInclusive), set.headSet(from, fromInclusive), low, max, depth + 1);
+			bashViews(expected.tailSet(to, toInclusive), set.tailSet(to, toInclusive), min, high, depth + 1);
+		}
+		bashViews(expected.descendingSet(), set.descendingSet(), min, max, depth + 1);
+	}
+
+	/**
+	 * The spliterator reports the characteristics IntNavigableSet promises, exact sizes down its splits, and the
+	 * elements in order when the splits are read back prefix first.
+	 */
+	private static void checkSpliterator(NavigableSet<Integer> expected, IntNavigableSet set) {
+		Spliterator.OfInt spliterator = set.intSpliterator();
+		int promised = Spliterator.SIZED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED;
+		assertEquals(promised, spliterator.characteristics() & promised);
+		assertEquals(set.comparator() == FastNavIntSet.REVERSE ? FastNavIntSet.REVERSE : null,
+				spliterator.getComparator());
+		assertEquals(expected.size(), spliterator.estimateSize());
+		List<Integer> out = new ArrayList<>();
+		drain(spliterator, out, 0);
+		assertEquals(new ArrayList<>(expected), out);
+		assertEquals(expected.size(), set.intStream().parallel().count());
+	}
+
+	private static void drain(Spliterator.OfInt spliterator, List<Integer> out, int depth) {
+		if (depth == 1) {
+			spliterator.tryAdvance((IntConsumer) out::add);
+		}
+		long size = spliterator.estimateSize();
+		Spliterator.OfInt prefix = depth < 5 ? spliterator.trySplit() : null;
+		if (prefix == null) {
+			spliterator.forEachRemaining((IntConsumer) out::add);
+			return;
+		}
+		if (spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+			assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+		}
+		drain(prefix, out, depth + 1);
+		drain(spliterator, out, depth + 1);
+	}
+
+	private static void checkAgainst(NavigableSet<Integer> expected, IntNavigableSet set, int min, int max) {
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected.isEmpty(), set.isEmpty());
+		assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+		List<Integer> primitive = new ArrayList<>();
+		set.forEachInt(primitive::add);
+		assertEquals(new ArrayList<>(expected), primitive);
+		assertEquals(new ArrayList<>(expected.descendingSet()), toList(set.descendingIterator()));
+		assertEquals(expected.size(), set.intStream().count());
+		checkSpliterator(expected, set);
+		if (!expected.isEmpty()) {
+			assertEquals(expected.first(), set.first());
+			assertEquals(expected.last(), set.last());
+			assertEquals((int) expected.first(), set.firstInt());
+			assertEquals((int) expected.last(), set.lastInt());
+		}
+		for (int value = min; value <= max; ++value) {
+			assertEquals(expected.contains(value), set.containsInt(value));
+			assertEquals(expected.lower(value), set.lower(value));
+			assertEquals(expected.floor(value), set.floor(value));
+			assertEquals(expected.ceiling(value), set.ceiling(value));
+			assertEquals(expected.higher(value), set.higher(value));
+			assertEquals(orElse(expected.lower(value)), set.lowerIntOrElse(value, Integer.MIN_VALUE));
+			assertEquals(orElse(expected.floor(value)), set.floorIntOrElse(value, Integer.MIN_VALUE));
+			assertEquals(orElse(expected.ceiling(value)), set.ceilingIntOrElse(value, Integer.MIN_VALUE));
+			assertEquals(orElse(expected.higher(value)), set.higherIntOrElse(value, Integer.MIN_VALUE));
+		}
+	}
+
+	private static int orElse(Integer value) {
+		return value == null ? Integer.MIN_VALUE : value;
+	}
+
+	private static List<Integer> toList(Iterator<Integer> it) {
+		List<Integer> out = new ArrayList<>();
+		while (it.hasNext()) {
+			out.add(it.next());
+		}
+		return out;
+	}
+}
@@ -0,0 +1,142 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ConcurrentFastNavIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return ConcurrentFastNavIntSet.create();
+	}
+
+	@Test
+	public void testBulkUpdatesPublishOnce() {
+		ConcurrentFastNavIntSet set = ConcurrentFastNavIntSet.create();
+		int[] values = new int[1000];
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = values.length - i;
+		}
+		assertTrue(set.addAll(values));
+		assertEquals(1, set.publishes);
+		assertEquals(values.length, set.size());
+		assertFalse(set.addAll(new int[] {1, 2, 3}));
+		assertEquals(1, set.publishes);
+		assertTrue(set.removeAll(new int[] {5, 5, -1}));
+		assertEquals(2, set.publishes);
+		assertEquals(values.length - 1, set.size());
+		assertTrue(set.addAll(new int[] {-7, -7}));
+		assertTrue(set.containsInt(-7));
+	}
+
+	/**
+	 * Threads adding and then removing their own keys each see every one of their updates succeed, whichever batches
+	 * they end up in, and readers only ever see whole snapshots.
+	 */
+	@Test
+	public void testConcurrentWriters() throws Exception {
+		int threads = 4;
+		int perThread = 2000;
+		ConcurrentFastNavIntSet set = ConcurrentFastNavIntSet.create();
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int t = 0; t < threads; ++t) {
+				int offset = t;
+				writers.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < perThread; ++i) {
+						assertTrue(set.addInt(i * threads + offset));
+					}
+					for (int i = 0; i < perThread; i += 2) {
+						assertTrue(set.removeInt(i * threads + offset));
+						assertFalse(set.removeInt(i * threads + offset));
+					}
+					return null;
+				}));
+			}
+			Future<?> reader = executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < 1000; ++i) {
+					int previous = Integer.MIN_VALUE;
+					int count = 0;
+					for (PrimitiveIterator.OfInt iterator = set.intIterator(); iterator.hasNext(); ++count) {
+						int value = iterator.nextInt();
+						assertTrue(value > previous);
+						previous = value;
+					}
+					assertTrue(count <= threads * perThread);
+				}
+				return null;
+			});
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get(1, TimeUnit.MINUTES);
+			}
+			reader.get(1, TimeUnit.MINUTES);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(threads * perThread / 2, set.size());
+		for (int i = 0; i < threads * perThread; ++i) {
+			assertEquals((i / threads) % 2 == 1, set.containsInt(i));
+		}
+		assertTrue(set.publishes <= threads * perThread * 3 / 2);
+	}
+
+	/**
+	 * Concurrent polls hand out every element exactly once.
+	 */
+	@Test
+	public void testConcurrentPoll() throws Exception {
+		int count = 5000;
+		int[] values = new int[count];
+		for (int i = 0; i < count; ++i) {
+			values[i] = i;
+		}
+		ConcurrentFastNavIntSet set = ConcurrentFastNavIntSet.create(values);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<boolean[]>> pollers = new ArrayList<>();
+			for (int p = 0; p < 4; ++p) {
+				boolean last = p % 2 == 0;
+				pollers.add(executor.submit(() -> {
+					boolean[] seen = new boolean[count];
+					int value;
+					while ((value = last ? set.pollLastIntOrElse(-1) : set.pollFirstIntOrElse(-1)) != -1) {
+						seen[value] = true;
+					}
+					return seen;
+				}));
+			}
+			boolean[] all = new boolean[count];
+			int total = 0;
+			for (Future<boolean[]> poller : pollers) {
+				boolean[] seen = poller.get(1, TimeUnit.MINUTES);
+				for (int i = 0; i < count; ++i) {
+					if (seen[i]) {
+						assertFalse(all[i]);
+						all[i] = true;
+						++total;
+					}
+				}
+			}
+			assertEquals(count, total);
+			assertTrue(set.isEmpty());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class EliasFanoIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return EliasFanoIntSet.of();
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		return EliasFanoIntSet.of(values);
+	}
+
+	@Override
+	protected boolean mutable() {
+		return false;
+	}
+
+	@Test
+	public void testCopyOf() {
+		FastNavIntSet source = FastNavIntSet.create();
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 10000; ++i) {
+			int value = rnd.nextInt();
+			source.addInt(value);
+			expected.add(value);
+		}
+		EliasFanoIntSet set = EliasFanoIntSet.copyOf(source);
+		assertEquals(expected, set);
+		assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(set.descendingSet()));
+		for (int i = 0; i < 10000; ++i) {
+			int value = rnd.nextInt();
+			assertEquals(expected.ceiling(value), set.ceiling(value));
+			assertEquals(expected.lower(value), set.lower(value));
+		}
+		for (int value : expected) {
+			assertTrue(set.containsInt(value));
+			assertEquals(expected.higher(value), set.higher(value));
+			assertEquals(expected.lower(value), set.lower(value));
+		}
+		assertEquals(expected, EliasFanoIntSet.copyOf(FastNavIntSet.fromCollection(source, false)));
+	}
+
+	@Test
+	public void testReadOnly() {
+		EliasFanoIntSet set = EliasFanoIntSet.of(1, 2, 3);
+		try {
+			set.addInt(4);
+			fail();
+		}
+		catch (UnsupportedOperationException success) {
+		}
+		try {
+			set.pollFirst();
+			fail();
+		}
+		catch (UnsupportedOperationException success) {
+		}
+		assertEquals(3, set.size());
+	}
+
+	/**
+	 * About 2 + log(u/n) bits per element plus the select samples.
+	 */
+	@Test
+	public void testMemory() {
+		int[] values = new int[1000000];
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = rnd.nextInt(1 << 26);
+		}
+		EliasFanoIntSet set = EliasFanoIntSet.of(values);
+		double bitsPerElement = 8.0 * set.sizeInBytes() / set.size();
+		assertTrue(bitsPerElement < 2 + 7 + 2);
+		assertTrue(set.sizeInBytes() * 3 < 4L * set.size());
+	}
+}
@@ -2,17 +2,24 @@ package com.ca.garbage;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.TreeSet;
 import junit.framework.Assert;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -559,6 +566,109 @@ public class FastNavIntSetTest {
 		assertTrue(y.isEmpty());
 	}
 
+	private static byte[] serialize(Object o) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oout = new ObjectOutputStream(out);
+		oout.writeObject(o);
+		oout.close();
+		return out.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws Exception {
+		return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+	}
+
+	/**
+	 * The serialized form is delta encoded and comes back right-sized and in the same order
+	 */
+	@Test
+	public void testCompactSerialization() throws Exception {
+		FastNavIntSet dense = FastNavIntSet.create();
+		for (int i = 0; i < 100000; ++i) {
+			dense.addInt(i * 3);
+		}
+		byte[] bytes = serialize(dense);
+		assertTrue(bytes.length < 100000 + 1000);
+		FastNavIntSet copy = (FastNavIntSet) deserialize(bytes);
+		assertEquals(dense, copy);
+		assertEquals(copy.size(), copy.values.length);
+
+		FastNavIntSet wide = FastNavIntSet.create(false);
+		wide.addInt(Integer.MIN_VALUE);
+		wide.addInt(Integer.MAX_VALUE);
+		for (int i = 0; i < 1000; ++i) {
+			wide.addInt(rnd.nextInt());
+		}
+		FastNavIntSet wideCopy = (FastNavIntSet) deserialize(serialize(wide));
+		assertEquals(wide, wideCopy);
+		assertEquals(Integer.MAX_VALUE, (int) wideCopy.first());
+		wideCopy.addInt(5);
+		assertTrue(wideCopy.containsInt(5));
+
+		FastNavIntSet empty = (FastNavIntSet) deserialize(serialize(FastNavIntSet.create()));
+		assertTrue(empty.isEmpty());
+		assertTrue(empty.add(1));
+	}
+
+	/**
+	 * A stream claiming far more elements or bytes than it holds fails on the missing data instead of allocating for them
+	 */
+	@Test
+	public void testSerializationDoesNotTrustCounts() throws Exception {
+		byte[] bytes = serialize(FastNavIntSet.create(10, 11, 20));
+		// format 1, size 3, first value 10, then one block of 2 bytes
+		byte[] header = {1, 0, 0, 0, 3, 0, 0, 0, 10, 0, 0, 0, 2};
+		int at = indexOf(bytes, header);
+		assertTrue(at >= 0);
+
+		byte[] hugeSize = bytes.clone();
+		hugeSize[at + 1] = 0x7F;
+		assertDeserializeFails(hugeSize);
+
+		byte[] hugeBlock = bytes.clone();
+		hugeBlock[at + 9] = 0x7F;
+		assertDeserializeFails(hugeBlock);
+	}
+
+	/**
+	 * A gap whose fifth varint byte sets bits past 31, or asks for a sixth byte, is rejected
+	 */
+	@Test
+	public void testSerializationRejectsOversizedGap() throws Exception {
+		byte[] bytes = serialize(FastNavIntSet.create(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		// format 1, size 2, first value MIN_VALUE, then one block holding the gap 0xFFFFFFFE in 5 bytes
+		byte[] data = {1, 0, 0, 0, 2, -128, 0, 0, 0, 0, 0, 0, 5, -2, -1, -1, -1, 0x0F};
+		int at = indexOf(bytes, data);
+		assertTrue(at >= 0);
+		assertEquals(FastNavIntSet.create(Integer.MIN_VALUE, Integer.MAX_VALUE), deserialize(bytes));
+
+		byte[] highBits = bytes.clone();
+		highBits[at + data.length - 1] = 0x1F;
+		assertDeserializeFails(highBits);
+
+		byte[] sixthByte = bytes.clone();
+		sixthByte[at + data.length - 1] = (byte) 0x8F;
+		assertDeserializeFails(sixthByte);
+	}
+
+	private static int indexOf(byte[] bytes, byte[] pattern) {
+		for (int i = 0; i + pattern.length <= bytes.length; ++i) {
+			if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + pattern.length), pattern)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void assertDeserializeFails(byte[] bytes) throws Exception {
+		try {
+			deserialize(bytes);
+			Assert.fail();
+		}
+		catch (IOException success) {
+		}
+	}
+
 	/**
 	 * subSet returns set with keys in requested range
 	 */
@@ -682,6 +792,193 @@ public class FastNavIntSetTest {
 		assertEquals(4, set.size());
 	}
 
+	/**
+	 * The unboxed navigation methods agree with the boxed ones
+	 */
+	@Test
+	public void testPrimitiveNavigation() {
+		FastNavIntSet q = set5();
+		assertEquals(2, q.lowerInt(3));
+		assertEquals(3, q.floorInt(3));
+		assertEquals(3, q.ceilingInt(3));
+		assertEquals(4, q.higherInt(3));
+		assertEquals(-1, q.lowerIntOrElse(1, -1));
+		assertEquals(-1, q.higherIntOrElse(5, -1));
+		assertEquals(5, q.floorIntOrElse(1000, -1));
+		assertEquals(1, q.ceilingIntOrElse(-1000, -1));
+		assertEquals(1, q.firstInt());
+		assertEquals(5, q.lastInt());
+		assertTrue(q.containsInt(4));
+		assertTrue(q.removeInt(4));
+		assertFalse(q.containsInt(4));
+		assertTrue(q.addInt(4));
+		assertEquals(1, q.pollFirstIntOrElse(-1));
+		assertEquals(5, q.pollLastIntOrElse(-1));
+
+		FastNavIntSet r = FastNavIntSet.create(new int[]{1, 2, 3, 4, 5}, false);
+		assertEquals(4, r.lowerInt(3));
+		assertEquals(2, r.higherInt(3));
+		assertEquals(5, r.firstInt());
+		IntNavigableSet view = r.headSet(3, false);
+		assertEquals(4, view.lastInt());
+		assertEquals(-1, view.higherIntOrElse(4, -1));
+		assertEquals(5, view.lowerIntOrElse(4, -1));
+	}
+
+	/**
+	 * The unboxed navigation methods throw when there is no element
+	 */
+	@Test(expected = NoSuchElementException.class)
+	public void testPrimitiveLowerMissing() {
+		set5().lowerInt(1);
+	}
+
+	/**
+	 * intStream walks the values in set order, sequentially and in parallel
+	 */
+	@Test
+	public void testIntStream() {
+		FastNavIntSet q = populatedSet(1000);
+		assertEquals(499500, q.intStream().sum());
+		assertEquals(499500, q.intStream().parallel().sum());
+		int[] expected = new int[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = i;
+		}
+		assertTrue(Arrays.equals(expected, q.intStream().parallel().toArray()));
+		assertTrue(q.intSpliterator().hasCharacteristics(
+			Spliterator.SIZED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED));
+
+		FastNavIntSet r = FastNavIntSet.create(new int[]{1, 2, 3, 4, 5}, false);
+		assertTrue(Arrays.equals(new int[]{5, 4, 3, 2, 1}, r.intStream().parallel().toArray()));
+		assertTrue(Arrays.equals(new int[]{4, 3}, r.subSet(4, true, 2, false).intStream().toArray()));
+		assertTrue(Arrays.equals(new int[]{3, 4}, r.subSet(4, true, 2, false).descendingSet().intStream().toArray()));
+	}
+
+	/**
+	 * intIterator and forEachInt visit the values in set order
+	 */
+	@Test
+	public void testIntIterator() {
+		FastNavIntSet q = set5();
+		PrimitiveIterator.OfInt it = q.intIterator();
+		for (int i = 1; i <= 5; i++) {
+			assertEquals(i, it.nextInt());
+		}
+		assertFalse(it.hasNext());
+		final int[] sum = new int[1];
+		q.tailSet(3, false).forEachInt(value -> sum[0] += value);
+		assertEquals(9, sum[0]);
+	}
+
+	/**
+	 * The Eytzinger layout answers findIndex exactly like the chunked search, including after changes
+	 */
+	@Test
+	public void testReadOptimizedFindIndex() {
+		Random random = new Random(42);
+		for (int setSize : new int[]{1, 2, 3, 63, 64, 65, 200, 1000}) {
+			int[] ints = random.ints(-2000, 2000).distinct().limit(setSize).toArray();
+			FastNavIntSet plain = FastNavIntSet.create(ints.clone());
+			FastNavIntSet optimized = FastNavIntSet.create(ints.clone());
+			optimized.setReadOptimized(true);
+			for (int round = 0; round < 2; round++) {
+				for (int value = -2100; value <= 2100; value++) {
+					assertEquals(plain.findIndex(value), optimized.findIndex(value));
+				}
+				assertEquals(plain.lower(0), optimized.lower(0));
+				assertEquals(plain.ceiling(7), optimized.ceiling(7));
+				int changed = random.nextInt(4000) - 2000;
+				assertEquals(plain.add(changed), optimized.add(changed));
+				plain.remove(ints[0]);
+				optimized.remove(ints[0]);
+			}
+		}
+	}
+
+	/**
+	 * The prefetch index stays in the layout for nodes past 2^27, where k << 4 alone would overflow
+	 */
+	@Test
+	public void testEytzingerPrefetchIndex() {
+		assertEquals(16, FastNavIntSet.prefetchIndex(1, 1000));
+		assertEquals(2000, FastNavIntSet.prefetchIndex(200, 1000));
+		int n = (1 << 29) - 1;
+		assertEquals(2 * n, FastNavIntSet.prefetchIndex(1 << 27, n));
+		assertEquals(2 * n, FastNavIntSet.prefetchIndex(n, n));
+		assertEquals(1 << 29, FastNavIntSet.prefetchIndex(1 << 25, n));
+	}
+
+	/**
+	 * containsAll of another FastNavIntSet matches runs, including gaps and elements past the end
+	 */
+	@Test
+	public void testContainsAllFastNavIntSet() {
+		FastNavIntSet q = populatedSet(200);
+		assertTrue(q.containsAll(FastNavIntSet.create(10, 11, 12, 13)));
+		assertTrue(q.containsAll(FastNavIntSet.create(0, 5, 6, 7, 150, 199)));
+		assertTrue(q.containsAll(FastNavIntSet.create()));
+		assertFalse(q.containsAll(FastNavIntSet.create(5, 6, 200)));
+		assertFalse(q.containsAll(FastNavIntSet.create(198, 199, 200)));
+		assertFalse(q.containsAll(FastNavIntSet.create(-1, 0)));
+		q.remove(100);
+		assertFalse(q.containsAll(FastNavIntSet.create(99, 100, 101)));
+		assertTrue(q.containsAll(FastNavIntSet.create(98, 99, 101)));
+	}
+
+	/**
+	 * Sets of different sizes are not equal even when one is a prefix of the other
+	 */
+	@Test
+	public void testEqualsDifferentSize() {
+		assertFalse(FastNavIntSet.create(1, 2, 3).equals(FastNavIntSet.create(1, 2)));
+		assertFalse(FastNavIntSet.create(1, 2).equals(FastNavIntSet.create(1, 2, 3)));
+		assertTrue(FastNavIntSet.create(1, 2, 3).equals(FastNavIntSet.create(3, 2, 1)));
+	}
+
+	/**
+	 * Views of a reversed set take their bounds in the reversed order
+	 */
+	@Test
+	public void testReversedHeadSetContents() {
+		FastNavIntSet set = FastNavIntSet.create(new int[]{1, 2, 3, 4, 5}, false);
+		NavigableSet<Integer> sm = set.headSet(3, true);
+		assertEquals(3, sm.size());
+		assertEquals((Integer) 5, sm.first());
+		assertEquals((Integer) 3, sm.last());
+		assertEquals((Integer) 4, sm.lower(3));
+		assertNull(sm.higher(3));
+		assertEquals((Integer) 3, sm.descendingSet().first());
+		NavigableSet<Integer> ssm = sm.tailSet(4, true);
+		assertEquals(2, ssm.size());
+		assertEquals((Integer) 4, ssm.first());
+		assertEquals((Integer) 3, ssm.last());
+	}
+
+	/**
+	 * Views reject keys and nested bounds outside their range
+	 */
+	@Test
+	public void testSubSetOutOfRange() {
+		FastNavIntSet set = set5();
+		NavigableSet<Integer> sm = set.subSet(2, true, 4, false);
+		try {
+			sm.add(4);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+		try {
+			sm.headSet(5, true);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+		assertEquals(1, sm.headSet(3, false).size());
+		assertTrue(set.add(7));
+		assertEquals(2, sm.size());
+	}
+
 	Random rnd = new Random(666);
 	BitSet bs;
 
@@ -719,6 +1016,610 @@ public class FastNavIntSetTest {
 		assertEquals(y, x);
 	}
 
+	/**
+	 * addAll leaves the caller's array alone and drops duplicates even past the last existing element
+	 */
+	@Test
+	public void testAddAllArray() {
+		FastNavIntSet set = FastNavIntSet.create(1);
+		int[] batch = {9, 5, 9, 0, 5};
+		assertTrue(set.addAll(batch));
+		assertTrue(Arrays.equals(new int[] {9, 5, 9, 0, 5}, batch));
+		assertEquals(4, set.size());
+		assertTrue(Arrays.equals(new int[] {0, 1, 5, 9}, Arrays.copyOf(set.values, set.size)));
+		assertFalse(set.addAll(new int[] {9, 9, 1}));
+		assertTrue(set.addAll(new int[] {20, 20, 20}));
+		assertEquals(5, set.size());
+	}
+
+	/**
+	 * A batch bigger than the set's array is sorted in a throwaway array, and the kept buffer never outgrows values
+	 */
+	@Test
+	public void testAddAllBufferBounded() {
+		FastNavIntSet set = FastNavIntSet.create();
+		int[] batch = new int[10000];
+		for (int i = 0; i < batch.length; ++i) {
+			batch[i] = batch.length - i;
+		}
+		assertTrue(set.addAll(batch));
+		assertNull(set.buffer);
+		assertFalse(set.addAll(new int[] {7, 3, 5}));
+		assertEquals(3, set.buffer.length);
+		for (int i = 0; i < 100; ++i) {
+			assertFalse(set.addAll(Arrays.copyOf(batch, 10 * i + 3)));
+			assertTrue(set.buffer.length <= set.values.length);
+		}
+		assertEquals(10000, set.size());
+	}
+
+	/**
+	 * addAllSorted merges into the existing array when it has room, and only takes the given range
+	 */
+	@Test
+	public void testAddAllSorted() {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int i = 0; i < 40; i += 4) {
+			set.addInt(i);
+		}
+		int[] before = set.values;
+		int[] sorted = {-100, 4, 4, 6, 37, 100};
+		assertTrue(set.addAllSorted(sorted, 1, 5));
+		assertSame(before, set.values);
+		assertTrue(Arrays.equals(new int[] {0, 4, 6, 8, 12, 16, 20, 24, 28, 32, 36, 37},
+				Arrays.copyOf(set.values, set.size)));
+		assertFalse(set.addAllSorted(sorted, 1, 3));
+		assertFalse(set.addAllSorted(sorted, 3, 3));
+		try {
+			set.addAllSorted(new int[] {3, 1}, 0, 2);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+		try {
+			set.addAllSorted(sorted, 5, 8);
+			Assert.fail();
+		}
+		catch (IndexOutOfBoundsException success) {
+		}
+	}
+
+	/**
+	 * addAll agrees with TreeSet for batches much smaller than the set, where the runs between new elements are moved
+	 * whole, and for batches of similar size, with and without room in the array
+	 */
+	@Test
+	public void testAddAllRandom() {
+		Random random = new Random(5);
+		for (int[] sizes : new int[][] {{10000, 10}, {10000, 5000}, {100, 100000}, {0, 50}}) {
+			FastNavIntSet set = FastNavIntSet.create();
+			TreeSet<Integer> expected = new TreeSet<>();
+			for (int i = 0; i < sizes[0]; ++i) {
+				int value = random.nextInt(50000);
+				set.addInt(value);
+				expected.add(value);
+			}
+			for (int round = 0; round < 5; ++round) {
+				int[] batch = new int[sizes[1]];
+				List<Integer> boxed = new ArrayList<>();
+				for (int i = 0; i < batch.length; ++i) {
+					batch[i] = random.nextInt(50000);
+					boxed.add(-batch[i]);
+				}
+				boolean changed = false;
+				for (int value : batch) {
+					changed |= expected.add(value);
+				}
+				if (round % 2 == 0) {
+					Arrays.sort(batch);
+				}
+				assertEquals(changed, set.addAll(batch));
+				for (Integer value : boxed) {
+					expected.add(value);
+				}
+				set.addAll(boxed);
+				assertEquals(expected, set);
+			}
+		}
+	}
+
+	/**
+	 * removeAll compacts values in place and leaves the caller's array alone
+	 */
+	@Test
+	public void testRemoveAllArray() {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int i = 0; i < 100; ++i) {
+			set.addInt(i);
+		}
+		int[] before = set.values;
+		int[] batch = {50, 3, 1000, 3, 99};
+		assertTrue(set.removeAll(batch));
+		assertTrue(Arrays.equals(new int[] {50, 3, 1000, 3, 99}, batch));
+		assertSame(before, set.values);
+		assertEquals(97, set.size());
+		assertFalse(set.contains(3));
+		assertFalse(set.contains(50));
+		assertFalse(set.contains(99));
+		assertTrue(set.contains(98));
+		assertFalse(set.removeAll(new int[] {-1, 200}));
+		assertFalse(set.removeAll(new int[0]));
+	}
+
+	/**
+	 * removeAll agrees with TreeSet for batches much smaller than the set, where the runs between matches are moved
+	 * whole, and for batches of similar size
+	 */
+	@Test
+	public void testRemoveAllRandom() {
+		Random random = new Random(9);
+		for (int batchSize : new int[] {5, 300, 20000}) {
+			FastNavIntSet set = FastNavIntSet.create();
+			TreeSet<Integer> expected = new TreeSet<>();
+			for (int i = 0; i < 20000; ++i) {
+				int value = random.nextInt(40000);
+				set.addInt(value);
+				expected.add(value);
+			}
+			for (int round = 0; round < 5; ++round) {
+				int[] batch = new int[batchSize];
+				List<Integer> boxed = new ArrayList<>();
+				boolean changed = false;
+				for (int i = 0; i < batch.length; ++i) {
+					batch[i] = random.nextInt(40000);
+					boxed.add(random.nextInt(40000));
+					changed |= expected.remove(batch[i]);
+				}
+				assertEquals(changed, set.removeAll(batch));
+				expected.removeAll(boxed);
+				set.removeAll(boxed);
+				assertEquals(expected, set);
+			}
+		}
+	}
+
+	/**
+	 * Removing most of a set drops an addAll buffer too big for the shrunk values, and keeps one that still fits
+	 */
+	@Test
+	public void testShrinkTrimsBuffer() {
+		FastNavIntSet set = populatedSet(10000);
+		int[] batch = new int[5000];
+		for (int i = 0; i < batch.length; ++i) {
+			batch[i] = 20000 - 2 * i;
+		}
+		assertTrue(set.addAll(batch));
+		assertEquals(5000, set.buffer.length);
+		assertTrue(set.removeAll(new int[] {3, 1, 2}));
+		assertEquals(5000, set.buffer.length);
+		for (int i = 0; i < 14990; ++i) {
+			set.pollLastIntOrElse(-1);
+		}
+		assertTrue(set.values.length <= 40);
+		assertNull(set.buffer);
+		assertTrue(set.addAll(new int[] {100, 50}));
+		assertEquals(2, set.buffer.length);
+		set.clear();
+		assertEquals(2, set.buffer.length);
+	}
+
+	/**
+	 * Draining a set gives its capacity back unless shrinking is turned off
+	 */
+	@Test
+	public void testShrink() {
+		FastNavIntSet set = FastNavIntSet.create();
+		FastNavIntSet kept = FastNavIntSet.create();
+		kept.setShrinkThreshold(0);
+		for (int i = 0; i < 10000; ++i) {
+			set.addInt(i);
+			kept.addInt(i);
+		}
+		int capacity = kept.values.length;
+		for (int i = 0; i < 9990; ++i) {
+			assertEquals(9999 - i, set.pollLastIntOrElse(-1));
+			assertEquals(9999 - i, kept.pollLastIntOrElse(-1));
+		}
+		assertTrue(set.values.length <= 40);
+		assertEquals(capacity, kept.values.length);
+		assertEquals(10, set.size());
+		assertEquals(9, set.lastInt());
+		set.clear();
+		assertEquals(8, set.values.length);
+		try {
+			set.setShrinkThreshold(0.75);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+	}
+
+	@Test
+	public void testTrimToSize() {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int i = 0; i < 100; ++i) {
+			set.addInt(i);
+		}
+		set.trimToSize();
+		assertEquals(100, set.values.length);
+		assertTrue(set.contains(99));
+		set.addInt(100);
+		assertEquals(101, set.size());
+	}
+
+	/**
+	 * pollFirst only moves head, and a queue that keeps adding at the back reuses the room instead of growing forever
+	 */
+	@Test
+	public void testPollFirstMovesHead() {
+		FastNavIntSet set = FastNavIntSet.create();
+		set.setShrinkThreshold(0);
+		for (int i = 0; i < 1000; ++i) {
+			set.addInt(i);
+		}
+		int[] before = set.values;
+		for (int i = 0; i < 500; ++i) {
+			assertEquals(i, set.pollFirstIntOrElse(-1));
+		}
+		assertSame(before, set.values);
+		assertEquals(500, set.head);
+		assertEquals(500, set.firstInt());
+		assertEquals(999, set.lastInt());
+		assertTrue(set.contains(700));
+		assertFalse(set.contains(499));
+		for (int i = 1000; i < 100000; ++i) {
+			set.addInt(i);
+			assertEquals(i - 500, set.pollFirstIntOrElse(-1));
+		}
+		assertEquals(500, set.size());
+		assertTrue(set.values.length <= 2000);
+		assertEquals(99500, set.firstInt());
+		set.addInt(5);
+		assertEquals(5, set.firstInt());
+		assertEquals(501, set.size());
+	}
+
+	/**
+	 * Inserts in the lower half move the elements below them into the room in front, the rest move up as before
+	 */
+	@Test
+	public void testInsertUsesHeadroom() {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int i = 0; i < 100; i += 2) {
+			set.addInt(i);
+		}
+		for (int i = 0; i < 10; ++i) {
+			set.pollFirst();
+		}
+		assertEquals(10, set.head);
+		set.addInt(21);
+		assertEquals(9, set.head);
+		set.addInt(91);
+		assertEquals(9, set.head);
+		set.addInt(-1);
+		assertEquals(8, set.head);
+		assertEquals(Arrays.asList(-1, 20, 21, 22), new ArrayList<>(set.headSet(24)));
+		assertEquals(Arrays.asList(90, 91, 92, 94, 96, 98), new ArrayList<>(set.tailSet(90)));
+		assertEquals(20, set.ceilingInt(0));
+		assertEquals(-1, set.floorInt(19));
+		assertEquals(21, set.higherInt(20));
+		set.setReadOptimized(true);
+		assertEquals(20, set.ceilingInt(0));
+		assertEquals(91, set.floorInt(91));
+		assertFalse(set.contains(19));
+	}
+
+	@Test
+	public void testHeadSetClearMovesHead() {
+		FastNavIntSet set = populatedSet(SIZE);
+		int[] before = set.values;
+		set.headSet(5).clear();
+		assertSame(before, set.values);
+		assertEquals(5, set.head);
+		assertEquals(SIZE - 5, set.size());
+		assertEquals(5, set.firstInt());
+		set.subSet(10, 15).clear();
+		assertEquals(SIZE - 10, set.size());
+		assertEquals(Arrays.asList(5, 6, 7, 8, 9, 15), new ArrayList<>(set.headSet(16)));
+	}
+
+	@Test
+	public void testRemoveRange() {
+		FastNavIntSet set = populatedSet(SIZE);
+		assertEquals(4, set.removeRange(3, true, 7, false));
+		assertEquals(4, set.removeRange(2, false, 10, true));
+		assertEquals(0, set.removeRange(4, true, 8, true));
+		assertEquals(0, set.removeRange(11, false, 11, false));
+		assertEquals(Arrays.asList(0, 1, 2, 11, 12), new ArrayList<>(set.headSet(13)));
+		assertEquals(4, set.removeRange(Integer.MIN_VALUE, true, 11, true));
+		assertEquals(12, set.firstInt());
+		assertEquals(2, set.removeRange(18, true, Integer.MAX_VALUE, true));
+		assertEquals(17, set.lastInt());
+		assertEquals(6, set.size());
+		try {
+			set.removeRange(5, true, 4, true);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+	}
+
+	/**
+	 * Bounds come in the order of the set, as for subSet
+	 */
+	@Test
+	public void testRemoveRangeReversed() {
+		FastNavIntSet set = FastNavIntSet.create(false);
+		for (int i = 0; i < SIZE; ++i) {
+			set.addInt(i);
+		}
+		assertEquals(3, set.removeRange(15, true, 12, false));
+		assertTrue(Arrays.equals(new int[] {19, 18, 17, 16, 12, 11}, set.headSet(10, false).intStream().toArray()));
+		set.subSet(11, true, 5, false).clear();
+		assertTrue(Arrays.equals(new int[] {19, 18, 17, 16, 12, 5, 4, 3, 2, 1, 0}, set.intStream().toArray()));
+		set.tailSet(2).clear();
+		set.headSet(17, true).clear();
+		assertTrue(Arrays.equals(new int[] {16, 12, 5, 4, 3}, set.intStream().toArray()));
+		try {
+			set.removeRange(4, true, 5, true);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException success) {
+		}
+	}
+
+	/**
+	 * A sliding window: add at the top, expire everything below the watermark through the head view
+	 */
+	@Test
+	public void testSlidingWindow() {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int top = 0; top < 10000; top += 10) {
+			for (int i = top; i < top + 10; ++i) {
+				set.addInt(i);
+			}
+			set.headSet(top - 100).clear();
+			assertEquals(Math.max(0, top - 100), set.firstInt());
+			assertEquals(top + 9, set.lastInt());
+		}
+		assertEquals(110, set.size());
+		assertTrue(set.values.length < 1000);
+		set.descendingSet().headSet(9950).clear();
+		assertEquals(9950, set.lastInt());
+		assertEquals(61, set.size());
+	}
+
+	/**
+	 * The parallel merge, called directly since the common pool may have a single thread here, against a TreeSet for
+	 * any number of parts, including more parts than elements
+	 */
+	@Test
+	public void testAddAllParallel() {
+		Random random = new Random(31);
+		for (int parts : new int[] {1, 2, 3, 8, 64}) {
+			for (int round = 0; round < 20; ++round) {
+				FastNavIntSet set = FastNavIntSet.create();
+				TreeSet<Integer> expected = new TreeSet<>();
+				int bound = 1 + random.nextInt(5000);
+				for (int value : random.ints(random.nextInt(2000), -bound, bound).toArray()) {
+					set.addInt(value);
+					expected.add(value);
+				}
+				for (int i = random.nextInt(100); i > 0 && !set.isEmpty(); --i) {
+					assertEquals(expected.pollFirst(), set.pollFirst());
+				}
+				int[] batch = random.ints(random.nextInt(3000), -bound, bound).sorted().toArray();
+				if (random.nextBoolean() && batch.length > 0) {
+					batch[0] = Integer.MIN_VALUE;
+					batch[batch.length - 1] = Integer.MAX_VALUE;
+				}
+				int before = expected.size();
+				for (int value : batch) {
+					expected.add(value);
+				}
+				assertEquals(expected.size() != before, set.addAllParallel(batch, 0, batch.length, parts));
+				assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+				assertFalse(set.addAllParallel(batch, 0, batch.length, parts));
+				assertEquals(expected.size(), set.size());
+			}
+		}
+	}
+
+	/**
+	 * Every operation against a TreeSet while the elements wander around values
+	 */
+	@Test
+	public void testHeadRandom() {
+		Random random = new Random(23);
+		FastNavIntSet set = FastNavIntSet.create();
+		FastNavIntSet other = FastNavIntSet.create();
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int round = 0; round < 20000; ++round) {
+			int value = random.nextInt(2000);
+			switch (random.nextInt(12)) {
+				case 0:
+				case 1:
+				case 2:
+					assertEquals(expected.add(value), set.addInt(value));
+					break;
+				case 3:
+					assertEquals(expected.remove(value), set.removeInt(value));
+					break;
+				case 4:
+				case 5:
+					assertEquals(expected.pollFirst(), set.pollFirst());
+					break;
+				case 6:
+					assertEquals(expected.pollLast(), set.pollLast());
+					break;
+				case 7:
+					expected.headSet(value).clear();
+					set.headSet(value).clear();
+					break;
+				case 8:
+					int[] batch = random.ints(16, 0, 2000).toArray();
+					for (int element : batch) {
+						expected.add(element);
+					}
+					set.addAll(batch);
+					break;
+				case 9:
+					other.clear();
+					other.addAll(random.ints(32, 0, 2000).toArray());
+					other.pollFirst();
+					expected.removeAll(other);
+					set.removeAll(random.nextBoolean() ? other : new ArrayList<>(other));
+					break;
+				case 10:
+					other.clear();
+					other.addAll(random.ints(32, 0, 2000).toArray());
+					other.pollFirst();
+					if (random.nextBoolean()) {
+						expected.addAll(other);
+						set.unionWith(other);
+					}
+					else {
+						assertEquals(expected.containsAll(other), set.containsAll(other));
+						Set<Integer> common = new TreeSet<>(expected);
+						common.retainAll(other);
+						assertEquals(common.size(), FastNavIntSet.intersectCardinality(set, other));
+					}
+					break;
+				default:
+					assertEquals(expected.ceiling(value), set.ceiling(value));
+					assertEquals(expected.floor(value), set.floor(value));
+					break;
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+		assertEquals(FastNavIntSet.fromCollection(expected), set);
+		assertEquals(FastNavIntSet.fromCollection(expected).hashCode(), set.hashCode());
+	}
+
+	private static int[] randomValues(Random random, int count, int bound) {
+		return random.ints(-bound / 2, bound - bound / 2).distinct().limit(count).toArray();
+	}
+
+	private static BitSet bits(int[] values, int bound) {
+		BitSet out = new BitSet();
+		for (int value : values) {
+			out.set(value + bound / 2);
+		}
+		return out;
+	}
+
+	private static void assertSetEquals(BitSet expected, FastNavIntSet actual, int bound) {
+		assertEquals(expected.cardinality(), actual.size());
+		PrimitiveIterator.OfInt iterator = actual.intIterator();
+		for (int bit = expected.nextSetBit(0); bit >= 0; bit = expected.nextSetBit(bit + 1)) {
+			assertEquals(bit - bound / 2, iterator.nextInt());
+		}
+	}
+
+	/**
+	 * union, intersect, andNot and xor, static, in place and as cardinality, agree with BitSet for sets of similar and
+	 * of very different sizes, so both the linear merge and galloping run.
+	 */
+	@Test
+	public void testSetAlgebra() {
+		Random random = new Random(11);
+		int bound = 100000;
+		int[][] sizes = {{0, 10}, {1000, 1000}, {5000, 20}, {20, 5000}, {30000, 700}, {3, 40000}};
+		for (int[] pair : sizes) {
+			int[] aValues = randomValues(random, pair[0], bound);
+			int[] bValues = randomValues(random, pair[1], bound);
+			FastNavIntSet a = FastNavIntSet.create(aValues.clone());
+			FastNavIntSet b = FastNavIntSet.create(bValues.clone());
+			BitSet aBits = bits(aValues, bound);
+			BitSet bBits = bits(bValues, bound);
+
+			BitSet or = (BitSet) aBits.clone();
+			or.or(bBits);
+			BitSet and = (BitSet) aBits.clone();
+			and.and(bBits);
+			BitSet andNot = (BitSet) aBits.clone();
+			andNot.andNot(bBits);
+			BitSet xor = (BitSet) aBits.clone();
+			xor.xor(bBits);
+
+			assertSetEquals(or, FastNavIntSet.union(a, b), bound);
+			assertSetEquals(and, FastNavIntSet.intersect(a, b), bound);
+			assertSetEquals(andNot, FastNavIntSet.andNot(a, b), bound);
+			assertSetEquals(xor, FastNavIntSet.xor(a, b), bound);
+			assertEquals(or.cardinality(), FastNavIntSet.unionCardinality(a, b));
+			assertEquals(and.cardinality(), FastNavIntSet.intersectCardinality(a, b));
+			assertEquals(andNot.cardinality(), FastNavIntSet.andNotCardinality(a, b));
+			assertEquals(xor.cardinality(), FastNavIntSet.xorCardinality(a, b));
+
+			FastNavIntSet inPlace = FastNavIntSet.fromCollection(a);
+			assertEquals(!or.equals(aBits), inPlace.unionWith(b));
+			assertSetEquals(or, inPlace, bound);
+			inPlace = FastNavIntSet.fromCollection(a);
+			assertEquals(!and.equals(aBits), inPlace.intersectWith(b));
+			assertSetEquals(and, inPlace, bound);
+			inPlace = FastNavIntSet.fromCollection(a);
+			assertEquals(!andNot.equals(aBits), inPlace.andNotWith(b));
+			assertSetEquals(andNot, inPlace, bound);
+			inPlace = FastNavIntSet.fromCollection(a);
+			inPlace.xorWith(b);
+			assertSetEquals(xor, inPlace, bound);
+
+			// duplicated, which the int[] variants have to drop
+			int[] unsorted = Arrays.copyOf(bValues, 2 * bValues.length);
+			System.arraycopy(bValues, 0, unsorted, bValues.length, bValues.length);
+			int[] original = unsorted.clone();
+			inPlace = FastNavIntSet.fromCollection(a);
+			inPlace.unionWith(unsorted);
+			assertSetEquals(or, inPlace, bound);
+			inPlace = FastNavIntSet.fromCollection(a);
+			inPlace.intersectWith(unsorted);
+			assertSetEquals(and, inPlace, bound);
+			inPlace = FastNavIntSet.fromCollection(a);
+			inPlace.andNotWith(unsorted);
+			assertSetEquals(andNot, inPlace, bound);
+			inPlace = FastNavIntSet.fromCollection(a);
+			inPlace.xorWith(unsorted);
+			assertSetEquals(xor, inPlace, bound);
+			assertTrue(Arrays.equals(original, unsorted));
+
+			inPlace = FastNavIntSet.fromCollection(a);
+			inPlace.retainAll(new HashSet<>(b));
+			assertSetEquals(and, inPlace, bound);
+		}
+	}
+
+	/**
+	 * The in place union merges inside values when it has room, which the growth of addInt leaves plenty of.
+	 */
+	@Test
+	public void testUnionWithInPlace() {
+		FastNavIntSet set = FastNavIntSet.create();
+		for (int i = 0; i < 100; i += 2) {
+			set.addInt(i);
+		}
+		int[] before = set.values;
+		assertTrue(set.unionWith(new int[] {5, 1, 101, 5, -1}));
+		assertSame(before, set.values);
+		assertEquals(54, set.size());
+		assertEquals(-1, set.firstInt());
+		assertEquals(101, set.lastInt());
+		assertTrue(set.contains(5));
+		assertFalse(set.unionWith(FastNavIntSet.create(0, 2, 4)));
+		assertFalse(set.unionWith(set));
+		assertFalse(set.intersectWith(set));
+		assertTrue(set.xorWith(set));
+		assertTrue(set.isEmpty());
+	}
+
+	@Test
+	public void testSetAlgebraKeepsOrder() {
+		FastNavIntSet reversed = FastNavIntSet.create(new int[] {1, 2, 3}, false);
+		FastNavIntSet union = FastNavIntSet.union(reversed, FastNavIntSet.create(4));
+		assertEquals(Integer.valueOf(4), union.first());
+		assertEquals(Integer.valueOf(1), union.last());
+	}
+
 	void populate(NavigableSet<Integer> set, int limit) {
 		for (int i = 0, n = 2 * limit / 3; i < n; i++) {
 			int element = rnd.nextInt(limit);
@@ -0,0 +1,119 @@
+package com.ca.garbage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class FastNavIntTreeSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return new FastNavIntTreeSet(4, 4);
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		IntNavigableSet set = newSet();
+		for (int value : values) {
+			set.addInt(value);
+		}
+		return set;
+	}
+
+	/**
+	 * With tiny nodes the tree gets deep, so splits, merges and redistributions happen at every level.
+	 */
+	@Test
+	public void testTreeInvariants() {
+		FastNavIntTreeSet set = new FastNavIntTreeSet(4, 4);
+		for (int round = 0; round < 4; ++round) {
+			for (int i = 0; i < 5000; ++i) {
+				set.addInt(rnd.nextInt(1 << 14));
+			}
+			checkInvariants(set, 4, 4);
+			for (int i = 0; i < 8000; ++i) {
+				set.removeInt(rnd.nextInt(1 << 14));
+				if (rnd.nextInt(200) == 0) {
+					checkInvariants(set, 4, 4);
+				}
+			}
+			checkInvariants(set, 4, 4);
+		}
+	}
+
+	@Test
+	public void testDefaultCapacities() {
+		FastNavIntTreeSet set = FastNavIntTreeSet.create();
+		for (int i = 0; i < 200000; ++i) {
+			set.addInt(rnd.nextInt());
+		}
+		checkInvariants(set, FastNavIntSet.CHUNK_SIZE, 64);
+		assertTrue(set.root instanceof FastNavIntTreeSet.Inner);
+	}
+
+	@Test
+	public void testForWorkload() {
+		assertTrue(FastNavIntSet.forWorkload(1000, 0.1) instanceof FastNavIntSet);
+		assertTrue(FastNavIntSet.forWorkload(10000000, 0.0) instanceof FastNavIntSet);
+		assertTrue(FastNavIntSet.forWorkload(1000, 1.0) instanceof FastNavIntTreeSet);
+		assertTrue(FastNavIntSet.forWorkload(10000000, 0.01) instanceof FastNavIntTreeSet);
+	}
+
+	private static void checkInvariants(FastNavIntTreeSet set, int leafCapacity, int innerCapacity) {
+		FastNavIntTreeSet.Leaf[] previous = new FastNavIntTreeSet.Leaf[1];
+		long[] last = {Long.MIN_VALUE};
+		int[] depth = {-1};
+		assertEquals(set.size(), check(set.root, set.root, 0, leafCapacity, innerCapacity, previous, last, depth));
+		assertNull(previous[0].next);
+	}
+
+	/**
+	 * @return the number of elements under node, after checking its leaves are in order, linked and at one depth
+	 */
+	private static int check(FastNavIntTreeSet.Node node, FastNavIntTreeSet.Node root, int level, int leafCapacity,
+			int innerCapacity, FastNavIntTreeSet.Leaf[] previous, long[] last, int[] depth) {
+		if (node instanceof FastNavIntTreeSet.Leaf) {
+			FastNavIntTreeSet.Leaf leaf = (FastNavIntTreeSet.Leaf) node;
+			assertTrue(leaf.count <= leafCapacity);
+			assertTrue(leaf == root || leaf.count > 0);
+			if (depth[0] < 0) {
+				depth[0] = level;
+			}
+			assertEquals(depth[0], level);
+			assertSame(previous[0], leaf.previous);
+			if (previous[0] != null) {
+				assertSame(leaf, previous[0].next);
+			}
+			previous[0] = leaf;
+			for (int i = 0; i < leaf.count; ++i) {
+				assertTrue(leaf.keys[i] > last[0]);
+				last[0] = leaf.keys[i];
+			}
+			return leaf.count;
+		}
+		FastNavIntTreeSet.Inner inner = (FastNavIntTreeSet.Inner) node;
+		assertTrue(inner.count <= innerCapacity);
+		assertTrue(inner.count >= 2);
+		int total = 0;
+		for (int i = 0; i < inner.count; ++i) {
+			if (i > 0) {
+				assertTrue(last[0] < inner.keys[i - 1]);
+			}
+			int size = check(inner.children[i], root, level + 1, leafCapacity, innerCapacity, previous, last, depth);
+			if (i > 0) {
+				assertTrue(firstOf(inner.children[i]) >= inner.keys[i - 1]);
+			}
+			assertEquals(inner.sizes[i], size);
+			total += size;
+		}
+		return total;
+	}
+
+	private static int firstOf(FastNavIntTreeSet.Node node) {
+		while (node instanceof FastNavIntTreeSet.Inner) {
+			node = ((FastNavIntTreeSet.Inner) node).children[0];
+		}
+		return ((FastNavIntTreeSet.Leaf) node).keys[0];
+	}
+}
@@ -0,0 +1,100 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class IntArrayOpsTest {
+	private final IntArrayOps scalar = new ScalarIntArrayOps();
+
+	/**
+	 * Every implementation that can be loaded on this JVM.
+	 */
+	private List<IntArrayOps> implementations() {
+		List<IntArrayOps> out = new ArrayList<>();
+		out.add(scalar);
+		out.add(IntArrayOps.INSTANCE);
+		try {
+			out.add((IntArrayOps) Class.forName("com.ca.garbage.VectorIntArrayOps").getDeclaredConstructor().newInstance());
+		}
+		catch (ReflectiveOperationException | LinkageError notAvailable) {
+		}
+		return out;
+	}
+
+	/**
+	 * search agrees with Arrays.binarySearch on every range and key
+	 */
+	@Test
+	public void testSearch() {
+		Random random = new Random(7);
+		int[] a = random.ints(-500, 500).distinct().limit(130).sorted().toArray();
+		for (IntArrayOps ops : implementations()) {
+			for (int from = 0; from < a.length; from += 13) {
+				for (int to = from; to <= a.length; to += 7) {
+					for (int key = -510; key <= 510; key++) {
+						assertEquals(ops.getClass().getSimpleName(),
+												 Arrays.binarySearch(a, from, to, key), ops.search(a, from, to, key));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * searchRange agrees with Arrays.binarySearch on ranges many chunks long
+	 */
+	@Test
+	public void testSearchRange() {
+		Random random = new Random(11);
+		int[] a = random.ints(-100000, 100000).distinct().limit(20 * FastNavIntSet.CHUNK_SIZE).sorted().toArray();
+		for (IntArrayOps ops : implementations()) {
+			for (int from : new int[]{0, 1, 700}) {
+				for (int to : new int[]{from, from + 1, a.length - 3, a.length}) {
+					for (int i = 0; i < 2000; i++) {
+						int key = i % 2 == 0 ? a[random.nextInt(a.length)] : random.nextInt(200010) - 100005;
+						assertEquals(ops.getClass().getSimpleName(),
+												 Arrays.binarySearch(a, from, to, key), ops.searchRange(a, from, to, key));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * mismatch finds the first differing offset, or -1
+	 */
+	@Test
+	public void testMismatch() {
+		int[] a = new int[100];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = i * 3;
+		}
+		for (IntArrayOps ops : implementations()) {
+			int[] b = a.clone();
+			assertEquals(-1, ops.mismatch(a, 0, b, 0, a.length));
+			assertEquals(-1, ops.mismatch(a, 10, b, 10, 0));
+			for (int i = 0; i < a.length; i++) {
+				b[i] = -1;
+				assertEquals(i, ops.mismatch(a, 0, b, 0, a.length));
+				assertEquals(-1, ops.mismatch(a, i + 1, b, i + 1, a.length - i - 1));
+				b[i] = a[i];
+			}
+			assertEquals(-1, ops.mismatch(a, 5, a, 5, 90));
+			assertEquals(0, ops.mismatch(a, 5, a, 6, 90));
+		}
+	}
+
+	/**
+	 * The implementation in use is one of the known ones
+	 */
+	@Test
+	public void testInstance() {
+		String name = IntArrayOps.INSTANCE.getClass().getSimpleName();
+		assertTrue(name, name.equals("ScalarIntArrayOps") || name.equals("VectorIntArrayOps"));
+	}
+}
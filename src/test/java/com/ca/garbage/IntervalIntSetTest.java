@@ -0,0 +1,105 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class IntervalIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return IntervalIntSet.create();
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		return IntervalIntSet.create(values);
+	}
+
+	@Test
+	public void testRangeOperations() {
+		IntervalIntSet set = IntervalIntSet.create();
+		BitSet expected = new BitSet();
+		for (int i = 0; i < 5000; ++i) {
+			int from = rnd.nextInt(5000);
+			int to = from + rnd.nextInt(50);
+			if (rnd.nextBoolean()) {
+				boolean changed = expected.get(from, to + 1).cardinality() != to - from + 1;
+				assertEquals(changed, set.addRange(from, to));
+				expected.set(from, to + 1);
+			}
+			else {
+				boolean changed = !expected.get(from, to + 1).isEmpty();
+				assertEquals(changed, set.removeRange(from, to));
+				expected.clear(from, to + 1);
+			}
+			assertEquals(expected.cardinality(), set.size());
+		}
+		int runs = 0;
+		for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(expected.nextClearBit(i))) {
+			++runs;
+		}
+		assertEquals(runs, set.runCount());
+		for (int i = 0; i < 6000; ++i) {
+			assertEquals(expected.get(i), set.containsInt(i));
+			assertEquals(expected.nextClearBit(i), set.nextAbsent(i));
+			int to = i + rnd.nextInt(10);
+			assertEquals(expected.get(i, to + 1).cardinality() == to - i + 1, set.containsRange(i, to));
+		}
+		List<Integer> gaps = new ArrayList<>();
+		set.forEachGap(100, 4000, (from, to) -> {
+			assertTrue(from <= to);
+			for (int i = from; i <= to; ++i) {
+				gaps.add(i);
+			}
+		});
+		List<Integer> expectedGaps = new ArrayList<>();
+		for (int i = 100; i <= 4000; ++i) {
+			if (!expected.get(i)) {
+				expectedGaps.add(i);
+			}
+		}
+		assertEquals(expectedGaps, gaps);
+		List<Integer> members = new ArrayList<>();
+		set.forEachRun(100, 4000, (from, to) -> {
+			for (int i = from; i <= to; ++i) {
+				members.add(i);
+			}
+		});
+		assertEquals(new ArrayList<>(set.subSet(100, true, 4000, true)), members);
+	}
+
+	@Test
+	public void testWholeRange() {
+		IntervalIntSet set = IntervalIntSet.ofRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		assertEquals(1L << 32, set.longSize());
+		assertEquals(Integer.MAX_VALUE, set.size());
+		assertEquals(1, set.runCount());
+		assertEquals(Integer.MAX_VALUE, set.nextAbsentOrElse(5, Integer.MAX_VALUE));
+		try {
+			set.nextAbsent(5);
+			fail();
+		}
+		catch (NoSuchElementException success) {
+		}
+		assertTrue(set.removeRange(-10, 10));
+		assertEquals((1L << 32) - 21, set.longSize());
+		assertEquals(2, set.runCount());
+		assertEquals(-10, set.nextAbsent(Integer.MIN_VALUE));
+		assertEquals(11, set.higherInt(-11));
+		assertEquals(-11, set.lowerInt(11));
+		assertFalse(set.containsRange(-11, 11));
+		assertTrue(set.containsRange(11, Integer.MAX_VALUE));
+		assertEquals(10, set.subSet(0, true, 20, true).size());
+		assertTrue(set.addRange(0, 0));
+		assertEquals(3, set.runCount());
+		assertTrue(set.addRange(-10, 10));
+		assertEquals(1, set.runCount());
+		assertFalse(set.addRange(-10, 10));
+	}
+}
@@ -0,0 +1,140 @@
+package com.ca.garbage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Test;
+
+public class MappedIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return newSet(new int[0]);
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		try {
+			FastNavIntSet source = FastNavIntSet.create();
+			for (int value : values) {
+				source.addInt(value);
+			}
+			return MappedIntSet.open(write(source));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	protected boolean mutable() {
+		return false;
+	}
+
+	private static Path write(FastNavIntSet set) throws IOException {
+		Path path = Files.createTempFile("mapped", ".fnis");
+		path.toFile().deleteOnExit();
+		MappedIntSet.write(set, path);
+		return path;
+	}
+
+	/**
+	 * Lookups and iteration that cross segment boundaries, here 16 ints per segment.
+	 */
+	@Test
+	public void testSegments() throws IOException {
+		FastNavIntSet source = FastNavIntSet.create(false);
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 5000; ++i) {
+			int value = rnd.nextInt(20000) - 10000;
+			source.addInt(value);
+			expected.add(value);
+		}
+		MappedIntSet set = MappedIntSet.open(write(source), 4);
+		assertEquals(expected, set);
+		assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(set.descendingSet()));
+		for (int value = -10010; value <= 10010; ++value) {
+			assertEquals(expected.contains(value), set.containsInt(value));
+			assertEquals(expected.lower(value), set.lower(value));
+			assertEquals(expected.ceiling(value), set.ceiling(value));
+		}
+		assertEquals(expected.subSet(-500, 700).size(), set.subSet(-500, 700).size());
+	}
+
+	/**
+	 * Rewriting a file replaces it whole: a set opened on the old file keeps its elements, a new open sees the new ones
+	 */
+	@Test
+	public void testRewriteWhileMapped() throws IOException {
+		Path path = write(FastNavIntSet.create(1, 2, 3));
+		MappedIntSet before = MappedIntSet.open(path);
+		MappedIntSet.write(FastNavIntSet.create(7), path);
+		assertEquals(3, before.size());
+		assertEquals(3, before.lastInt());
+		MappedIntSet after = MappedIntSet.open(path);
+		assertEquals(1, after.size());
+		assertTrue(after.containsInt(7));
+		String name = path.getFileName().toString();
+		try (Stream<Path> files = Files.list(path.getParent())) {
+			assertEquals(0, files.map(p -> p.getFileName().toString())
+				.filter(file -> file.startsWith(name) && file.endsWith(".tmp"))
+				.count());
+		}
+	}
+
+	/**
+	 * A rewritten file keeps the permissions it had, and a new one gets the same as any other new file
+	 */
+	@Test
+	public void testWriteKeepsPermissions() throws IOException {
+		Path path = write(FastNavIntSet.create(1, 2, 3));
+		assumeTrue(Files.getFileStore(path).supportsFileAttributeView(PosixFileAttributeView.class));
+		Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+		Files.setPosixFilePermissions(path, shared);
+		MappedIntSet.write(FastNavIntSet.create(4), path);
+		assertEquals(shared, Files.getPosixFilePermissions(path));
+
+		Path plain = Files.createTempFile("mapped", ".plain");
+		plain.toFile().deleteOnExit();
+		Files.delete(plain);
+		Files.createFile(plain);
+		Path fresh = plain.resolveSibling(plain.getFileName() + ".fnis");
+		fresh.toFile().deleteOnExit();
+		MappedIntSet.write(FastNavIntSet.create(4), fresh);
+		assertEquals(Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(fresh));
+	}
+
+	@Test
+	public void testBadFiles() throws IOException {
+		Path path = Files.createTempFile("mapped", ".fnis");
+		path.toFile().deleteOnExit();
+		Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+		try {
+			MappedIntSet.open(path);
+			fail();
+		}
+		catch (IOException success) {
+		}
+		Path valid = write(FastNavIntSet.create(1, 2, 3));
+		byte[] bytes = Files.readAllBytes(valid);
+		Files.write(path, java.util.Arrays.copyOf(bytes, bytes.length - 4));
+		try {
+			MappedIntSet.open(path);
+			fail();
+		}
+		catch (IOException success) {
+		}
+		assertTrue(MappedIntSet.open(valid).containsInt(3));
+	}
+}
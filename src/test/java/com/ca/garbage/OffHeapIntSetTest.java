@@ -0,0 +1,121 @@
+package com.ca.garbage;
+
+import java.util.PrimitiveIterator;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Runs on 64 int segments so inserts and removes shift across segment boundaries.
+ */
+public class OffHeapIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return new OffHeapIntSet(6);
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		return OffHeapIntSet.create(6, values);
+	}
+
+	@Test
+	public void testSegmentBoundaries() {
+		OffHeapIntSet set = new OffHeapIntSet(3);
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 3000; ++i) {
+			int value = rnd.nextInt(500);
+			if (rnd.nextInt(4) == 0) {
+				assertEquals(expected.remove(value), set.removeInt(value));
+			}
+			else {
+				assertEquals(expected.add(value), set.addInt(value));
+			}
+			if (i % 100 == 0) {
+				assertEquals(expected, set);
+			}
+		}
+		assertEquals(expected, set);
+		set.close();
+	}
+
+	/**
+	 * Segments bigger than the block shifts copy through, with inserts and removes near the front moving several blocks
+	 */
+	@Test
+	public void testLongShifts() {
+		int[] values = new int[30000];
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = 4 * i;
+		}
+		OffHeapIntSet set = OffHeapIntSet.create(14, values);
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int value : values) {
+			expected.add(value);
+		}
+		for (int i = 0; i < 200; ++i) {
+			int value = rnd.nextInt(4 * values.length / 3);
+			if (rnd.nextBoolean()) {
+				assertEquals(expected.remove(value), set.removeInt(value));
+			}
+			else {
+				assertEquals(expected.add(value), set.addInt(value));
+			}
+		}
+		assertEquals(expected, set);
+		set.close();
+	}
+
+	/**
+	 * An iterator or view taken before close fails like the set itself afterwards
+	 */
+	@Test
+	public void testIteratorAfterClose() {
+		OffHeapIntSet set = OffHeapIntSet.create(1, 2, 3);
+		PrimitiveIterator.OfInt iterator = set.intIterator();
+		IntNavigableSet tail = set.tailSet(2, true);
+		assertEquals(1, iterator.nextInt());
+		set.close();
+		try {
+			iterator.nextInt();
+			fail();
+		}
+		catch (IllegalStateException success) {
+		}
+		try {
+			tail.iterator().next();
+			fail();
+		}
+		catch (IllegalStateException success) {
+		}
+	}
+
+	@Test
+	public void testClose() {
+		OffHeapIntSet set = OffHeapIntSet.create(1, 2, 3);
+		assertTrue(set.containsInt(2));
+		set.close();
+		set.close();
+		try {
+			set.containsInt(2);
+			fail();
+		}
+		catch (IllegalStateException success) {
+		}
+		try {
+			set.addInt(4);
+			fail();
+		}
+		catch (IllegalStateException success) {
+		}
+		OffHeapIntSet empty = OffHeapIntSet.create();
+		assertFalse(empty.removeInt(1));
+		assertTrue(empty.addInt(1));
+		empty.clear();
+		assertTrue(empty.isEmpty());
+		empty.close();
+	}
+}
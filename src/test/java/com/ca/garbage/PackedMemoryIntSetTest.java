@@ -0,0 +1,56 @@
+package com.ca.garbage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class PackedMemoryIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return PackedMemoryIntSet.create();
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		return PackedMemoryIntSet.create(values);
+	}
+
+	/**
+	 * Segments never run empty while there is more than one, and the array stays within its density bounds.
+	 */
+	@Test
+	public void testDensityInvariants() {
+		PackedMemoryIntSet set = PackedMemoryIntSet.create();
+		for (int round = 0; round < 4; ++round) {
+			for (int i = 0; i < 30000; ++i) {
+				set.addInt(rnd.nextInt(1 << 20));
+			}
+			checkInvariants(set);
+			for (int i = 0; i < 40000; ++i) {
+				set.removeInt(rnd.nextInt(1 << 20));
+				if (rnd.nextInt(1000) == 0) {
+					checkInvariants(set);
+				}
+			}
+			checkInvariants(set);
+		}
+	}
+
+	private static void checkInvariants(PackedMemoryIntSet set) {
+		int total = 0;
+		long previous = Long.MIN_VALUE;
+		for (int segment = 0; segment < set.counts.length; ++segment) {
+			int count = set.counts[segment];
+			assertTrue(count <= set.values.length / set.counts.length);
+			assertTrue(set.counts.length == 1 || count > 0);
+			for (int i = 0; i < count; ++i) {
+				int value = set.values[segment * (set.values.length / set.counts.length) + i];
+				assertTrue(value > previous);
+				previous = value;
+			}
+			total += count;
+		}
+		assertEquals(set.size(), total);
+		assertTrue(set.counts.length == 1 || set.size() * 4 >= set.values.length / 2);
+	}
+}
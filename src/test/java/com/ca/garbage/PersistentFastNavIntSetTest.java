@@ -0,0 +1,132 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class PersistentFastNavIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return PersistentFastNavIntSet.build(new int[0], 0, 0, 4, 4);
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		PersistentFastNavIntSet set = PersistentFastNavIntSet.build(new int[0], 0, 0, 4, 4);
+		for (int value : values) {
+			set = set.with(value);
+		}
+		return set;
+	}
+
+	@Override
+	protected boolean mutable() {
+		return false;
+	}
+
+	/**
+	 * Every version keeps its contents while later ones are derived from it, including through merges and splits at
+	 * every level of a deep tree.
+	 */
+	@Test
+	public void testVersionsAreIndependent() {
+		PersistentFastNavIntSet set = PersistentFastNavIntSet.build(new int[0], 0, 0, 4, 4);
+		TreeSet<Integer> expected = new TreeSet<>();
+		List<PersistentFastNavIntSet> versions = new ArrayList<>();
+		List<TreeSet<Integer>> contents = new ArrayList<>();
+		for (int i = 0; i < 20000; ++i) {
+			int value = rnd.nextInt(2000);
+			if (rnd.nextInt(3) == 0) {
+				set = set.without(value);
+				expected.remove(value);
+			}
+			else {
+				set = set.with(value);
+				expected.add(value);
+			}
+			if (i % 500 == 0) {
+				versions.add(set);
+				contents.add(new TreeSet<>(expected));
+			}
+		}
+		assertEquals(expected, set);
+		for (int i = 0; i < versions.size(); ++i) {
+			PersistentFastNavIntSet version = versions.get(i);
+			assertEquals(contents.get(i), version);
+			assertEquals(new ArrayList<>(contents.get(i).descendingSet()), new ArrayList<>(version.descendingSet()));
+			assertEquals(contents.get(i).headSet(1000).size(), version.headSet(1000).size());
+		}
+	}
+
+	@Test
+	public void testUnchangedVersionIsReturned() {
+		PersistentFastNavIntSet set = PersistentFastNavIntSet.of(1, 2, 3);
+		assertSame(set, set.with(2));
+		assertSame(set, set.without(4));
+		assertEquals(3, set.with(4).without(4).size());
+	}
+
+	/**
+	 * An update copies only the path to the leaf it changes; every other subtree is shared with the previous version.
+	 */
+	@Test
+	public void testStructuralSharing() {
+		int[] values = new int[100000];
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = i * 2;
+		}
+		PersistentFastNavIntSet set = PersistentFastNavIntSet.of(values);
+		PersistentFastNavIntSet updated = set.with(1);
+		assertEquals(1, countUnshared(set, updated));
+		assertEquals(1, countUnshared(updated, updated.without(100)));
+		assertEquals(values.length, set.size());
+		assertEquals(values.length + 1, updated.size());
+	}
+
+	/**
+	 * @return the number of leaves of updated that are not also leaves of original
+	 */
+	private static int countUnshared(PersistentFastNavIntSet original, PersistentFastNavIntSet updated) {
+		Set<PersistentFastNavIntSet.Node> leaves = Collections.newSetFromMap(new IdentityHashMap<>());
+		collectLeaves(original.root, leaves);
+		Set<PersistentFastNavIntSet.Node> updatedLeaves = Collections.newSetFromMap(new IdentityHashMap<>());
+		collectLeaves(updated.root, updatedLeaves);
+		updatedLeaves.removeAll(leaves);
+		return updatedLeaves.size();
+	}
+
+	private static void collectLeaves(PersistentFastNavIntSet.Node node, Set<PersistentFastNavIntSet.Node> leaves) {
+		if (node instanceof PersistentFastNavIntSet.Leaf) {
+			leaves.add(node);
+			return;
+		}
+		for (PersistentFastNavIntSet.Node child : ((PersistentFastNavIntSet.Inner) node).children) {
+			collectLeaves(child, leaves);
+		}
+	}
+
+	@Test
+	public void testFastNavIntSetConversion() {
+		FastNavIntSet source = FastNavIntSet.create();
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 10000; ++i) {
+			int value = rnd.nextInt();
+			source.addInt(value);
+			expected.add(value);
+		}
+		PersistentFastNavIntSet set = PersistentFastNavIntSet.copyOf(source);
+		assertEquals(expected, set);
+		FastNavIntSet back = set.toFastNavIntSet();
+		assertEquals(expected, back);
+		assertTrue(back.removeInt(expected.first()));
+		assertEquals(expected.size(), set.size());
+		assertEquals(0, PersistentFastNavIntSet.empty().toFastNavIntSet().size());
+	}
+}
@@ -0,0 +1,128 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class RoaringIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return RoaringIntSet.create();
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		return RoaringIntSet.create(values);
+	}
+
+	private static int containerKind(RoaringIntSet set, int index) {
+		RoaringIntSet.Container container = set.containers[index];
+		return container instanceof RoaringIntSet.ArrayContainer ? 0
+					 : container instanceof RoaringIntSet.BitmapContainer ? 1 : 2;
+	}
+
+	/**
+	 * Sparse, dense and run heavy chunks next to each other, including negative keys, navigated across container
+	 * boundaries.
+	 */
+	@Test
+	public void testMixedDensities() {
+		RoaringIntSet set = RoaringIntSet.create();
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < 300; ++i) {
+			int value = (rnd.nextInt(64) - 32) << 16 | rnd.nextInt(1 << 16);
+			expected.add(value);
+			set.addInt(value);
+		}
+		for (int i = 0; i < 30000; ++i) {
+			int value = 5 << 16 | rnd.nextInt(1 << 16);
+			expected.add(value);
+			set.addInt(value);
+		}
+		for (int i = -70000; i < 70000; ++i) {
+			expected.add(i);
+			set.addInt(i);
+		}
+		assertEquals(expected, set);
+		for (int i = 0; i < 20000; ++i) {
+			int value = (rnd.nextInt(64) - 32) << 16 | rnd.nextInt(1 << 16);
+			assertEquals(expected.contains(value), set.containsInt(value));
+			assertEquals(expected.lower(value), set.lower(value));
+			assertEquals(expected.higher(value), set.higher(value));
+			assertEquals(expected.floor(value), set.floor(value));
+			assertEquals(expected.ceiling(value), set.ceiling(value));
+		}
+		for (int high = -33; high <= 33; ++high) {
+			int boundary = high << 16;
+			assertEquals(expected.lower(boundary), set.lower(boundary));
+			assertEquals(expected.higher(boundary - 1), set.higher(boundary - 1));
+			assertEquals(expected.headSet(boundary, false).size(), set.headSet(boundary, false).size());
+		}
+		assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(set.descendingSet()));
+		for (int i = 0; i < 200000; ++i) {
+			int value = rnd.nextInt(200000) - 100000;
+			assertEquals(expected.remove(value), set.removeInt(value));
+		}
+		assertEquals(expected, set);
+		assertEquals(expected.subSet(-5000, 5000).size(), set.subSet(-5000, 5000).size());
+	}
+
+	@Test
+	public void testContainerForms() {
+		RoaringIntSet set = RoaringIntSet.create();
+		for (int i = 0; i < 1000; ++i) {
+			set.addInt(i * 37);
+		}
+		assertEquals(0, containerKind(set, 0));
+		for (int i = 0; i < 20000; ++i) {
+			set.addInt(rnd.nextInt(1 << 16));
+		}
+		assertEquals(1, containerKind(set, 0));
+		for (int i = 0; i < 1 << 16; ++i) {
+			set.addInt(i);
+		}
+		assertEquals(2, containerKind(set, 0));
+		for (int i = 1; i < 1 << 16; i += 2) {
+			set.removeInt(i);
+		}
+		assertEquals(1, containerKind(set, 0));
+		for (int i = 0; i < 1 << 16; i += 4) {
+			set.removeInt(i);
+		}
+		assertEquals(16384, set.size());
+		assertEquals(1, containerKind(set, 0));
+		for (int i = 2; i < 1 << 16; i += 8) {
+			set.removeInt(i);
+		}
+		assertEquals(8192, set.size());
+		assertEquals(1, containerKind(set, 0));
+		for (int i = 6; i < 1 << 16; i += 8) {
+			if (i >= 16384) {
+				set.removeInt(i);
+			}
+		}
+		assertEquals(2048, set.size());
+		assertEquals(0, containerKind(set, 0));
+	}
+
+	/**
+	 * No more than the 4 bytes per element of a plain int[] once chunks hold a few dozen keys.
+	 */
+	@Test
+	public void testMemory() {
+		for (int spread : new int[]{1, 2, 16, 1 << 10}) {
+			RoaringIntSet set = RoaringIntSet.create();
+			for (int i = 0; i < 100000; ++i) {
+				set.addInt(rnd.nextInt(100000) * spread);
+			}
+			assertTrue(set.sizeInBytes() <= 4L * set.size());
+		}
+		RoaringIntSet runs = RoaringIntSet.create();
+		for (int i = 0; i < 1000000; ++i) {
+			runs.addInt(i);
+		}
+		assertTrue(runs.sizeInBytes() < 1000);
+	}
+}
@@ -0,0 +1,70 @@
+package com.ca.garbage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SegmentedIntSetTest extends AbstractIntNavigableSetTest {
+	private static final int SEGMENT_SIZE = 16;
+
+	@Override
+	protected IntNavigableSet newSet() {
+		return SegmentedIntSet.withSegmentSize(SEGMENT_SIZE);
+	}
+
+	@Override
+	protected IntNavigableSet newSet(int... values) {
+		return SegmentedIntSet.withSegmentSize(SEGMENT_SIZE, values);
+	}
+
+	/**
+	 * Segments stay within the segment size, never run empty, the index matches their first elements and a merge
+	 * happens whenever two neighbours would fit in half a segment.
+	 */
+	@Test
+	public void testSplitAndMergeInvariants() {
+		SegmentedIntSet set = SegmentedIntSet.withSegmentSize(SEGMENT_SIZE);
+		for (int round = 0; round < 4; ++round) {
+			for (int i = 0; i < 20000; ++i) {
+				set.addInt(rnd.nextInt(1 << 16));
+			}
+			checkInvariants(set, SEGMENT_SIZE);
+			for (int i = 0; i < 30000; ++i) {
+				set.removeInt(rnd.nextInt(1 << 16));
+				if (rnd.nextInt(1000) == 0) {
+					checkInvariants(set, SEGMENT_SIZE);
+				}
+			}
+			checkInvariants(set, SEGMENT_SIZE);
+		}
+	}
+
+	@Test
+	public void testDefaultSegmentSize() {
+		SegmentedIntSet set = SegmentedIntSet.create();
+		for (int i = 0; i < 100000; ++i) {
+			set.addInt(i * 3);
+		}
+		checkInvariants(set, 8 * FastNavIntSet.CHUNK_SIZE);
+		assertTrue(set.segmentCount > 1);
+	}
+
+	private static void checkInvariants(SegmentedIntSet set, int segmentSize) {
+		int total = 0;
+		long previous = Long.MIN_VALUE;
+		for (int segment = 0; segment < set.segmentCount; ++segment) {
+			int count = set.counts[segment];
+			assertTrue(count > 0);
+			assertTrue(set.segments[segment].length >= count);
+			assertTrue(set.segments[segment].length <= segmentSize);
+			assertEquals(set.firsts[segment], set.segments[segment][0]);
+			for (int i = 0; i < count; ++i) {
+				int value = set.segments[segment][i];
+				assertTrue(value > previous);
+				previous = value;
+			}
+			total += count;
+		}
+		assertEquals(set.size(), total);
+	}
+}
@@ -0,0 +1,101 @@
+package com.ca.garbage;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SortedIntArraysTest {
+	/**
+	 * gallop finds the first value >= key from every starting point, including past the end of long runs
+	 */
+	@Test
+	public void testGallop() {
+		Random random = new Random(3);
+		int[] a = random.ints(-5000, 5000).distinct().limit(1000).sorted().toArray();
+		for (int from = 0; from < a.length; from += 37) {
+			for (int key = a[from] - 3; key <= 5010; key += 11) {
+				int expected = from;
+				while (expected < a.length && a[expected] < key) {
+					++expected;
+				}
+				assertEquals(expected, SortedIntArrays.gallop(a, from, a.length, key));
+			}
+		}
+		assertEquals(0, SortedIntArrays.gallop(a, 0, 0, 1));
+	}
+
+	@Test
+	public void testSortDistinct() {
+		int[] values = {5, 3, 5, -1, 3, 3, 9};
+		assertEquals(4, SortedIntArrays.sortDistinct(values, values.length));
+		assertEquals(-1, values[0]);
+		assertEquals(3, values[1]);
+		assertEquals(5, values[2]);
+		assertEquals(9, values[3]);
+	}
+
+	@Test
+	public void testUnionWithRepeats() {
+		int[] a = {1, 4, 6, 9};
+		int[] b = {0, 0, 4, 4, 5, 9, 9, 12, 12};
+		assertEquals(7, SortedIntArrays.unionWithRepeats(a, 0, a.length, b, 0, b.length, null, 0));
+		int[] out = new int[9];
+		assertEquals(7, SortedIntArrays.unionWithRepeats(a, 0, a.length, b, 0, b.length, out, 2));
+		assertTrue(Arrays.equals(new int[] {0, 0, 0, 1, 4, 5, 6, 9, 12}, out));
+		assertEquals(2, SortedIntArrays.unionWithRepeats(a, 1, 3, b, 2, 4, null, 0));
+	}
+
+	/**
+	 * pivot finds the smallest value with rank elements of both arrays below it, and never splits repeats
+	 */
+	@Test
+	public void testPivot() {
+		Random random = new Random(5);
+		int[] a = random.ints(-1000, 1000).distinct().limit(300).sorted().toArray();
+		int[] b = random.ints(-500, 1500).limit(700).sorted().toArray();
+		for (int rank = 0; rank <= a.length + b.length; rank += 7) {
+			long pivot = SortedIntArrays.pivot(a, 0, a.length, b, 0, b.length, rank);
+			assertTrue(below(a, pivot) + below(b, pivot) >= rank);
+			assertTrue(pivot == Integer.MIN_VALUE || below(a, pivot - 1) + below(b, pivot - 1) < rank);
+		}
+		assertEquals(Integer.MAX_VALUE + 1L, SortedIntArrays.pivot(a, 0, a.length, b, 0, b.length, 1001));
+		assertEquals(Integer.MIN_VALUE, SortedIntArrays.pivot(a, 0, a.length, b, 0, b.length, 0));
+	}
+
+	private static int below(int[] a, long value) {
+		int count = 0;
+		for (int element : a) {
+			if (element < value) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The merges may write over their first input, as FastNavIntSet's in place operations do.
+	 */
+	@Test
+	public void testOutputOverInput() {
+		int[] small = {3, 5, 2001};
+		for (int largeSize : new int[] {10, 1000}) {
+			int[] values = new int[largeSize + small.length];
+			for (int i = 0; i < largeSize; ++i) {
+				values[small.length + i] = i * 2;
+			}
+			int size = SortedIntArrays.union(values, small.length, small.length + largeSize, small, 0, small.length,
+				values);
+			assertEquals(largeSize + 3, size);
+			for (int i = 1; i < size; ++i) {
+				assertTrue(values[i - 1] < values[i]);
+			}
+			size = SortedIntArrays.andNot(values, 0, size, small, 0, small.length, values, 0);
+			assertEquals(largeSize, size);
+			for (int i = 0; i < size; ++i) {
+				assertEquals(i * 2, values[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class StampedFastNavIntSetTest extends AbstractIntNavigableSetTest {
+	@Override
+	protected IntNavigableSet newSet() {
+		return StampedFastNavIntSet.create();
+	}
+
+	/**
+	 * Even keys stay put while a writer churns the odd ones, so every read has a single right answer for the even keys
+	 * no matter how it interleaves with the writes.
+	 */
+	@Test
+	public void testReadsDuringWrites() throws Exception {
+		int range = 1 << 14;
+		StampedFastNavIntSet set = StampedFastNavIntSet.create();
+		for (int i = 0; i < range; i += 2) {
+			set.addInt(i);
+		}
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<?> writer = executor.submit(() -> {
+				Random random = new Random(1);
+				for (int i = 0; i < 200000; ++i) {
+					int odd = random.nextInt(range / 2) * 2 + 1;
+					if (random.nextBoolean()) {
+						set.addInt(odd);
+					}
+					else {
+						set.removeInt(odd);
+					}
+				}
+				done.set(true);
+			});
+			List<Future<?>> readers = new ArrayList<>();
+			for (int r = 0; r < 3; ++r) {
+				long seed = r;
+				readers.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					while (!done.get()) {
+						int even = random.nextInt(range / 2) * 2;
+						assertTrue(set.containsInt(even));
+						int ceiling = set.ceilingInt(even - 1);
+						assertTrue(ceiling == even - 1 || ceiling == even);
+						int floor = set.floorInt(even + 1);
+						assertTrue(floor == even + 1 || floor == even);
+						int size = set.size();
+						assertTrue(size >= range / 2 && size <= range);
+						int count = set.subSet(even, true, even + 2, false).size();
+						assertTrue(count == 1 || count == 2);
+					}
+				}));
+			}
+			writer.get(1, TimeUnit.MINUTES);
+			for (Future<?> reader : readers) {
+				reader.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Concurrent polls hand out every element exactly once.
+	 */
+	@Test
+	public void testConcurrentPoll() throws Exception {
+		int count = 100000;
+		StampedFastNavIntSet set = StampedFastNavIntSet.create();
+		int[] values = new int[count];
+		for (int i = 0; i < count; ++i) {
+			values[i] = i;
+		}
+		set.addAll(values);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<boolean[]>> pollers = new ArrayList<>();
+			for (int p = 0; p < 4; ++p) {
+				boolean last = p % 2 == 0;
+				pollers.add(executor.submit(() -> {
+					boolean[] seen = new boolean[count];
+					int value;
+					while ((value = last ? set.pollLastIntOrElse(-1) : set.pollFirstIntOrElse(-1)) != -1) {
+						seen[value] = true;
+					}
+					return seen;
+				}));
+			}
+			int total = 0;
+			boolean[] all = new boolean[count];
+			for (Future<boolean[]> poller : pollers) {
+				boolean[] seen = poller.get(1, TimeUnit.MINUTES);
+				for (int i = 0; i < count; ++i) {
+					if (seen[i]) {
+						assertTrue(!all[i]);
+						all[i] = true;
+						++total;
+					}
+				}
+			}
+			assertEquals(count, total);
+			assertTrue(set.isEmpty());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * An iterator keeps walking the snapshot it was created with.
+	 */
+	@Test
+	public void testSnapshotIteration() {
+		StampedFastNavIntSet set = StampedFastNavIntSet.create(1, 2, 3, 4);
+		PrimitiveIterator.OfInt iterator = set.intIterator();
+		set.clear();
+		int sum = 0;
+		while (iterator.hasNext()) {
+			sum += iterator.nextInt();
+		}
+		assertEquals(10, sum);
+	}
+}
@@ -0,0 +1,212 @@
+package com.ca.garbage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class StripedFastNavIntSetTest extends AbstractIntNavigableSetTest {
+	/**
+	 * Few shards that rebalance early, so the inherited tests cross shard boundaries and move them.
+	 */
+	@Override
+	protected IntNavigableSet newSet() {
+		return new StripedFastNavIntSet(4, 2, new int[0]);
+	}
+
+	@Test
+	public void testNavigationAcrossEmptyShards() {
+		StripedFastNavIntSet set = StripedFastNavIntSet.withShards(8, -1000000, 1000000);
+		assertEquals(1000000, set.ceilingInt(-999999));
+		assertEquals(-1000000, set.floorInt(999999));
+		assertEquals(1000000, set.higherInt(-1000000));
+		assertEquals(-1000000, set.lowerInt(1000000));
+		assertEquals(2, set.subSet(Integer.MIN_VALUE, true, Integer.MAX_VALUE, true).size());
+		assertEquals(Integer.valueOf(1000000), set.descendingSet().first());
+	}
+
+	/**
+	 * Ascending inserts all land in the last shard, which keeps handing elements down to its neighbours.
+	 */
+	@Test
+	public void testRebalanceSkewedInserts() {
+		StripedFastNavIntSet set = new StripedFastNavIntSet(8, 64, new int[0]);
+		int count = 100000;
+		for (int i = 0; i < count; ++i) {
+			set.addInt(i);
+		}
+		assertEquals(count, set.size());
+		int largest = 0;
+		for (int shardSize : set.shardSizes()) {
+			largest = Math.max(largest, shardSize);
+		}
+		assertTrue(largest <= 2 * count / 8 + 1);
+		PrimitiveIterator.OfInt iterator = set.intIterator();
+		for (int i = 0; i < count; ++i) {
+			assertEquals(i, iterator.nextInt());
+		}
+		assertFalse(iterator.hasNext());
+		for (int i = 0; i < count; i += 3) {
+			assertTrue(set.removeInt(i));
+		}
+		for (int i = 0; i < count; ++i) {
+			assertEquals(i % 3 != 0, set.containsInt(i));
+		}
+	}
+
+	@Test
+	public void testInitialBoundariesFollowValues() {
+		int[] values = new int[1000];
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = i;
+		}
+		int[] sizes = StripedFastNavIntSet.withShards(4, values).shardSizes();
+		for (int shardSize : sizes) {
+			assertEquals(250, shardSize);
+		}
+	}
+
+	/**
+	 * Writers on overlapping ranges, with rebalancing going on, end up with exactly what they added and kept.
+	 */
+	@Test
+	public void testConcurrentWriters() throws Exception {
+		StripedFastNavIntSet set = new StripedFastNavIntSet(8, 64, new int[0]);
+		int writers = 4;
+		int perWriter = 50000;
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < writers; ++w) {
+				int writer = w;
+				futures.add(executor.submit(() -> {
+					// each writer owns the keys congruent to it modulo writers, so the final state is known
+					for (int i = 0; i < perWriter; ++i) {
+						assertTrue(set.addInt(i * writers + writer));
+					}
+					for (int i = 0; i < perWriter; i += 2) {
+						assertTrue(set.removeInt(i * writers + writer));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(writers * perWriter / 2, set.size());
+		for (int key = 0; key < writers * perWriter; ++key) {
+			assertEquals((key / writers) % 2 == 1, set.containsInt(key));
+		}
+	}
+
+	/**
+	 * Even keys stay put while writers churn the odd ones, so every read has a single right answer for the even keys
+	 * no matter how it interleaves with the writes and rebalances.
+	 */
+	@Test
+	public void testReadsDuringWrites() throws Exception {
+		int range = 1 << 14;
+		StripedFastNavIntSet set = new StripedFastNavIntSet(8, 64, new int[0]);
+		for (int i = 0; i < range; i += 2) {
+			set.addInt(i);
+		}
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<?> writer = executor.submit(() -> {
+				Random random = new Random(1);
+				for (int i = 0; i < 200000; ++i) {
+					int odd = random.nextInt(range / 2) * 2 + 1;
+					if (random.nextBoolean()) {
+						set.addInt(odd);
+					}
+					else {
+						set.removeInt(odd);
+					}
+				}
+				done.set(true);
+			});
+			List<Future<?>> readers = new ArrayList<>();
+			for (int r = 0; r < 3; ++r) {
+				long seed = r;
+				readers.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					while (!done.get()) {
+						int even = random.nextInt(range / 2) * 2;
+						assertTrue(set.containsInt(even));
+						int ceiling = set.ceilingInt(even - 1);
+						assertTrue(ceiling == even - 1 || ceiling == even);
+						int floor = set.floorInt(even + 1);
+						assertTrue(floor == even + 1 || floor == even);
+						int count = set.subSet(even, true, even + 2, false).size();
+						assertTrue(count == 1 || count == 2);
+					}
+				}));
+			}
+			writer.get(1, TimeUnit.MINUTES);
+			for (Future<?> reader : readers) {
+				reader.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Concurrent polls hand out every element exactly once.
+	 */
+	@Test
+	public void testConcurrentPoll() throws Exception {
+		int count = 100000;
+		int[] values = new int[count];
+		for (int i = 0; i < count; ++i) {
+			values[i] = i;
+		}
+		StripedFastNavIntSet set = StripedFastNavIntSet.withShards(8, values);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<boolean[]>> pollers = new ArrayList<>();
+			for (int p = 0; p < 4; ++p) {
+				boolean last = p % 2 == 0;
+				pollers.add(executor.submit(() -> {
+					boolean[] seen = new boolean[count];
+					int value;
+					while ((value = last ? set.pollLastIntOrElse(-1) : set.pollFirstIntOrElse(-1)) != -1) {
+						seen[value] = true;
+					}
+					return seen;
+				}));
+			}
+			int total = 0;
+			boolean[] all = new boolean[count];
+			for (Future<boolean[]> poller : pollers) {
+				boolean[] seen = poller.get(1, TimeUnit.MINUTES);
+				for (int i = 0; i < count; ++i) {
+					if (seen[i]) {
+						assertTrue(!all[i]);
+						all[i] = true;
+						++total;
+					}
+				}
+			}
+			assertEquals(count, total);
+			assertTrue(set.isEmpty());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+}